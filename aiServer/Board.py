@@ -1,8 +1,32 @@
 from Tile import Tile
 from Piece import Piece
 
+# Rows in each star point on the standard board
+TRIANGLE_SIZE: int = 4
+
+"""Number of tiles in each row of a star board whose points have triangle_size rows.
+Same layout as BoardGeometry on the app: 4 gives the standard 17 rows and 121 tiles"""
+def tiles_per_row(triangle_size: int = TRIANGLE_SIZE) -> list[int]:
+    n = triangle_size
+    widths: list[int] = []
+    for row in range(4 * n + 1):
+        if row < n:
+            widths.append(row + 1)
+        elif row <= 2 * n:
+            widths.append(3 * n + 1 - (row - n))
+        elif row <= 3 * n:
+            widths.append(2 * n + 1 + (row - 2 * n))
+        else:
+            widths.append(4 * n - row + 1)
+    return widths
+
 class Board():
-    def __init__(self) -> None:
+    def __init__(self, triangle_size: int = TRIANGLE_SIZE) -> None:
+        self.triangle_size = triangle_size
+        # Tiles in a star point, which is also the number of pieces per player
+        self.triangle_tiles = triangle_size * (triangle_size + 1) // 2
+        self.last_row = 4 * triangle_size
+
         # Create the tiles, an arrange them in a list of lists
         self.board_row_tiles: list[list[Tile]] = self.generate_board_rows()
 
@@ -23,7 +47,7 @@ class Board():
     
     """Creates and returns a lists of Tiles that represent each row in the board"""
     def generate_board_rows(self) -> list[list[Tile]]:
-        TILES_PER_ROW: list[int] = [1, 2, 3, 4, 13, 12, 11, 10, 9, 10, 11, 12, 13, 4, 3, 2, 1]
+        TILES_PER_ROW: list[int] = tiles_per_row(self.triangle_size)
         board_rows: list[list[Tile]] = []
         for i in range(len(TILES_PER_ROW)):
             board_rows.append([Tile() for _ in range(TILES_PER_ROW[i])])
@@ -36,51 +60,30 @@ class Board():
             board.extend(row)
         return board
 
-    """Creates 10 pieces for the player1 and another 10 pieces for the player2.
-    Returns a single list with all 20 pieces"""
+    """Creates a triangle's worth of pieces (10 on the standard board) for each player.
+    Returns a single list with the pieces of both players"""
     def generate_pieces(self) -> list[Piece]:
-        return [Piece(Piece.PLAYER1_COLOR) for _ in range(10)] + [Piece(Piece.PLAYER2_COLOR) for _ in range(10)]
+        count = self.triangle_tiles
+        return [Piece(Piece.PLAYER1_COLOR) for _ in range(count)] + [Piece(Piece.PLAYER2_COLOR) for _ in range(count)]
     
-    """Adds all the neighbours for each tile"""
+    """Adds all the neighbours for each tile.
+    Rows are centred on a grid where neighbouring tiles are two columns apart,
+    so every direction is the same grid offset whatever the row widths"""
     def add_neighbouring_tiles(self) -> None:
-        # Add edges within the row
-        for row in self.board_row_tiles:
-            for i in range(0, len(row)-1):
-                row[i].add_neighbour("R", row[i+1])
-            for i in range(1, len(row)):
-                row[i].add_neighbour("L", row[i-1])
-
-        # Add some diagonal edges (1/4)
-        for row_index in [0, 1, 2, 8, 9, 10, 11]:
-            for tile_index in range(len(self.board_row_tiles[row_index])):
-                self.board_row_tiles[row_index    ][tile_index    ].add_neighbour("DL", self.board_row_tiles[row_index+1][tile_index])
-                self.board_row_tiles[row_index    ][tile_index    ].add_neighbour("DR", self.board_row_tiles[row_index+1][tile_index+1])
-                self.board_row_tiles[row_index + 1][tile_index    ].add_neighbour("UR", self.board_row_tiles[row_index][tile_index])
-                self.board_row_tiles[row_index + 1][tile_index + 1].add_neighbour("UL", self.board_row_tiles[row_index][tile_index])
-
-        # Add more diagonal edges (2/4)
-        for row_index in [5, 6, 7, 8, 14, 15, 16]:
-            for tile_index in range(len(self.board_row_tiles[row_index])):
-                self.board_row_tiles[row_index    ][tile_index    ].add_neighbour("UL", self.board_row_tiles[row_index - 1][tile_index])
-                self.board_row_tiles[row_index    ][tile_index    ].add_neighbour("UR", self.board_row_tiles[row_index - 1][tile_index+1])
-                self.board_row_tiles[row_index - 1][tile_index    ].add_neighbour("DR", self.board_row_tiles[row_index    ][tile_index])
-                self.board_row_tiles[row_index - 1][tile_index + 1].add_neighbour("DL", self.board_row_tiles[row_index    ][tile_index])
-
-        # Add more diagonal edges (3/4)
-        for tile_index in range(len(self.board_row_tiles[3])):
-            self.board_row_tiles[3][tile_index    ].add_neighbour("DL", self.board_row_tiles[4][tile_index + 4])
-            self.board_row_tiles[3][tile_index    ].add_neighbour("DR", self.board_row_tiles[4][tile_index + 5])
-            self.board_row_tiles[4][tile_index + 4].add_neighbour("UR", self.board_row_tiles[3][tile_index])
-            self.board_row_tiles[4][tile_index + 5].add_neighbour("UL", self.board_row_tiles[3][tile_index])
-
-        # Add last diagonal edges (4/4)
-        for tile_index in range(len(self.board_row_tiles[13])):
-            self.board_row_tiles[13][tile_index    ].add_neighbour("UL", self.board_row_tiles[12][tile_index + 4])
-            self.board_row_tiles[13][tile_index    ].add_neighbour("UR", self.board_row_tiles[12][tile_index + 5])
-            self.board_row_tiles[12][tile_index + 4].add_neighbour("DR", self.board_row_tiles[13][tile_index])
-            self.board_row_tiles[12][tile_index + 5].add_neighbour("DL", self.board_row_tiles[13][tile_index])
+        DIRECTIONS = {"L": (-2, 0), "R": (2, 0), "UL": (-1, -1), "UR": (1, -1), "DL": (-1, 1), "DR": (1, 1)}
+        centre = 3 * self.triangle_size + 1
+        tile_at_grid: dict[tuple[int, int], Tile] = {}
+        for row_index, row in enumerate(self.board_row_tiles):
+            for tile_index, tile in enumerate(row):
+                tile_at_grid[(centre - len(row) + 2 * tile_index, row_index)] = tile
+
+        for (grid_x, grid_y), tile in tile_at_grid.items():
+            for direction, (dx, dy) in DIRECTIONS.items():
+                neighbour = tile_at_grid.get((grid_x + dx, grid_y + dy))
+                if neighbour is not None:
+                    tile.add_neighbour(direction, neighbour)
     
-    """Places the 20 pieces where they should be at the start of the game"""
+    """Places the pieces of both players where they should be at the start of the game"""
     def place_pieces_in_board(self) -> None:
         i = 0
         for piece in self.get_player1_pieces():
@@ -190,11 +193,11 @@ class Board():
     
     """Return the tiles that are part of the triangle in the top"""
     def get_top_triangle_tiles(self):
-        return self.board_tiles[:10]
+        return self.board_tiles[:self.triangle_tiles]
 
     """Return the tiles that are part of the triangle in the bottom"""
     def get_bottom_triangle_tiles(self):
-        return self.board_tiles[-10:]
+        return self.board_tiles[-self.triangle_tiles:]
     
     """Generates all the valid moves from the piece in the argument"""
     def get_all_valid_moves(self, tile_origin: Tile):
@@ -232,7 +235,7 @@ class Board():
         # Evaluation function 1
         # Calculate scores for player1 player
         pending_of_exploring = [self.board_tiles[-1]]
-        pending_of_exploring[0].set_score1_for_player1(16)
+        pending_of_exploring[0].set_score1_for_player1(self.last_row)
         while any(pending_of_exploring):
             exploring_tile, pending_of_exploring = pending_of_exploring[0], pending_of_exploring[1:]
             pending_of_exploring.extend( [tile for tile in exploring_tile.get_neighbours().values() if tile.set_score1_for_player1(exploring_tile.get_score1_for_player1() - 1)] )
@@ -241,7 +244,7 @@ class Board():
         
         # Calculate scores for player2 player
         pending_of_exploring = [self.board_tiles[0]]
-        pending_of_exploring[0].set_score1_for_player2(16)
+        pending_of_exploring[0].set_score1_for_player2(self.last_row)
         while any(pending_of_exploring):
             exploring_tile, pending_of_exploring = pending_of_exploring[0], pending_of_exploring[1:]
             pending_of_exploring.extend( [tile for tile in exploring_tile.get_neighbours().values() if tile.set_score1_for_player2(exploring_tile.get_score1_for_player2() - 1)] )
@@ -264,9 +267,9 @@ class Board():
             row = self.board_row_tiles[i]
             for j in range(len(row)):
                 if len(row) % 2 == 0:
-                    row[j].set_score2_for_player2((16-i)*10 - abs(int((len(row)-1)/2 - j)))
+                    row[j].set_score2_for_player2((self.last_row-i)*10 - abs(int((len(row)-1)/2 - j)))
                 else:
-                    row[j].set_score2_for_player2((16-i)*10 - abs(len(row)//2 - j))
+                    row[j].set_score2_for_player2((self.last_row-i)*10 - abs(len(row)//2 - j))
         for tile in self.get_top_triangle_tiles():
             tile.set_score2_for_player2(tile.get_score2_for_player2() + 50)
 
@@ -185,8 +185,53 @@ def minimax_pruning(board: Board, depth: int, is_player1_turn: bool,
         
         return min_points, best_path
 
-    
-    
+
+def get_candidate_paths(board: Board, tile_origin: Tile, heuristic) -> list[list[Tile]]:
+    """
+    Every move from a tile that passes the heuristic, one path per destination.
+    A jump found both as a single move and as a jump path keeps the full path.
+    """
+    paths_by_destination: dict[Tile, list[Tile]] = {}
+    candidates = [[tile_origin, dest] for dest in board.get_all_valid_moves(tile_origin)]
+    # get_all_jump_paths may return None when a tile has no jumps
+    candidates += [path for path in board.get_all_jump_paths(tile_origin) or [] if len(path) > 1]
+    for path in candidates:
+        if not heuristic(path[0], path[-1]):
+            continue
+        known = paths_by_destination.get(path[-1])
+        if known is None or len(path) > len(known):
+            paths_by_destination[path[-1]] = path
+    return list(paths_by_destination.values())
+
+
+def minimax_top_k(board: Board, depth: int, is_player1_turn: bool,
+                  heuristic, use_eval_func_1: bool, k: int) -> list[tuple[int, list[Tile]]]:
+    """
+    Score the player's moves and return the k best as (score, path) pairs,
+    best first, with exact scores.
+
+    Until k moves are scored each move gets a full-window search; after that
+    a move is searched with alpha at the k-th best score, so it is cut off as
+    soon as it cannot enter the top k. The cost is that of minimax_pruning
+    with k - 1 extra full-window searches, so callers should keep k small.
+    """
+    scored = []
+    tiles_for_player = board.get_player1_tiles() if is_player1_turn else board.get_player2_tiles()
+    for tile_origin in list(tiles_for_player):
+        for path in get_candidate_paths(board, tile_origin, heuristic):
+            alpha = scored[-1][0] if len(scored) == k else float('-inf')
+            board.apply_path(path)
+            points, _ = minimax_pruning(board, max(depth - 1, 0), is_player1_turn,
+                                        heuristic, use_eval_func_1, maximizing=False, alpha=alpha)
+            board.undo_path(path)
+            # A search cut off at alpha only proves the move is no better than the k-th
+            if points > alpha:
+                scored.append((points, path))
+                scored.sort(key=lambda entry: entry[0], reverse=True)
+                del scored[k:]
+    return scored
+
+
 class Player():
     def __init__(self, name: str) -> None:
         self.name: str = name
@@ -240,6 +285,19 @@ class Player_Computer(Player):
 
         return best_path
 
+    def get_moves(self, board: Board, k: int) -> list[tuple[int, list[Tile]]]:
+        """
+        The k best moves as (score, path) pairs, best first
+        """
+        return minimax_top_k(
+            board,
+            depth=self.depth,
+            is_player1_turn=self.is_player1(),
+            heuristic=self.get_heuristic(),
+            use_eval_func_1=self.uses_eval_func_1(),
+            k=k
+        )
+
     def get_heuristic(self):
         return self.heuristic
     
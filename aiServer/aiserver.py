@@ -32,6 +32,8 @@ logger = logging.getLogger(__name__)
 DEFAULT_DEPTH = 4
 DEFAULT_EVAL_FUNC = 1
 USE_HEURISTIC = True
+# Most candidate moves a client may ask for; each one costs a full-window search
+MAX_TOP_K = 10
 
 # Create a debug directory if it doesn't exist
 DEBUG_DIR = "debug_logs"
@@ -92,6 +94,19 @@ class BoardMapper:
         Get the best complete path of Tiles from the AI.
         The AI already handles multi-step paths including jumps.
         """
+        ai_player = self.create_ai_player(is_player1, depth, eval_func, use_heuristic)
+        
+        # Get the best path - this will already include all jumps
+        return ai_player.get_move(self.board)
+
+    def get_ai_move_candidates(self, is_player1: bool, depth: int, eval_func: int, use_heuristic: bool, top_k: int):
+        """
+        Get the top_k best paths of Tiles from the AI as (score, path) pairs, best first.
+        """
+        ai_player = self.create_ai_player(is_player1, depth, eval_func, use_heuristic)
+        return ai_player.get_moves(self.board, top_k)
+
+    def create_ai_player(self, is_player1: bool, depth: int, eval_func: int, use_heuristic: bool):
         # Create AI player
         ai_player = Player_Computer("AI1" if is_player1 else "AI2", eval_func, depth)
         
@@ -104,9 +119,7 @@ class BoardMapper:
                 else:
                     return self.board.get_row_index(tile_destination) <= self.board.get_row_index(tile_origin)
             ai_player.set_heuristic(heuristic)
-        
-        # Get the best path - this will already include all jumps
-        return ai_player.get_move(self.board)
+        return ai_player
 
     def validate_move_sequence(self, path_coords):
         """
@@ -690,6 +703,13 @@ def get_ai_move():
         depth = data.get('depth', DEFAULT_DEPTH)
         eval_func = data.get('eval_func', DEFAULT_EVAL_FUNC)
         use_heuristic = data.get('use_heuristic', USE_HEURISTIC)
+        # Clients that may not reach every cell ask for runners-up to choose from
+        try:
+            top_k = data.get('top_k')
+            top_k = 1 if top_k is None else int(top_k)
+        except (TypeError, ValueError):
+            return jsonify({"status": "error", "message": "top_k must be an integer"}), 400
+        top_k = min(max(top_k, 1), MAX_TOP_K)
         
         # Use the board state parser to normalize the format
         board_matrix = normalize_board_state(board_state)
@@ -708,7 +728,12 @@ def get_ai_move():
         )
         
         # Get the AI's multi-step path (returns Tile objects)
-        path_tiles = board_mapper.get_ai_move_sequence(is_player1, depth, eval_func, use_heuristic)
+        candidates = []
+        if top_k > 1:
+            scored = board_mapper.get_ai_move_candidates(is_player1, depth, eval_func, use_heuristic, top_k)
+            path_tiles = scored[0][1] if scored else []
+        else:
+            path_tiles = board_mapper.get_ai_move_sequence(is_player1, depth, eval_func, use_heuristic)
         
         # If no move is possible, return appropriate status
         if not path_tiles or len(path_tiles) < 2:
@@ -718,45 +743,21 @@ def get_ai_move():
                 "message": "No valid moves found for the current board state"
             }), 200
         
-        # Convert path of Tile objects to coordinates
-        path_coords = []
-        for tile in path_tiles:
-            coords = board_mapper.get_coord_of_tile(tile)
-            if coords is not None:
-                path_coords.append(coords)
-        
-        # Log the converted path
-        logger.info(f"Initial path from AI as coordinates: {path_coords}")
-        
-        # If we couldn't convert all tiles to coordinates
-        if len(path_coords) != len(path_tiles):
-            logger.warning("Some tiles could not be converted to coordinates")
-        
-        # If we have at least a start and end point
-        if len(path_coords) >= 2:
-            # Check if this is a multi-step jump that needs intermediate steps
-            start_coords = path_coords[0]
-            end_coords = path_coords[-1]
-            
-            # Get distance between start and end
-            dist_x = abs(end_coords[0] - start_coords[0])
-            dist_y = abs(end_coords[1] - start_coords[1])
-            
-            # If distance is greater than 1 in any direction, find intermediate jumps
-            if dist_x > 1 or dist_y > 1:
-                logger.info("Path appears to require jumps, finding complete path...")
-                
-                # Get the start and end tiles
-                start_tile = board_mapper.get_tile_at_coord(start_coords[0], start_coords[1])
-                end_tile = board_mapper.get_tile_at_coord(end_coords[0], end_coords[1])
-                
-                if start_tile is not None and end_tile is not None:
-                    # Find all intermediate jumps
-                    complete_path = find_jump_path(board_mapper, start_coords, end_coords)
-                    
-                    if complete_path and len(complete_path) > len(path_coords):
-                        logger.info(f"Found complete path with jumps: {complete_path}")
-                        path_coords = complete_path
+        if top_k > 1:
+            # Only validated candidates are offered, and the best of them is the move,
+            # so an invalid best move falls back to the next one
+            candidates = candidates_to_json(board_mapper, scored)
+            if not candidates:
+                logger.warning(f"None of the {len(scored)} candidate moves is valid")
+                return jsonify({
+                    "status": "invalid_move",
+                    "message": f"None of the AI's {len(scored)} candidate moves is valid",
+                    "debug_file": f"board_before_move_{timestamp}.txt"
+                }), 200
+            path_coords = [(step["x"], step["y"]) for step in candidates[0]["move_sequence"]]
+        else:
+            # Convert path of Tile objects to coordinates, with every intermediate jump
+            path_coords = tiles_to_path_coords(board_mapper, path_tiles)
         
         # If we couldn't find a valid path with coordinates
         if not path_coords or len(path_coords) < 2:
@@ -795,6 +796,8 @@ def get_ai_move():
             "move_sequence": move_sequence,
             "debug_file": f"board_with_move_{timestamp}.txt"
         }
+        if candidates:
+            response["candidates"] = candidates
         logger.info(f"Sending response: {response}")
         return jsonify(response)
     
@@ -802,6 +805,70 @@ def get_ai_move():
         logger.error(f"Error processing request: {str(e)}", exc_info=True)
         return jsonify({"status": "error", "message": str(e)}), 500
 
+def tiles_to_path_coords(board_mapper, path_tiles):
+    """
+    Convert a path of Tiles to (x, y) coordinates, filling in the intermediate
+    jumps when the AI gave only the start and end of a jump.
+    """
+    path_coords = []
+    for tile in path_tiles:
+        coords = board_mapper.get_coord_of_tile(tile)
+        if coords is not None:
+            path_coords.append(coords)
+    
+    # Log the converted path
+    logger.info(f"Initial path from AI as coordinates: {path_coords}")
+    
+    # If we couldn't convert all tiles to coordinates
+    if len(path_coords) != len(path_tiles):
+        logger.warning("Some tiles could not be converted to coordinates")
+    
+    # If we have at least a start and end point
+    if len(path_coords) >= 2:
+        # Check if this is a multi-step jump that needs intermediate steps
+        start_coords = path_coords[0]
+        end_coords = path_coords[-1]
+        
+        # Get distance between start and end
+        dist_x = abs(end_coords[0] - start_coords[0])
+        dist_y = abs(end_coords[1] - start_coords[1])
+        
+        # If distance is greater than 1 in any direction, find intermediate jumps
+        if dist_x > 1 or dist_y > 1:
+            logger.info("Path appears to require jumps, finding complete path...")
+            
+            # Get the start and end tiles
+            start_tile = board_mapper.get_tile_at_coord(start_coords[0], start_coords[1])
+            end_tile = board_mapper.get_tile_at_coord(end_coords[0], end_coords[1])
+            
+            if start_tile is not None and end_tile is not None:
+                # Find all intermediate jumps
+                complete_path = find_jump_path(board_mapper, start_coords, end_coords)
+                
+                if complete_path and len(complete_path) > len(path_coords):
+                    logger.info(f"Found complete path with jumps: {complete_path}")
+                    path_coords = complete_path
+    return path_coords
+
+def candidates_to_json(board_mapper, candidates):
+    """
+    Scored candidate moves as JSON, best first, leaving out any that fail validation
+    """
+    result = []
+    for score, path_tiles in candidates:
+        path_coords = tiles_to_path_coords(board_mapper, path_tiles)
+        if len(path_coords) < 2:
+            continue
+        is_valid, reason = board_mapper.validate_move_sequence(path_coords)
+        if not is_valid:
+            logger.warning(f"Dropping invalid candidate move: {reason}")
+            continue
+        result.append({
+            "move_sequence": [{"x": x, "y": y} for x, y in path_coords],
+            "score": score
+        })
+    return result
+
 def get_raw_position(board_state, x, y):
     """Helper to get the raw value at a position in the board state"""
     try:
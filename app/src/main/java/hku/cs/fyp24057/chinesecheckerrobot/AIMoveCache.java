@@ -0,0 +1,371 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+
+/**
+ * AI moves already received, so a position seen before is answered without a
+ * network call. Two levels: a small in-memory LRU map in front of a directory
+ * of one small file per position, evicted oldest-used first.
+ *
+ * Positions are keyed by their canonical Zobrist hash plus the side to move,
+ * so a position and its mirror share an entry; moves are stored in the
+ * canonical orientation and reflected back on the way out. Every entry keeps
+ * its full board, and a hit is only returned if the board matches, so a hash
+ * collision is a miss rather than a wrong move.
+ *
+ * Entry file layout (big endian):
+ *   int   magic "CCMV"
+ *   short format version
+ *   byte  colour to move
+ *   byte  path length
+ *   BoardState.SERIALIZED_BYTES canonical board
+ *   path length x byte cell id
+ *   long  CRC32 of everything before it
+ */
+public class AIMoveCache {
+    private static final String TAG = "AIMoveCache";
+
+    public static final String DIR_NAME = "ai_move_cache";
+    private static final String EXTENSION = ".mv";
+
+    private static final int MAGIC = 0x43434D56; // "CCMV"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 1 + 1 + BoardState.SERIALIZED_BYTES;
+    private static final int CRC_BYTES = 8;
+
+    public static final int DEFAULT_MEMORY_ENTRIES = 256;
+    public static final int DEFAULT_DISK_ENTRIES = 4096;
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+
+    public interface LookupCallback {
+        /**
+         * @param path cell ids of the cached move, or null on a miss
+         */
+        void onResult(int[] path);
+    }
+
+    private static class CachedMove {
+        final BoardState canonical;
+        final int colour;
+        final int[] path;
+
+        CachedMove(BoardState canonical, int colour, int[] path) {
+            this.canonical = canonical;
+            this.colour = colour;
+            this.path = path;
+        }
+    }
+
+    private final File directory;
+    private final int diskEntries;
+    private final Map<Long, CachedMove> memory;
+    private final ExecutorService disk = Executors.newSingleThreadExecutor();
+    // Files on disk, counted on the first write; only touched on the disk thread
+    private int diskCount = -1;
+
+    private int memoryHits;
+    private int diskHits;
+    private int misses;
+
+    /**
+     * @param variant names the AI settings the moves were computed with, so
+     *                moves from different search depths are kept apart
+     */
+    public AIMoveCache(File filesDir, String variant) {
+        this(filesDir, variant, DEFAULT_MEMORY_ENTRIES, DEFAULT_DISK_ENTRIES);
+    }
+
+    public AIMoveCache(File filesDir, String variant, int memoryEntries, int diskEntries) {
+        if (!variant.matches("[A-Za-z0-9_\\-]+")) {
+            throw new IllegalArgumentException("Invalid cache variant: " + variant);
+        }
+        directory = new File(new File(filesDir, DIR_NAME), variant);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "Could not create " + directory);
+        }
+        this.diskEntries = diskEntries;
+        memory = new LinkedHashMap<Long, CachedMove>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedMove> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    /**
+     * Look a position up in memory, then on disk on a background thread. The
+     * callback runs on the calling thread for a memory hit and on the disk
+     * thread otherwise.
+     */
+    public void lookup(BoardState state, int colour, LookupCallback callback) {
+        Key key = new Key(state, colour);
+        int[] path = getFromMemory(key);
+        if (path != null) {
+            callback.onResult(path);
+            return;
+        }
+        onDiskThread(() -> callback.onResult(getFromDisk(key)));
+    }
+
+    /**
+     * Cached move from memory only, null if it is not there
+     */
+    public int[] getCached(BoardState state, int colour) {
+        return getFromMemory(new Key(state, colour));
+    }
+
+    /**
+     * Remember a move for a position; written to disk on a background thread
+     */
+    public void put(BoardState state, int colour, int[] path) {
+        Key key = new Key(state, colour);
+        int[] canonicalPath = key.mirrored ? mirror(path) : path.clone();
+        CachedMove entry = new CachedMove(key.canonical, colour, canonicalPath);
+        synchronized (memory) {
+            memory.put(key.hash, entry);
+        }
+        onDiskThread(() -> writeEntry(key.hash, entry));
+    }
+
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        onDiskThread(() -> {
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (!file.delete()) {
+                        Log.w(TAG, "Could not delete " + file);
+                    }
+                }
+            }
+            diskCount = 0;
+        });
+    }
+
+    /**
+     * Stop the disk thread once pending writes are done; later lookups and
+     * writes are dropped
+     */
+    public void shutdown() {
+        disk.shutdown();
+    }
+
+    public synchronized String getStats() {
+        return String.format(Locale.US, "move cache: %d memory hits, %d disk hits, %d misses",
+                memoryHits, diskHits, misses);
+    }
+
+    // ------------------------------------------------------------------
+    //  Lookup
+    // ------------------------------------------------------------------
+
+    /**
+     * Canonical form of a position and the hash it is stored under
+     */
+    private static class Key {
+        final BoardState canonical;
+        final boolean mirrored;
+        final int colour;
+        final long hash;
+
+        Key(BoardState state, int colour) {
+            long plain = ZobristHash.hash(state);
+            long reflected = ZobristHash.mirrorHash(state);
+            mirrored = reflected < plain;
+            canonical = mirrored ? state.mirrored() : state;
+            this.colour = colour;
+            long side = colour == BoardState.RED ? ZobristHash.RED_TO_MOVE : 0L;
+            hash = Math.min(plain, reflected) ^ side;
+        }
+
+        boolean matches(CachedMove entry) {
+            return entry.colour == colour && entry.canonical.equals(canonical);
+        }
+
+        int[] restore(CachedMove entry) {
+            return mirrored ? mirror(entry.path) : entry.path.clone();
+        }
+    }
+
+    private int[] getFromMemory(Key key) {
+        CachedMove entry;
+        synchronized (memory) {
+            entry = memory.get(key.hash);
+        }
+        if (entry == null || !key.matches(entry)) {
+            return null;
+        }
+        synchronized (this) {
+            memoryHits++;
+        }
+        return key.restore(entry);
+    }
+
+    private int[] getFromDisk(Key key) {
+        File file = entryFile(key.hash);
+        CachedMove entry = file.exists() ? readEntry(file) : null;
+        if (entry == null || !key.matches(entry)) {
+            synchronized (this) {
+                misses++;
+            }
+            return null;
+        }
+        // Mark as recently used for the disk eviction order
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            Log.w(TAG, "Could not touch " + file);
+        }
+        synchronized (memory) {
+            memory.put(key.hash, entry);
+        }
+        synchronized (this) {
+            diskHits++;
+        }
+        return key.restore(entry);
+    }
+
+    private static int[] mirror(int[] path) {
+        int[] mirrored = new int[path.length];
+        for (int i = 0; i < path.length; i++) {
+            mirrored[i] = GEOMETRY.mirror(path[i]);
+        }
+        return mirrored;
+    }
+
+    // ------------------------------------------------------------------
+    //  Disk
+    // ------------------------------------------------------------------
+
+    private void onDiskThread(Runnable task) {
+        try {
+            disk.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Move cache is shut down, dropping disk access");
+        }
+    }
+
+    private File entryFile(long hash) {
+        return new File(directory, String.format(Locale.US, "%016x", hash) + EXTENSION);
+    }
+
+    private CachedMove readEntry(File file) {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long size = raf.length();
+            if (size < HEADER_BYTES + CRC_BYTES || size > HEADER_BYTES + 255 + CRC_BYTES) {
+                throw new IOException("wrong size " + size);
+            }
+            byte[] data = new byte[(int) size];
+            raf.readFully(data);
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException("not a move cache entry");
+            }
+            int colour = buffer.get();
+            int length = buffer.get() & 0xFF;
+            if (size != HEADER_BYTES + length + CRC_BYTES) {
+                throw new IOException("wrong size for " + length + " cells");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, HEADER_BYTES + length);
+            if (ByteBuffer.wrap(data, HEADER_BYTES + length, CRC_BYTES).getLong() != crc.getValue()) {
+                throw new IOException("checksum mismatch");
+            }
+            byte[] board = new byte[BoardState.SERIALIZED_BYTES];
+            buffer.get(board);
+            int[] path = new int[length];
+            for (int i = 0; i < length; i++) {
+                path[i] = buffer.get() & 0xFF;
+                if (path[i] >= BoardState.CELL_COUNT) {
+                    throw new IOException("cell " + path[i] + " is off the board");
+                }
+            }
+            return new CachedMove(BoardState.fromBytes(board), colour, path);
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping unreadable cache entry " + file.getName() + ": " + e.getMessage());
+            if (!file.delete()) {
+                Log.w(TAG, "Could not delete " + file);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Write to a temporary file and rename it into place, as CalibrationProfileStore does
+     */
+    private void writeEntry(long hash, CachedMove entry) {
+        File target = entryFile(hash);
+        File temp = new File(directory, target.getName() + ".tmp");
+        boolean existed = target.exists();
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + entry.path.length + CRC_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.put((byte) entry.colour);
+        buffer.put((byte) entry.path.length);
+        buffer.put(entry.canonical.toBytes());
+        for (int cell : entry.path) {
+            buffer.put((byte) cell);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                out.write(buffer.array(), 0, buffer.position());
+            }
+            if (!temp.renameTo(target)) {
+                throw new IOException("Could not replace " + target);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to write cache entry", e);
+            return;
+        }
+        if (diskCount < 0) {
+            File[] files = directory.listFiles();
+            diskCount = files == null ? 0 : files.length;
+        } else if (!existed) {
+            diskCount++;
+        }
+        if (diskCount > diskEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * Delete the least recently used tenth of the entries
+     */
+    private void evict() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        int remove = files.length - diskEntries + diskEntries / 10;
+        int removed = 0;
+        for (int i = 0; i < remove && i < files.length; i++) {
+            if (files[i].delete()) {
+                removed++;
+            }
+        }
+        diskCount = files.length - removed;
+        Log.d(TAG, "Evicted " + removed + " cache entries, " + diskCount + " left");
+    }
+}
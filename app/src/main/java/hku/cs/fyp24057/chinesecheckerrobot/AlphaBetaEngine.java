@@ -0,0 +1,410 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * On-device player, so a game can go on when the AI server is slow or out of
+ * reach. Negamax alpha-beta over MoveGenerator with the server's evaluation
+ * (BoardEvaluator), deepened one ply at a time until the time budget runs out.
+ *
+ * Positions are cached in a transposition table keyed by Zobrist hash. At the
+ * root the first move is searched alone for a bound, then the remaining moves
+ * are shared out between one searcher per core, each with its own generator,
+ * searching against the best score found so far.
+ *
+ * Plain Java, so the offline opening book tool can run it on a desktop JVM;
+ * the app passes in a logger.
+ */
+public class AlphaBetaEngine implements MoveEngine {
+    private static final String TAG = "AlphaBetaEngine";
+    private static final Consumer<String> NO_LOG = message -> { };
+
+    private static final int MAX_PLY = 32;
+    private static final int INFINITY = BoardEvaluator.WIN_SCORE + 1000;
+    // Scores this close to a win are forced results and end the deepening
+    private static final int WIN_BOUND = BoardEvaluator.WIN_SCORE - MAX_PLY;
+    // Nodes between reads of the clock
+    private static final int CHECK_INTERVAL = 1024;
+
+    private static final int TT_BITS = 18;
+    private static final int TT_MASK = (1 << TT_BITS) - 1;
+    private static final int EXACT = 0;
+    private static final int LOWER_BOUND = 1;
+    private static final int UPPER_BOUND = 2;
+    private static final int NO_CELL = 0xFF;
+
+    private final Consumer<String> log;
+    private final ExecutorService pool;
+    private final Searcher[] searchers;
+    // Shared by all searchers without locks: a key is stored as hash ^ data,
+    // so an entry torn by two threads writing at once reads as a miss
+    private final long[] ttKeys = new long[1 << TT_BITS];
+    private final long[] ttData = new long[1 << TT_BITS];
+
+    private volatile boolean stop;
+    private volatile long deadline;
+    private final AtomicLong nodes = new AtomicLong();
+    private String lastSearch = "no search yet";
+
+    public AlphaBetaEngine() {
+        this(NO_LOG);
+    }
+
+    /**
+     * @param log receives one line per search
+     */
+    public AlphaBetaEngine(Consumer<String> log) {
+        this(Runtime.getRuntime().availableProcessors(), log);
+    }
+
+    public AlphaBetaEngine(int threads) {
+        this(threads, NO_LOG);
+    }
+
+    public AlphaBetaEngine(int threads, Consumer<String> log) {
+        this.log = log;
+        int count = Math.max(1, threads);
+        searchers = new Searcher[count];
+        for (int i = 0; i < count; i++) {
+            searchers[i] = new Searcher();
+        }
+        pool = Executors.newFixedThreadPool(count, r -> {
+            Thread thread = new Thread(r, TAG);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "alpha-beta";
+    }
+
+    @Override
+    public synchronized String describeLastSearch() {
+        return lastSearch;
+    }
+
+    public void shutdown() {
+        stop = true;
+        pool.shutdownNow();
+    }
+
+    @Override
+    public synchronized int[] findMove(BoardState state, int colour, long budgetMs, boolean[] allowedCells) {
+        long start = System.nanoTime();
+        deadline = start + budgetMs * 1_000_000L;
+        stop = false;
+        nodes.set(0);
+
+        MoveGenerator root = new MoveGenerator(state);
+        int[] froms = new int[MoveGenerator.MAX_MOVES];
+        int[] tos = new int[MoveGenerator.MAX_MOVES];
+        int count = root.generate(colour, froms, tos);
+        if (allowedCells != null) {
+            count = root.retainAllowed(froms, tos, count, allowedCells);
+        }
+        if (count == 0) {
+            lastSearch = "alpha-beta: no legal move";
+            return null;
+        }
+        // Forward moves first on the first iteration, then by the last iteration's scores
+        int[] scores = new int[count];
+        for (int i = 0; i < count; i++) {
+            scores[i] = BoardEvaluator.progress(colour, tos[i]) - BoardEvaluator.progress(colour, froms[i]);
+        }
+        for (Searcher searcher : searchers) {
+            searcher.generator.load(state);
+        }
+        long hash = ZobristHash.hash(state) ^ sideKey(colour);
+        int eval = BoardEvaluator.evaluate(state, colour);
+
+        int bestFrom = froms[0];
+        int bestTo = tos[0];
+        int bestScore = 0;
+        int completedDepth = 0;
+        if (count > 1) {
+            try {
+                for (int depth = 1; depth < MAX_PLY; depth++) {
+                    sortByScore(froms, tos, scores, count);
+                    if (depth > 1) {
+                        moveToFront(froms, tos, scores, count, bestFrom, bestTo);
+                    }
+                    int index = searchRoot(froms, tos, scores, count, depth, colour, hash, eval);
+                    if (index < 0) {
+                        break;
+                    }
+                    bestFrom = froms[index];
+                    bestTo = tos[index];
+                    bestScore = scores[index];
+                    if (stop) {
+                        break;
+                    }
+                    completedDepth = depth;
+                    // Another ply costs several times this one; do not start what cannot finish
+                    long elapsed = System.nanoTime() - start;
+                    if (Math.abs(bestScore) >= WIN_BOUND || elapsed * 2 > budgetMs * 1_000_000L) {
+                        break;
+                    }
+                }
+            } catch (RejectedExecutionException e) {
+                // Shut down with its owner while a search was still on the way
+                lastSearch = "alpha-beta: engine shut down";
+                return null;
+            }
+        }
+
+        for (Searcher searcher : searchers) {
+            nodes.addAndGet(searcher.localNodes);
+            searcher.localNodes = 0;
+        }
+
+        int[] buffer = new int[MoveGenerator.CELL_COUNT];
+        root.destinations(bestFrom, buffer);
+        int length = root.pathTo(bestTo, buffer);
+        int[] path = new int[length];
+        System.arraycopy(buffer, 0, path, 0, length);
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        lastSearch = String.format(Locale.US, "alpha-beta: depth %d, %d moves, %d nodes in %d ms, score %d",
+                completedDepth, count, nodes.get(), elapsedMs, bestScore);
+        log.accept(lastSearch);
+        return path;
+    }
+
+    /**
+     * Search every root move to a depth
+     * @return index of the best move, or -1 if time ran out before any move was fully searched
+     */
+    private int searchRoot(int[] froms, int[] tos, int[] scores, int count, int depth,
+                           int colour, long hash, int eval) {
+        // The first move alone with a full window gives the others a bound
+        Searcher first = searchers[0];
+        int firstScore = first.searchRootMove(froms[0], tos[0], depth, -INFINITY, INFINITY, colour, hash, eval);
+        if (stop) {
+            return -1;
+        }
+        scores[0] = firstScore;
+
+        AtomicInteger next = new AtomicInteger(1);
+        AtomicInteger alpha = new AtomicInteger(firstScore);
+        AtomicInteger best = new AtomicInteger(0);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Searcher searcher : searchers) {
+            tasks.add(() -> {
+                for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                    int bound = alpha.get();
+                    // Null window first: most moves only need to be shown no better
+                    int score = searcher.searchRootMove(froms[i], tos[i], depth, bound, bound + 1, colour, hash, eval);
+                    if (!stop && score > bound) {
+                        score = searcher.searchRootMove(froms[i], tos[i], depth, bound, INFINITY, colour, hash, eval);
+                    }
+                    if (stop) {
+                        return null;
+                    }
+                    scores[i] = score;
+                    synchronized (best) {
+                        if (score > scores[best.get()]) {
+                            best.set(i);
+                        }
+                    }
+                    alpha.accumulateAndGet(score, Math::max);
+                }
+                return null;
+            });
+        }
+        try {
+            pool.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop = true;
+        }
+        return best.get();
+    }
+
+    private static long sideKey(int colour) {
+        return colour == BoardState.RED ? ZobristHash.RED_TO_MOVE : 0L;
+    }
+
+    /**
+     * Insertion sort, best score first; stable, so ties keep their order
+     */
+    private static void sortByScore(int[] froms, int[] tos, int[] scores, int count) {
+        for (int i = 1; i < count; i++) {
+            int from = froms[i];
+            int to = tos[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                froms[j + 1] = froms[j];
+                tos[j + 1] = tos[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            froms[j + 1] = from;
+            tos[j + 1] = to;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Put the last iteration's best move first, ahead of any move that tied with it
+     */
+    private static void moveToFront(int[] froms, int[] tos, int[] scores, int count, int from, int to) {
+        for (int i = 0; i < count; i++) {
+            if (froms[i] == from && tos[i] == to) {
+                int score = scores[i];
+                System.arraycopy(froms, 0, froms, 1, i);
+                System.arraycopy(tos, 0, tos, 1, i);
+                System.arraycopy(scores, 0, scores, 1, i);
+                froms[0] = from;
+                tos[0] = to;
+                scores[0] = score;
+                return;
+            }
+        }
+    }
+
+    /**
+     * One search thread's state: a generator on the root position and move lists per ply
+     */
+    private final class Searcher {
+        final MoveGenerator generator = new MoveGenerator();
+        final int[][] plyFroms = new int[MAX_PLY + 1][];
+        final int[][] plyTos = new int[MAX_PLY + 1][];
+        final int[][] plyKeys = new int[MAX_PLY + 1][];
+        int localNodes;
+
+        int searchRootMove(int from, int to, int depth, int alpha, int beta,
+                           int colour, long hash, int eval) {
+            int delta = BoardEvaluator.progress(colour, to) - BoardEvaluator.progress(colour, from);
+            generator.makeMove(from, to);
+            int score = -search(1, depth - 1, -beta, -alpha, BoardEvaluator.opponent(colour),
+                    childHash(hash, from, to, colour), -(eval + delta));
+            generator.unmakeMove(from, to);
+            return score;
+        }
+
+        /**
+         * Negamax with alpha-beta; eval is the static score for the side to move
+         */
+        int search(int ply, int depth, int alpha, int beta, int colour, long hash, int eval) {
+            if (++localNodes == CHECK_INTERVAL) {
+                nodes.addAndGet(localNodes);
+                localNodes = 0;
+                if (System.nanoTime() > deadline) {
+                    stop = true;
+                }
+            }
+            if (stop) {
+                return 0;
+            }
+            int other = BoardEvaluator.opponent(colour);
+            if (generator.hasReachedTarget(other)) {
+                return -(BoardEvaluator.WIN_SCORE - ply);
+            }
+            if (generator.hasReachedTarget(colour)) {
+                return BoardEvaluator.WIN_SCORE - ply;
+            }
+            if (depth == 0 || ply >= MAX_PLY) {
+                return eval;
+            }
+
+            int slot = (int) hash & TT_MASK;
+            long data = ttData[slot];
+            int ttFrom = NO_CELL;
+            int ttTo = NO_CELL;
+            if ((ttKeys[slot] ^ data) == hash) {
+                int ttScore = (int) data;
+                int ttDepth = (int) (data >>> 32) & 0xFF;
+                int ttFlag = (int) (data >>> 40) & 0x3;
+                if (ttDepth >= depth) {
+                    if (ttFlag == EXACT
+                            || (ttFlag == LOWER_BOUND && ttScore >= beta)
+                            || (ttFlag == UPPER_BOUND && ttScore <= alpha)) {
+                        return ttScore;
+                    }
+                }
+                ttFrom = (int) (data >>> 42) & 0xFF;
+                ttTo = (int) (data >>> 50) & 0xFF;
+            }
+
+            if (plyFroms[ply] == null) {
+                plyFroms[ply] = new int[MoveGenerator.MAX_MOVES];
+                plyTos[ply] = new int[MoveGenerator.MAX_MOVES];
+                plyKeys[ply] = new int[MoveGenerator.MAX_MOVES];
+            }
+            int[] froms = plyFroms[ply];
+            int[] tos = plyTos[ply];
+            int[] keys = plyKeys[ply];
+            int count = generator.generate(colour, froms, tos);
+            if (count == 0) {
+                return eval;
+            }
+            for (int i = 0; i < count; i++) {
+                keys[i] = froms[i] == ttFrom && tos[i] == ttTo ? Integer.MAX_VALUE
+                        : BoardEvaluator.progress(colour, tos[i]) - BoardEvaluator.progress(colour, froms[i]);
+            }
+
+            int originalAlpha = alpha;
+            int bestScore = -INFINITY;
+            int bestFrom = NO_CELL;
+            int bestTo = NO_CELL;
+            for (int i = 0; i < count; i++) {
+                // Pick the best remaining move; a cutoff usually comes long before the list is sorted
+                int pick = i;
+                for (int j = i + 1; j < count; j++) {
+                    if (keys[j] > keys[pick]) pick = j;
+                }
+                int from = froms[pick];
+                int to = tos[pick];
+                froms[pick] = froms[i];
+                tos[pick] = tos[i];
+                keys[pick] = keys[i];
+
+                int delta = BoardEvaluator.progress(colour, to) - BoardEvaluator.progress(colour, from);
+                generator.makeMove(from, to);
+                int score = -search(ply + 1, depth - 1, -beta, -alpha, other,
+                        childHash(hash, from, to, colour), -(eval + delta));
+                generator.unmakeMove(from, to);
+                if (stop) {
+                    return 0;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestFrom = from;
+                    bestTo = to;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+
+            int flag = bestScore <= originalAlpha ? UPPER_BOUND : bestScore >= beta ? LOWER_BOUND : EXACT;
+            long entry = (bestScore & 0xFFFFFFFFL)
+                    | ((long) depth << 32)
+                    | ((long) flag << 40)
+                    | ((long) bestFrom << 42)
+                    | ((long) bestTo << 50);
+            ttData[slot] = entry;
+            ttKeys[slot] = hash ^ entry;
+            return bestScore;
+        }
+    }
+
+    private static long childHash(long hash, int from, int to, int colour) {
+        return hash ^ ZobristHash.key(from, colour) ^ ZobristHash.key(to, colour) ^ ZobristHash.RED_TO_MOVE;
+    }
+}
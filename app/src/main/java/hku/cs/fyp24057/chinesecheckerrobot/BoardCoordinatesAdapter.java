@@ -1,8 +1,9 @@
 package hku.cs.fyp24057.chinesecheckerrobot;
 
 import android.util.Log;
-import java.util.HashMap;
-import java.util.Map;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class provides mapping between the AI's logical board coordinates
@@ -19,18 +20,44 @@ public class BoardCoordinatesAdapter {
     private static final float centralCoordinateZ = -110f;
     private static final float centralCoordinateTorque = 1.9f;
     private static final float xDis = 26f;
+
+    // Number of cells in each board row, same layout as TILES_PER_ROW on the AI server
+    public static final int[] TILES_PER_ROW = BoardGeometry.STANDARD.getRowWidths();
     // Singleton instance
     private static BoardCoordinatesAdapter instance;
 
-    // Maps from board coordinates (x,y) to CellCoordinate objects
-    private final Map<String, CellCoordinate> coordsMap;
+    // Dense table from packed board coordinates (x,y) to robot coordinates
+    private volatile CoordinateTable table;
+    // Nearest-cell lookup over the current table
+    private volatile CellSpatialIndex spatialIndex;
+    private final List<OnTableChangedListener> tableListeners = new CopyOnWriteArrayList<>();
+    // Hand-taught mapping, kept so a bad calibration can be undone
+    private final CoordinateTable defaultTable;
+    // Only used while the hand-typed mapping is being built
+    private CoordinateTable.Builder tableBuilder;
+
+    public interface OnTableChangedListener {
+        void onTableChanged(CoordinateTable oldTable, CoordinateTable newTable);
+    }
 
     private BoardCoordinatesAdapter() {
-        coordsMap = new HashMap<>();
+        tableBuilder = new CoordinateTable.Builder();
         initializeCoordinateMapping();
+        defaultTable = tableBuilder.build();
+        table = defaultTable;
+        spatialIndex = new CellSpatialIndex(defaultTable);
+        tableBuilder = null;
+        Log.d(TAG, "Mapped " + table.getMappedCount() + " board cells");
     }
 
-    public static BoardCoordinatesAdapter getInstance() {
+    /**
+     * Build the mapping on the calling thread so the first lookup on the UI thread is free
+     */
+    public static void preload() {
+        getInstance();
+    }
+
+    public static synchronized BoardCoordinatesAdapter getInstance() {
         if (instance == null) {
             instance = new BoardCoordinatesAdapter();
         }
@@ -44,21 +71,106 @@ public class BoardCoordinatesAdapter {
      * @return CellCoordinate for robot movement or null if not found
      */
     public CellCoordinate getBoardCellCoordinate(int boardX, int boardY) {
-        String key = getKey(boardX, boardY);
-        CellCoordinate result = coordsMap.get(key);
+        int index = CoordinateTable.pack(boardX, boardY);
+        CellCoordinate result = index >= 0 ? table.get(index) : null;
 
         if (result == null) {
-            Log.w(TAG, "No mapping found for board coordinates: " + key);
+            Log.w(TAG, "No mapping found for board coordinates: " + boardX + "," + boardY);
         }
 
         return result;
     }
 
     /**
-     * Generate a lookup key from x,y coordinates
+     * Whether the arm has a position for a cell, without logging a miss
+     */
+    public boolean isMapped(int boardX, int boardY) {
+        int index = CoordinateTable.pack(boardX, boardY);
+        return index >= 0 && table.get(index) != null;
+    }
+
+    /**
+     * Current coordinate table, for loops over the whole board
      */
-    private String getKey(int x, int y) {
-        return x + "," + y;
+    public CoordinateTable getTable() {
+        return table;
+    }
+
+    /**
+     * Replace every cell coordinate at once; readers see either the old or the new table
+     */
+    public void setTable(CoordinateTable newTable) {
+        CellSpatialIndex newIndex = new CellSpatialIndex(newTable);
+        CoordinateTable oldTable = table;
+        table = newTable;
+        spatialIndex = newIndex;
+        for (OnTableChangedListener listener : tableListeners) {
+            listener.onTableChanged(oldTable, newTable);
+        }
+        Log.d(TAG, "Coordinate table replaced, " + newTable.getMappedCount() + " cells");
+    }
+
+    public void addOnTableChangedListener(OnTableChangedListener listener) {
+        tableListeners.add(listener);
+    }
+
+    public void removeOnTableChangedListener(OnTableChangedListener listener) {
+        tableListeners.remove(listener);
+    }
+
+    public CellSpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+
+    /**
+     * Nearest board cell to a robot pose, null if nothing is mapped
+     */
+    public CellSpatialIndex.Match locate(float x, float y, float z) {
+        return spatialIndex.nearest(x, y, z);
+    }
+
+    /**
+     * Regenerate all cells from a fitted calibration model
+     */
+    public void applyCalibration(CalibrationModel model) {
+        setTable(model.generateTable());
+    }
+
+    public void restoreDefaultTable() {
+        setTable(defaultTable);
+    }
+
+    /**
+     * Resolve a whole move sequence of board coordinates into caller-owned arrays,
+     * all from the same table.
+     * @return number of cells resolved, or -(i+1) if cell i has no mapping
+     */
+    public int resolvePath(int[] boardXs, int[] boardYs, int count,
+                           float[] outX, float[] outY, float[] outZ, float[] outTorque) {
+        CoordinateTable current = table;
+        for (int i = 0; i < count; i++) {
+            int index = CoordinateTable.pack(boardXs[i], boardYs[i]);
+            if (index < 0 || !current.isMapped(index)) {
+                return -(i + 1);
+            }
+            outX[i] = current.xs[index];
+            outY[i] = current.ys[index];
+            outZ[i] = current.zs[index];
+            outTorque[i] = current.torques[index];
+        }
+        return count;
+    }
+
+    /**
+     * Find the mapped board cell closest to a robot XY position
+     * @return {boardX, boardY} or null if nothing is mapped
+     */
+    public int[] findNearestBoardCell(float x, float y) {
+        CellSpatialIndex.Match match = spatialIndex.nearestXY(x, y);
+        if (match == null) {
+            return null;
+        }
+        return new int[]{match.boardX, match.boardY};
     }
 
     /**
@@ -1095,11 +1207,7 @@ public class BoardCoordinatesAdapter {
      */
     private void addMapping(int boardX, int boardY, int gridX, int gridY,
                             float x, float y, float z, float torque) {
-        String key = getKey(boardX, boardY);
         CellCoordinate cellCoord = new CellCoordinate(gridX, gridY, x, y, z, torque, true);
-        coordsMap.put(key, cellCoord);
-
-        Log.d(TAG, String.format("Mapped (%d,%d) to (%d,%d) at (%.2f,%.2f,%.2f,%.2f)",
-                boardX, boardY, gridX, gridY, x, y, z, torque));
+        tableBuilder.set(boardX, boardY, cellCoord);
     }
 }
\ No newline at end of file
@@ -6,14 +6,11 @@ import android.util.Base64;
 import android.util.Log;
 import android.widget.Toast;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.MediaType;
@@ -31,6 +28,8 @@ public class BoardDetectionClient {
 
     private final OkHttpClient client;
     private final String serverUrl;
+    // Cell centres and marble centroids from the last detection, null if the server sent none
+    private volatile MarbleObservations lastObservations;
 
     public BoardDetectionClient(String serverIp) {
         this(serverIp, DEFAULT_PORT);
@@ -61,10 +60,14 @@ public class BoardDetectionClient {
     }
 
     public interface DetectionCallback {
-        void onSuccess(List<String> boardState);
+        void onSuccess(BoardState boardState);
         void onError(String error);
     }
 
+    public MarbleObservations getLastObservations() {
+        return lastObservations;
+    }
+
     private String bitmapToBase64(Bitmap bitmap) {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
         bitmap.compress(Bitmap.CompressFormat.JPEG, 100, byteArrayOutputStream);
@@ -152,12 +155,20 @@ public class BoardDetectionClient {
                     if (jsonResponse.has("error")) {
                         callback.onError(jsonResponse.getString("error"));
                     } else {
-                        JSONArray boardState = jsonResponse.getJSONArray("board_state");
-                        List<String> boardStateList = new ArrayList<>();
-                        for (int i = 0; i < boardState.length(); i++) {
-                            boardStateList.add(boardState.getString(i));
+                        BoardState boardState = BoardState.fromJson(jsonResponse.getJSONArray("board_state"));
+                        int undetected = boardState.count(BoardState.UNDETECTED);
+                        if (undetected > 0) {
+                            callback.onError(undetected + " cell(s) could not be detected");
+                            return;
+                        }
+                        if (jsonResponse.has("cell_pixels") && jsonResponse.has("marble_centroids")) {
+                            lastObservations = MarbleObservations.fromJson(
+                                    jsonResponse.getJSONArray("cell_pixels"),
+                                    jsonResponse.getJSONArray("marble_centroids"));
+                        } else {
+                            lastObservations = null;
                         }
-                        callback.onSuccess(boardStateList);
+                        callback.onSuccess(boardState);
                     }
                 }
 
@@ -0,0 +1,93 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import java.util.Arrays;
+
+/**
+ * The AI server's evaluation function 1 on the device. A marble scores the
+ * number of rows minus its distance in steps from the far tip of its target
+ * triangle, plus a bonus once it is inside that triangle; a position scores
+ * the player's marbles minus the opponent's. Because the score is a sum over
+ * cells, a move changes it by progress(to) - progress(from).
+ */
+public final class BoardEvaluator {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+
+    public static final int WIN_SCORE = 1_000_000;
+    private static final int TARGET_BONUS = 5;
+
+    private static final int[] GREEN_DISTANCE = distancesFrom(BoardState.CELL_COUNT - 1);
+    private static final int[] RED_DISTANCE = distancesFrom(0);
+    private static final int[] GREEN_PROGRESS = progressTable(GREEN_DISTANCE, BoardGeometry.Corner.BOTTOM);
+    private static final int[] RED_PROGRESS = progressTable(RED_DISTANCE, BoardGeometry.Corner.TOP);
+
+    private BoardEvaluator() {
+    }
+
+    /**
+     * Score of one marble of a colour on a cell
+     */
+    public static int progress(int colour, int cellId) {
+        return colour == BoardState.GREEN ? GREEN_PROGRESS[cellId] : RED_PROGRESS[cellId];
+    }
+
+    /**
+     * Single steps from a cell to the far tip of the colour's target triangle
+     */
+    public static int distanceToTip(int colour, int cellId) {
+        return colour == BoardState.GREEN ? GREEN_DISTANCE[cellId] : RED_DISTANCE[cellId];
+    }
+
+    /**
+     * Position score from one colour's point of view
+     */
+    public static int evaluate(BoardState state, int colour) {
+        int score = 0;
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            int value = state.get(id);
+            if (value == colour) {
+                score += progress(value, id);
+            } else if (value != BoardState.EMPTY) {
+                score -= progress(value, id);
+            }
+        }
+        return score;
+    }
+
+    public static int opponent(int colour) {
+        return colour == BoardState.RED ? BoardState.GREEN : BoardState.RED;
+    }
+
+    private static int[] distancesFrom(int tip) {
+        int[] distance = new int[BoardState.CELL_COUNT];
+        Arrays.fill(distance, -1);
+        int[] queue = new int[BoardState.CELL_COUNT];
+        int head = 0;
+        int tail = 0;
+        distance[tip] = 0;
+        queue[tail++] = tip;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int dir = 0; dir < BoardGeometry.DIRECTIONS; dir++) {
+                int next = GEOMETRY.neighbour(cell, dir);
+                if (next >= 0 && distance[next] < 0) {
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distance;
+    }
+
+    private static int[] progressTable(int[] distance, BoardGeometry.Corner target) {
+        int rows = GEOMETRY.getRowCount() - 1;
+        int[] progress = new int[BoardState.CELL_COUNT];
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            progress[id] = rows - distance[id];
+        }
+        for (int id : GEOMETRY.getHomeTriangle(target)) {
+            progress[id] += TARGET_BONUS;
+        }
+        return progress;
+    }
+}
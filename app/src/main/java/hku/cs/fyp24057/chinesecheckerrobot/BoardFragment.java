@@ -18,6 +18,7 @@ import java.net.MalformedURLException;
 public class BoardFragment extends Fragment {
     private static final String TAG = "BoardFragment";
     private static final int MOVEMENT_DELAY_MS = 2000; // Delay per movement step
+    private static final int ARM_POLL_INTERVAL_MS = 1000;
 
     private CheckerboardView checkerboardView;
     private CellCoordinate[][] coordinates;
@@ -27,6 +28,35 @@ public class BoardFragment extends Fragment {
     private Button btnGripper;  // Added gripper button
     private boolean isMoving = false;
     private boolean isGripClosed = false;  // Track gripper state
+    private boolean isPollingArm = false;
+
+    // Move hints for the clicked marble, reused on every click
+    private final MoveGenerator hintGenerator = new MoveGenerator();
+    private final int[] hintCells = new int[MoveGenerator.CELL_COUNT];
+    private final int[] hintGridXs = new int[MoveGenerator.CELL_COUNT];
+    private final int[] hintGridYs = new int[MoveGenerator.CELL_COUNT];
+
+    // Polls the arm position and highlights the cell it is over
+    private final Runnable armPoller = new Runnable() {
+        @Override
+        public void run() {
+            if (!isPollingArm) return;
+            new Thread(() -> {
+                CellSpatialIndex.Match match = robotController.locateArm();
+                if (!isAdded() || getView() == null) return;
+                requireActivity().runOnUiThread(() -> {
+                    if (match != null) {
+                        checkerboardView.setArmCell(match.cell.getGridX(), match.cell.getGridY());
+                    } else {
+                        checkerboardView.setArmCell(-1, -1);
+                    }
+                    if (isPollingArm && getView() != null) {
+                        getView().postDelayed(armPoller, ARM_POLL_INTERVAL_MS);
+                    }
+                });
+            }).start();
+        }
+    };
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -52,6 +82,20 @@ public class BoardFragment extends Fragment {
         return rootView;
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+        isPollingArm = true;
+        requireView().post(armPoller);
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        isPollingArm = false;
+        requireView().removeCallbacks(armPoller);
+    }
+
     private void setupClickListeners() {
         btnConfigureIp.setOnClickListener(v -> showIpConfigDialog());
 
@@ -90,6 +134,7 @@ public class BoardFragment extends Fragment {
         });
 
         checkerboardView.setOnCellClickListener(coordinate -> {
+            showMoveHints(coordinate);
             if (isMoving) {
                 Toast.makeText(requireContext(),
                         "Please wait for current movement to complete",
@@ -118,6 +163,28 @@ public class BoardFragment extends Fragment {
         });
     }
 
+    /**
+     * Show where the marble on a clicked cell can move, using the last detected board
+     */
+    private void showMoveHints(CellCoordinate coordinate) {
+        BoardState occupancy = ClearancePlanner.getInstance().getOccupancy();
+        BoardGeometry geometry = BoardGeometry.STANDARD;
+        int cell = geometry.cellAtGrid(coordinate.getGridX(), coordinate.getGridY());
+        if (occupancy == null || cell < 0 || !occupancy.isOccupied(cell)) {
+            checkerboardView.clearMoveHints();
+            return;
+        }
+        hintGenerator.load(occupancy);
+        int count = hintGenerator.destinations(cell, hintCells);
+        for (int i = 0; i < count; i++) {
+            hintGridXs[i] = geometry.getGridX(hintCells[i]);
+            hintGridYs[i] = geometry.getGridY(hintCells[i]);
+        }
+        checkerboardView.setMoveHints(hintGridXs, hintGridYs, count);
+        Log.d(TAG, String.format("Marble at (%d,%d) has %d moves",
+                geometry.getCellX(cell), geometry.getCellY(cell), count));
+    }
+
     private void toggleGripper() {
         isMoving = true;
 
@@ -195,52 +262,16 @@ public class BoardFragment extends Fragment {
     }
 
     private void initializeCoordinates() {
-        coordinates = new CellCoordinate[17][25];
-
-        // Default torque angle
-        float defaultTorque = 3.14f;
-
-        // Custom torque angles for different regions of the board
-        float topTorque = 3.00f;      // Top triangle area
-        float bottomTorque = 3.28f;   // Bottom triangle area
-        float leftTorque = 2.85f;     // Left edge
-        float rightTorque = 3.43f;    // Right edge
-        float centerTorque = 3.14f;   // Center area
-
-        // Top triangle (Player 1)
-        coordinates[0][12] = new CellCoordinate(12, 0, 484.18f, -6.68f, -40.31f, topTorque, true);
-        coordinates[1][11] = new CellCoordinate(11, 1, 450.88f, 8.99f, -40.31f, topTorque, true);
-        coordinates[1][13] = new CellCoordinate(13, 1, 452.77f, -22.94f, -40.31f, topTorque, true);
-        coordinates[2][10] = new CellCoordinate(10, 2, 296.06f, -14.53f, 240.92f, topTorque, true);
-        coordinates[2][12] = new CellCoordinate(12, 2, 304.24f, -14.53f, 240.92f, topTorque, true);
-        coordinates[2][14] = new CellCoordinate(14, 2, 312.42f, -14.53f, 240.92f, topTorque, true);
-        coordinates[3][9] = new CellCoordinate(9, 3, 291.97f, -18.53f, 240.92f, topTorque, true);
-        coordinates[3][11] = new CellCoordinate(11, 3, 300.15f, -18.53f, 240.92f, topTorque, true);
-        coordinates[3][13] = new CellCoordinate(13, 3, 308.33f, -18.53f, 240.92f, topTorque, true);
-        coordinates[3][15] = new CellCoordinate(15, 3, 316.51f, -18.53f, 240.92f, topTorque, true);
-
-        // Bottom triangle (Player 4)
-        coordinates[16][12] = new CellCoordinate(12, 16, 1.45f, 0.08f, -71.17f, 1.08f, true);
-        coordinates[15][11] = new CellCoordinate(11, 15, 62.00f, 8.15f, -80.00f, 1.75f, true);
-        coordinates[15][13] = new CellCoordinate(13, 15, 30.48f, -3.05f, -81.65f, 1.23f, true);
-        coordinates[14][10] = new CellCoordinate(10, 14, 296.06f, -62.53f, 240.92f, bottomTorque, true);
-        coordinates[14][12] = new CellCoordinate(12, 14, 304.24f, -62.53f, 240.92f, bottomTorque, true);
-        coordinates[14][14] = new CellCoordinate(14, 14, 312.42f, -62.53f, 240.92f, bottomTorque, true);
-        coordinates[13][9] = new CellCoordinate(9, 13, 291.97f, -58.53f, 240.92f, bottomTorque, true);
-        coordinates[13][11] = new CellCoordinate(11, 13, 300.15f, -58.53f, 240.92f, bottomTorque, true);
-        coordinates[13][13] = new CellCoordinate(13, 13, 308.33f, -58.53f, 240.92f, bottomTorque, true);
-        coordinates[13][15] = new CellCoordinate(15, 13, 316.51f, -58.53f, 240.92f, bottomTorque, true);
-
-        // Some middle positions for testing
-        coordinates[8][8] = new CellCoordinate(8, 8, 288.0f, -38.53f, 240.92f, centerTorque, true);
-        coordinates[8][12] = new CellCoordinate(12, 8, 252.00f, 11.0f, -86.07f, 2.1f, true);
-        coordinates[8][16] = new CellCoordinate(16, 8, 320.48f, -38.53f, 240.92f, centerTorque, true);
-
-        // Add a few more test positions along the edges
-        coordinates[4][0] = new CellCoordinate(0, 4, 256.24f, -26.53f, 240.92f, leftTorque, true);
-        coordinates[12][0] = new CellCoordinate(0, 12, 256.24f, -50.53f, 240.92f, leftTorque, true);
-        coordinates[4][24] = new CellCoordinate(24, 4, 352.24f, -26.53f, 240.92f, rightTorque, true);
-        coordinates[12][24] = new CellCoordinate(24, 12, 352.24f, -50.53f, 240.92f, rightTorque, true);
+        // Display grid laid out by the board geometry, filled from the adapter's table
+        BoardGeometry geometry = BoardGeometry.STANDARD;
+        CoordinateTable table = BoardCoordinatesAdapter.getInstance().getTable();
+        coordinates = new CellCoordinate[geometry.getRowCount()][geometry.getGridWidth()];
+        for (int id = 0; id < geometry.getCellCount(); id++) {
+            CellCoordinate cell = table.get(CoordinateTable.pack(geometry.getCellX(id), geometry.getCellY(id)));
+            if (cell != null) {
+                coordinates[geometry.getGridY(id)][geometry.getGridX(id)] = cell;
+            }
+        }
 
         Log.d(TAG, "Coordinates initialized: " + coordinates.length + " rows");
     }
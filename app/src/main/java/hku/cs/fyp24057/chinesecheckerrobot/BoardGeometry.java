@@ -0,0 +1,273 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import java.util.Arrays;
+
+/**
+ * Geometry of a star (Chinese checkers) board with triangles of a given size.
+ * The standard board has triangles of 4 rows, giving 17 rows and 121 cells;
+ * smaller triangle sizes give practice boards.
+ *
+ * Cells are numbered 0..cellCount-1 row by row. Board coordinates are
+ * (x = index within the row, y = row). On the display grid rows are centred
+ * and neighbouring cells are two columns apart, so the six neighbours of a
+ * cell are always at the same grid offsets, whatever the row widths.
+ *
+ * All tables are primitive arrays; -1 marks a missing neighbour or jump.
+ */
+public final class BoardGeometry {
+
+    public static final int DIRECTIONS = 6;
+    // Display grid offsets of the six directions: L, R, UL, UR, DL, DR
+    private static final int[] DIR_GRID_X = {-2, 2, -1, 1, -1, 1};
+    private static final int[] DIR_GRID_Y = {0, 0, -1, -1, 1, 1};
+
+    public static final int STANDARD_TRIANGLE_SIZE = 4;
+    public static final BoardGeometry STANDARD = new BoardGeometry(STANDARD_TRIANGLE_SIZE);
+
+    /**
+     * The six star points, clockwise from the top
+     */
+    public enum Corner {
+        TOP, UPPER_RIGHT, LOWER_RIGHT, BOTTOM, LOWER_LEFT, UPPER_LEFT;
+
+        public Corner opposite() {
+            return values()[(ordinal() + 3) % 6];
+        }
+    }
+
+    private final int triangleSize;
+    private final int rowCount;
+    private final int gridWidth;
+    private final int[] rowWidths;
+    private final int[] rowStarts;
+    private final int cellCount;
+    private final int maxRowWidth;
+
+    private final int[] cellX;
+    private final int[] cellY;
+    private final int[] gridX;
+    private final int[] gridY;
+    // cellAtGrid[gridY * gridWidth + gridX], -1 off the board
+    private final int[] cellAtGrid;
+    private final int[] neighbours;
+    private final int[] jumps;
+    // Cell reflected left to right within its row
+    private final int[] mirrors;
+    private final int[][] homeTriangles;
+
+    public BoardGeometry(int triangleSize) {
+        if (triangleSize < 1) {
+            throw new IllegalArgumentException("Triangle size must be positive: " + triangleSize);
+        }
+        this.triangleSize = triangleSize;
+        int n = triangleSize;
+        rowCount = 4 * n + 1;
+        gridWidth = 6 * n + 1;
+
+        rowWidths = new int[rowCount];
+        rowStarts = new int[rowCount];
+        int total = 0;
+        int widest = 0;
+        for (int row = 0; row < rowCount; row++) {
+            rowWidths[row] = rowWidth(n, row);
+            rowStarts[row] = total;
+            total += rowWidths[row];
+            widest = Math.max(widest, rowWidths[row]);
+        }
+        cellCount = total;
+        maxRowWidth = widest;
+
+        cellX = new int[cellCount];
+        cellY = new int[cellCount];
+        gridX = new int[cellCount];
+        gridY = new int[cellCount];
+        cellAtGrid = new int[rowCount * gridWidth];
+        Arrays.fill(cellAtGrid, -1);
+        for (int row = 0; row < rowCount; row++) {
+            for (int x = 0; x < rowWidths[row]; x++) {
+                int id = rowStarts[row] + x;
+                cellX[id] = x;
+                cellY[id] = row;
+                gridX[id] = (3 * n + 1) - rowWidths[row] + 2 * x;
+                gridY[id] = row;
+                cellAtGrid[row * gridWidth + gridX[id]] = id;
+            }
+        }
+        mirrors = new int[cellCount];
+        for (int id = 0; id < cellCount; id++) {
+            mirrors[id] = rowStarts[cellY[id]] + rowWidths[cellY[id]] - 1 - cellX[id];
+        }
+
+        neighbours = new int[cellCount * DIRECTIONS];
+        jumps = new int[cellCount * DIRECTIONS];
+        for (int id = 0; id < cellCount; id++) {
+            for (int dir = 0; dir < DIRECTIONS; dir++) {
+                neighbours[id * DIRECTIONS + dir] = cellAtGridOffset(id, DIR_GRID_X[dir], DIR_GRID_Y[dir]);
+                jumps[id * DIRECTIONS + dir] = cellAtGridOffset(id, 2 * DIR_GRID_X[dir], 2 * DIR_GRID_Y[dir]);
+            }
+        }
+
+        homeTriangles = new int[Corner.values().length][];
+        for (Corner corner : Corner.values()) {
+            homeTriangles[corner.ordinal()] = buildTriangle(corner);
+        }
+    }
+
+    /**
+     * Width of a row on a star board with triangles of size n
+     */
+    private static int rowWidth(int n, int row) {
+        if (row < n) return row + 1;                        // top point
+        if (row <= 2 * n) return 3 * n + 1 - (row - n);     // narrowing to the middle
+        if (row <= 3 * n) return 2 * n + 1 + (row - 2 * n); // widening again
+        return 4 * n - row + 1;                             // bottom point
+    }
+
+    private int[] buildTriangle(Corner corner) {
+        int n = triangleSize;
+        int[] cells = new int[n * (n + 1) / 2];
+        int count = 0;
+        for (int row = 0; row < rowCount; row++) {
+            int width = rowWidths[row];
+            for (int x = 0; x < width; x++) {
+                boolean inside;
+                switch (corner) {
+                    case TOP:
+                        inside = row < n;
+                        break;
+                    case BOTTOM:
+                        inside = row > 3 * n;
+                        break;
+                    case UPPER_LEFT:
+                        inside = row >= n && row < 2 * n && x < 2 * n - row;
+                        break;
+                    case UPPER_RIGHT:
+                        inside = row >= n && row < 2 * n && x >= width - (2 * n - row);
+                        break;
+                    case LOWER_LEFT:
+                        inside = row > 2 * n && row <= 3 * n && x < row - 2 * n;
+                        break;
+                    default: // LOWER_RIGHT
+                        inside = row > 2 * n && row <= 3 * n && x >= width - (row - 2 * n);
+                        break;
+                }
+                if (inside) {
+                    cells[count++] = rowStarts[row] + x;
+                }
+            }
+        }
+        return cells;
+    }
+
+    private int cellAtGridOffset(int id, int dx, int dy) {
+        int gx = gridX[id] + dx;
+        int gy = gridY[id] + dy;
+        if (gx < 0 || gx >= gridWidth || gy < 0 || gy >= rowCount) {
+            return -1;
+        }
+        return cellAtGrid[gy * gridWidth + gx];
+    }
+
+    /**
+     * Star points used as home triangles for a player count
+     */
+    public static Corner[] cornersForPlayers(int players) {
+        switch (players) {
+            case 2:
+                return new Corner[]{Corner.TOP, Corner.BOTTOM};
+            case 3:
+                return new Corner[]{Corner.TOP, Corner.LOWER_RIGHT, Corner.LOWER_LEFT};
+            case 4:
+                return new Corner[]{Corner.UPPER_RIGHT, Corner.LOWER_RIGHT, Corner.LOWER_LEFT, Corner.UPPER_LEFT};
+            case 6:
+                return Corner.values();
+            default:
+                throw new IllegalArgumentException("Unsupported player count: " + players);
+        }
+    }
+
+    public int getTriangleSize() { return triangleSize; }
+    public int getRowCount() { return rowCount; }
+    public int getGridWidth() { return gridWidth; }
+    public int getCellCount() { return cellCount; }
+    public int getMaxRowWidth() { return maxRowWidth; }
+
+    public int getRowWidth(int row) { return rowWidths[row]; }
+
+    /**
+     * Copy of the row widths, like TILES_PER_ROW
+     */
+    public int[] getRowWidths() {
+        return rowWidths.clone();
+    }
+
+    /**
+     * Cell id of a board coordinate, -1 if it is off the board
+     */
+    public int cellId(int boardX, int boardY) {
+        if (boardY < 0 || boardY >= rowCount || boardX < 0 || boardX >= rowWidths[boardY]) {
+            return -1;
+        }
+        return rowStarts[boardY] + boardX;
+    }
+
+    public int cellAtGrid(int gx, int gy) {
+        if (gx < 0 || gx >= gridWidth || gy < 0 || gy >= rowCount) {
+            return -1;
+        }
+        return cellAtGrid[gy * gridWidth + gx];
+    }
+
+    public int getCellX(int id) { return cellX[id]; }
+    public int getCellY(int id) { return cellY[id]; }
+    public int getGridX(int id) { return gridX[id]; }
+    public int getGridY(int id) { return gridY[id]; }
+
+    /**
+     * Display grid column of a board coordinate
+     */
+    public int gridXOf(int boardX, int boardY) {
+        return (3 * triangleSize + 1) - rowWidths[boardY] + 2 * boardX;
+    }
+
+    /**
+     * Neighbouring cell in a direction (0..5: L, R, UL, UR, DL, DR), -1 if none
+     */
+    public int neighbour(int id, int dir) {
+        return neighbours[id * DIRECTIONS + dir];
+    }
+
+    /**
+     * Landing cell of a jump over the neighbour in a direction, -1 if off the board
+     */
+    public int jump(int id, int dir) {
+        return jumps[id * DIRECTIONS + dir];
+    }
+
+    /**
+     * Cell reflected across the vertical axis. The reflection keeps the top and
+     * bottom triangles in place, so it maps a game onto an equivalent game.
+     */
+    public int mirror(int id) {
+        return mirrors[id];
+    }
+
+    /**
+     * Cell ids of a star point, ordered row by row
+     */
+    public int[] getHomeTriangle(Corner corner) {
+        return homeTriangles[corner.ordinal()].clone();
+    }
+
+    /**
+     * Nominal board-plane position of a cell in millimetres, origin at the centre cell,
+     * x along the rows and y down the rows
+     */
+    public float nominalX(int id, float pitchMm) {
+        return (gridX[id] - 3 * triangleSize) * pitchMm / 2f;
+    }
+
+    public float nominalY(int id, float pitchMm) {
+        return (gridY[id] - 2 * triangleSize) * pitchMm * (float) (Math.sqrt(3) / 2);
+    }
+}
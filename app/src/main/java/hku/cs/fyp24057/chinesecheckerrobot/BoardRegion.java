@@ -0,0 +1,36 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import static hku.cs.fyp24057.chinesecheckerrobot.BoardGeometry.STANDARD_TRIANGLE_SIZE;
+
+/**
+ * Coarse bands of board rows. The arm behaves differently near and far from
+ * its base, so per-region settings are kept for speed and calibration.
+ * Row bands follow the board geometry: on the standard board rows 0-3, 4-7,
+ * 8-12 and 13-16.
+ */
+public enum BoardRegion {
+    TOP_TRIANGLE(0, STANDARD_TRIANGLE_SIZE - 1),
+    UPPER_HALF(STANDARD_TRIANGLE_SIZE, 2 * STANDARD_TRIANGLE_SIZE - 1),
+    LOWER_HALF(2 * STANDARD_TRIANGLE_SIZE, 3 * STANDARD_TRIANGLE_SIZE),
+    BOTTOM_TRIANGLE(3 * STANDARD_TRIANGLE_SIZE + 1, 4 * STANDARD_TRIANGLE_SIZE);
+
+    private final int firstRow;
+    private final int lastRow;
+
+    BoardRegion(int firstRow, int lastRow) {
+        this.firstRow = firstRow;
+        this.lastRow = lastRow;
+    }
+
+    public int getFirstRow() { return firstRow; }
+    public int getLastRow() { return lastRow; }
+
+    public static BoardRegion forRow(int boardY) {
+        for (BoardRegion region : values()) {
+            if (boardY <= region.lastRow) {
+                return region;
+            }
+        }
+        return BOTTOM_TRIANGLE;
+    }
+}
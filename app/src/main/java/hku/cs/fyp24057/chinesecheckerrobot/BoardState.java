@@ -0,0 +1,310 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable occupancy of the standard board, 2 bits per cell packed into longs
+ * (121 cells fit in 4 longs). Cells are indexed by BoardGeometry cell id.
+ *
+ * The detection server writes rows of space separated symbols with G/R for
+ * the two colours and '.' for empty; the AI server uses O/X for the same
+ * colours. Both are accepted by the parser, and either can be written back.
+ * Detection also marks cells it could not find with '-' and marbles it could
+ * not classify with '?', both parsed as UNDETECTED.
+ */
+public final class BoardState {
+
+    public static final int EMPTY = 0;
+    public static final int GREEN = 1; // 'G' from detection, 'O' (player 1) for the AI
+    public static final int RED = 2;   // 'R' from detection, 'X' (player 2) for the AI
+    // Only in a parsed detection; such a board must be rejected before it is played on
+    public static final int UNDETECTED = 3;
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+    public static final int CELL_COUNT = GEOMETRY.getCellCount();
+
+    private static final int BITS_PER_CELL = 2;
+    private static final int CELLS_PER_WORD = 64 / BITS_PER_CELL;
+    private static final int WORDS = (CELL_COUNT + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+    private static final long CELL_MASK = 0b11L;
+    // Low bit of every cell, to turn a word into per-cell "non-empty" flags
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    public static final int SERIALIZED_BYTES = WORDS * 8;
+
+    public static final BoardState EMPTY_BOARD = new BoardState(new long[WORDS]);
+
+    private final long[] words;
+    private int hash;
+
+    private BoardState(long[] words) {
+        this.words = words;
+    }
+
+    // ------------------------------------------------------------------
+    //  Parsing
+    // ------------------------------------------------------------------
+
+    /**
+     * Parse the "board_state" array of a detection response
+     * @throws IllegalArgumentException on an unknown symbol or too many cells in a row
+     */
+    public static BoardState fromJson(JSONArray rows) throws JSONException {
+        long[] words = new long[WORDS];
+        for (int row = 0; row < rows.length() && row < GEOMETRY.getRowCount(); row++) {
+            parseRow(rows.getString(row), row, words);
+        }
+        return new BoardState(words);
+    }
+
+    /**
+     * Parse rows of space separated cell symbols; missing trailing cells are empty
+     * @throws IllegalArgumentException on an unknown symbol or too many cells in a row
+     */
+    public static BoardState fromRows(List<? extends CharSequence> rows) {
+        long[] words = new long[WORDS];
+        for (int row = 0; row < rows.size() && row < GEOMETRY.getRowCount(); row++) {
+            parseRow(rows.get(row), row, words);
+        }
+        return new BoardState(words);
+    }
+
+    private static void parseRow(CharSequence text, int row, long[] words) {
+        int width = GEOMETRY.getRowWidth(row);
+        int base = GEOMETRY.cellId(0, row);
+        int x = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '\t') {
+                continue;
+            }
+            if (x >= width) {
+                throw new IllegalArgumentException("Row " + row + " has more than " + width + " cells: " + text);
+            }
+            int value = valueOf(c);
+            if (value < 0) {
+                throw new IllegalArgumentException("Unknown cell symbol '" + c + "' in row " + row);
+            }
+            int id = base + x++;
+            words[id / CELLS_PER_WORD] |= (long) value << shiftOf(id);
+        }
+    }
+
+    private static int valueOf(char symbol) {
+        switch (symbol) {
+            case '.': return EMPTY;
+            case 'G':
+            case 'O': return GREEN;
+            case 'R':
+            case 'X': return RED;
+            case '-':
+            case '?': return UNDETECTED;
+            default: return -1;
+        }
+    }
+
+    // ------------------------------------------------------------------
+    //  Cell access
+    // ------------------------------------------------------------------
+
+    private static int shiftOf(int id) {
+        return (id % CELLS_PER_WORD) * BITS_PER_CELL;
+    }
+
+    public int get(int cellId) {
+        return (int) (words[cellId / CELLS_PER_WORD] >>> shiftOf(cellId) & CELL_MASK);
+    }
+
+    /**
+     * Value of a board coordinate, EMPTY off the board
+     */
+    public int get(int boardX, int boardY) {
+        int id = GEOMETRY.cellId(boardX, boardY);
+        return id < 0 ? EMPTY : get(id);
+    }
+
+    public boolean isOccupied(int cellId) {
+        return get(cellId) != EMPTY;
+    }
+
+    public BoardState with(int cellId, int value) {
+        if (value < EMPTY || value > RED) {
+            throw new IllegalArgumentException("Invalid cell value: " + value);
+        }
+        if (get(cellId) == value) {
+            return this;
+        }
+        long[] copy = words.clone();
+        int word = cellId / CELLS_PER_WORD;
+        int shift = shiftOf(cellId);
+        copy[word] = (copy[word] & ~(CELL_MASK << shift)) | ((long) value << shift);
+        return new BoardState(copy);
+    }
+
+    /**
+     * State after moving the marble on one cell to another
+     */
+    public BoardState move(int fromId, int toId) {
+        long[] copy = words.clone();
+        int value = get(fromId);
+        int fromWord = fromId / CELLS_PER_WORD;
+        copy[fromWord] &= ~(CELL_MASK << shiftOf(fromId));
+        int toWord = toId / CELLS_PER_WORD;
+        int toShift = shiftOf(toId);
+        copy[toWord] = (copy[toWord] & ~(CELL_MASK << toShift)) | ((long) value << toShift);
+        return new BoardState(copy);
+    }
+
+    /**
+     * State reflected left to right, see BoardGeometry.mirror()
+     */
+    public BoardState mirrored() {
+        long[] copy = new long[WORDS];
+        for (int id = 0; id < CELL_COUNT; id++) {
+            int mirror = GEOMETRY.mirror(id);
+            copy[mirror / CELLS_PER_WORD] |= (long) get(id) << shiftOf(mirror);
+        }
+        return new BoardState(copy);
+    }
+
+    public int count(int value) {
+        int count = 0;
+        for (int id = 0; id < CELL_COUNT; id++) {
+            if (get(id) == value) count++;
+        }
+        return count;
+    }
+
+    public int occupiedCount() {
+        int count = 0;
+        for (long word : words) {
+            // A cell is occupied if either of its two bits is set
+            count += Long.bitCount((word | (word >>> 1)) & LOW_BITS);
+        }
+        return count;
+    }
+
+    // ------------------------------------------------------------------
+    //  Diffing
+    // ------------------------------------------------------------------
+
+    /**
+     * Number of cells whose value differs
+     */
+    public int diffCount(BoardState other) {
+        int count = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long x = words[w] ^ other.words[w];
+            count += Long.bitCount((x | (x >>> 1)) & LOW_BITS);
+        }
+        return count;
+    }
+
+    /**
+     * Ids of the cells whose value differs, in increasing order
+     */
+    public int[] diff(BoardState other) {
+        int[] changed = new int[diffCount(other)];
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long x = words[w] ^ other.words[w];
+            long flags = (x | (x >>> 1)) & LOW_BITS;
+            while (flags != 0) {
+                int bit = Long.numberOfTrailingZeros(flags);
+                changed[n++] = w * CELLS_PER_WORD + bit / BITS_PER_CELL;
+                flags &= flags - 1;
+            }
+        }
+        return changed;
+    }
+
+    // ------------------------------------------------------------------
+    //  Serialisation
+    // ------------------------------------------------------------------
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[SERIALIZED_BYTES];
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            for (int b = 0; b < 8; b++) {
+                bytes[w * 8 + b] = (byte) (word >>> (56 - 8 * b));
+            }
+        }
+        return bytes;
+    }
+
+    public static BoardState fromBytes(byte[] bytes) {
+        if (bytes.length != SERIALIZED_BYTES) {
+            throw new IllegalArgumentException("Expected " + SERIALIZED_BYTES + " bytes, got " + bytes.length);
+        }
+        long[] words = new long[WORDS];
+        for (int w = 0; w < WORDS; w++) {
+            long word = 0;
+            for (int b = 0; b < 8; b++) {
+                word = (word << 8) | (bytes[w * 8 + b] & 0xFFL);
+            }
+            words[w] = word;
+        }
+        return new BoardState(words);
+    }
+
+    /**
+     * Rows in the AI server's O/X notation
+     */
+    public JSONArray toAiJson() {
+        JSONArray rows = new JSONArray();
+        for (int row = 0; row < GEOMETRY.getRowCount(); row++) {
+            rows.put(rowString(row, 'O', 'X'));
+        }
+        return rows;
+    }
+
+    /**
+     * One row in the detection server's G/R notation
+     */
+    public String rowString(int row) {
+        return rowString(row, 'G', 'R');
+    }
+
+    private String rowString(int row, char green, char red) {
+        int width = GEOMETRY.getRowWidth(row);
+        int base = GEOMETRY.cellId(0, row);
+        char[] chars = new char[width * 2 - 1];
+        Arrays.fill(chars, ' ');
+        for (int x = 0; x < width; x++) {
+            int value = get(base + x);
+            chars[x * 2] = value == GREEN ? green : value == RED ? red : value == UNDETECTED ? '-' : '.';
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BoardState)) return false;
+        return Arrays.equals(words, ((BoardState) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Arrays.hashCode(words);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int row = 0; row < GEOMETRY.getRowCount(); row++) {
+            sb.append(rowString(row)).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,161 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What the board should look like, kept between detections. Every move the
+ * robot executes is applied to the expected state, so the next detection only
+ * has to explain the cells that differ from it. Changes to the robot's own
+ * marbles are flagged as discrepancies - a marble left behind at the pickup,
+ * missing at the drop, or knocked off its cell - and make the opponent's move
+ * a DETECTION_ERROR, since the board no longer follows from the last one.
+ * Otherwise OpponentMoveInference reconstructs the opponent's move.
+ */
+public class BoardWorldModel {
+    private static final String TAG = "BoardWorldModel";
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+
+    public static class Discrepancy {
+        public final int cellId;
+        public final int expected;
+        public final int detected;
+        public final String reason;
+
+        Discrepancy(int cellId, int expected, int detected, String reason) {
+            this.cellId = cellId;
+            this.expected = expected;
+            this.detected = detected;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(%d,%d) %s", GEOMETRY.getCellX(cellId), GEOMETRY.getCellY(cellId), reason);
+        }
+    }
+
+    public static class Reconciliation {
+        public final List<Discrepancy> discrepancies;
+        // What the opponent did since the last detection, null on the first detection
+        public final OpponentMoveInference.Result opponentMove;
+        // Cells that differed from the expected state
+        public final int changedCells;
+
+        Reconciliation(List<Discrepancy> discrepancies, OpponentMoveInference.Result opponentMove,
+                       int changedCells) {
+            this.discrepancies = Collections.unmodifiableList(discrepancies);
+            this.opponentMove = opponentMove;
+            this.changedCells = changedCells;
+        }
+
+        public boolean isConsistent() {
+            return discrepancies.isEmpty();
+        }
+
+        /**
+         * Whether the AI may plan on the detected board
+         */
+        public boolean isAcceptable() {
+            return opponentMove == null || opponentMove.isAcceptable();
+        }
+    }
+
+    private final int robotColour;
+    private final int opponentColour;
+    private BoardState expected;
+    // Cells of the last robot move, checked first on the next detection; -1 if none
+    private int lastRobotFrom = -1;
+    private int lastRobotTo = -1;
+
+    public BoardWorldModel(int robotColour) {
+        this.robotColour = robotColour;
+        this.opponentColour = robotColour == BoardState.RED ? BoardState.GREEN : BoardState.RED;
+    }
+
+    public synchronized BoardState getExpected() {
+        return expected;
+    }
+
+    /**
+     * Forget the expected state, e.g. for a new game
+     */
+    public synchronized void reset() {
+        expected = null;
+        lastRobotFrom = -1;
+        lastRobotTo = -1;
+    }
+
+    /**
+     * Apply a move the robot has just executed
+     */
+    public synchronized void applyRobotMove(int fromX, int fromY, int toX, int toY) {
+        int from = GEOMETRY.cellId(fromX, fromY);
+        int to = GEOMETRY.cellId(toX, toY);
+        if (expected == null || from < 0 || to < 0) {
+            return;
+        }
+        expected = expected.move(from, to);
+        lastRobotFrom = from;
+        lastRobotTo = to;
+    }
+
+    /**
+     * Compare a fresh detection with the expected state and adopt it as the new expectation.
+     * The first detection has nothing to compare with and is always consistent.
+     */
+    public synchronized Reconciliation reconcile(BoardState detected) {
+        BoardState previous = expected;
+        int robotFrom = lastRobotFrom;
+        int robotTo = lastRobotTo;
+        expected = detected;
+        lastRobotFrom = -1;
+        lastRobotTo = -1;
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        if (previous == null) {
+            return new Reconciliation(discrepancies, null, 0);
+        }
+
+        // The robot's own move first: both cells are known exactly
+        if (robotFrom >= 0 && detected.get(robotFrom) == robotColour) {
+            discrepancies.add(new Discrepancy(robotFrom, BoardState.EMPTY, robotColour,
+                    "marble still at the pickup cell"));
+        }
+        if (robotTo >= 0 && detected.get(robotTo) != robotColour) {
+            discrepancies.add(new Discrepancy(robotTo, robotColour, detected.get(robotTo),
+                    "marble missing at the drop cell"));
+        }
+
+        // Only the differing cells are left to explain; any robot marble change is a discrepancy
+        int[] changed = previous.diff(detected);
+        for (int id : changed) {
+            int was = previous.get(id);
+            int now = detected.get(id);
+            if (was != robotColour && now != robotColour) {
+                continue;
+            }
+            if (id == robotFrom || id == robotTo) {
+                continue;
+            }
+            if (was == robotColour) {
+                discrepancies.add(new Discrepancy(id, was, now,
+                        now == BoardState.EMPTY ? "robot marble gone" : "robot marble replaced"));
+            } else {
+                discrepancies.add(new Discrepancy(id, was, now, "unexpected robot marble"));
+            }
+        }
+        // Inferred on the unaltered boards, so a robot marble change is reported as a DETECTION_ERROR
+        OpponentMoveInference.Result opponentMove =
+                OpponentMoveInference.infer(previous, detected, opponentColour);
+
+        if (!discrepancies.isEmpty()) {
+            Log.w(TAG, "Detection disagrees with expected board: " + discrepancies);
+        }
+        Log.d(TAG, opponentMove.toString());
+        return new Reconciliation(discrepancies, opponentMove, changed.length);
+    }
+}
@@ -0,0 +1,279 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calibration model generating the robot coordinates of every board cell from
+ * a handful of taught points. Each of x, y, z and torque is fitted as an affine
+ * function of the cell's position on the hexagonal display grid, and a per-row
+ * residual taken from the taught points absorbs what the plane cannot
+ * (row bending, a sagging arm at full reach).
+ *
+ * Needs at least three taught points that do not lie on one line.
+ */
+public class CalibrationModel {
+    public static final String FILE_NAME = "taught_points.json";
+    public static final int MIN_POINTS = 3;
+
+    private static final int OUTPUTS = 4; // x, y, z, torque
+
+    public static class TaughtPoint {
+        public final int boardX;
+        public final int boardY;
+        public final float x;
+        public final float y;
+        public final float z;
+        public final float torque;
+
+        public TaughtPoint(int boardX, int boardY, float x, float y, float z, float torque) {
+            this.boardX = boardX;
+            this.boardY = boardY;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.torque = torque;
+        }
+
+        float value(int output) {
+            switch (output) {
+                case 0: return x;
+                case 1: return y;
+                case 2: return z;
+                default: return torque;
+            }
+        }
+    }
+
+    // coefficients[output] = {c, cx, cy}: value = c + cx * gridX + cy * gridY
+    private final double[][] coefficients;
+    // rowResiduals[row][output], added on top of the affine fit
+    private final float[][] rowResiduals;
+    private final float rmsErrorMm;
+
+    private CalibrationModel(double[][] coefficients, float[][] rowResiduals, float rmsErrorMm) {
+        this.coefficients = coefficients;
+        this.rowResiduals = rowResiduals;
+        this.rmsErrorMm = rmsErrorMm;
+    }
+
+    /**
+     * Least-squares fit from taught points.
+     * @throws IllegalArgumentException if there are too few points or they are collinear
+     */
+    public static CalibrationModel fit(List<TaughtPoint> points) {
+        if (points.size() < MIN_POINTS) {
+            throw new IllegalArgumentException("Need at least " + MIN_POINTS + " taught points, got " + points.size());
+        }
+        for (TaughtPoint p : points) {
+            if (p.boardY < 0 || p.boardY >= BoardCoordinatesAdapter.TILES_PER_ROW.length
+                    || p.boardX < 0 || p.boardX >= BoardCoordinatesAdapter.TILES_PER_ROW[p.boardY]) {
+                throw new IllegalArgumentException("Taught point is not on the board: " + p.boardX + "," + p.boardY);
+            }
+        }
+
+        // Normal equations A^T A c = A^T b with rows (1, gridX, gridY)
+        double[][] ata = new double[3][3];
+        double[][] atb = new double[OUTPUTS][3];
+        for (TaughtPoint p : points) {
+            double[] row = {1.0, gridXOf(p.boardX, p.boardY), gridYOf(p.boardY)};
+            for (int i = 0; i < 3; i++) {
+                for (int j = 0; j < 3; j++) {
+                    ata[i][j] += row[i] * row[j];
+                }
+                for (int k = 0; k < OUTPUTS; k++) {
+                    atb[k][i] += row[i] * p.value(k);
+                }
+            }
+        }
+
+        double[][] coefficients = new double[OUTPUTS][];
+        for (int k = 0; k < OUTPUTS; k++) {
+            coefficients[k] = solve3(ata, atb[k]);
+            if (coefficients[k] == null) {
+                throw new IllegalArgumentException("Taught points are collinear, teach a point off the line");
+            }
+        }
+
+        // Mean residual per row that has taught points
+        int rows = BoardCoordinatesAdapter.TILES_PER_ROW.length;
+        float[][] sums = new float[rows][OUTPUTS];
+        int[] counts = new int[rows];
+        double errorSq = 0.0;
+        for (TaughtPoint p : points) {
+            int gx = gridXOf(p.boardX, p.boardY);
+            int gy = gridYOf(p.boardY);
+            for (int k = 0; k < OUTPUTS; k++) {
+                sums[p.boardY][k] += p.value(k) - evaluate(coefficients[k], gx, gy);
+            }
+            counts[p.boardY]++;
+            double dx = p.x - evaluate(coefficients[0], gx, gy);
+            double dy = p.y - evaluate(coefficients[1], gx, gy);
+            errorSq += dx * dx + dy * dy;
+        }
+        float[][] residuals = interpolateRows(sums, counts);
+
+        return new CalibrationModel(coefficients, residuals,
+                (float) Math.sqrt(errorSq / points.size()));
+    }
+
+    /**
+     * Rows without taught points take the residual linearly interpolated from
+     * the nearest taught rows above and below, or the nearest one at the ends.
+     */
+    private static float[][] interpolateRows(float[][] sums, int[] counts) {
+        int rows = counts.length;
+        float[][] residuals = new float[rows][OUTPUTS];
+        for (int row = 0; row < rows; row++) {
+            if (counts[row] > 0) {
+                for (int k = 0; k < OUTPUTS; k++) {
+                    residuals[row][k] = sums[row][k] / counts[row];
+                }
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            if (counts[row] > 0) continue;
+            int above = row - 1;
+            while (above >= 0 && counts[above] == 0) above--;
+            int below = row + 1;
+            while (below < rows && counts[below] == 0) below++;
+            for (int k = 0; k < OUTPUTS; k++) {
+                if (above >= 0 && below < rows) {
+                    float t = (float) (row - above) / (below - above);
+                    residuals[row][k] = residuals[above][k] + t * (residuals[below][k] - residuals[above][k]);
+                } else if (above >= 0) {
+                    residuals[row][k] = residuals[above][k];
+                } else if (below < rows) {
+                    residuals[row][k] = residuals[below][k];
+                }
+            }
+        }
+        return residuals;
+    }
+
+    /**
+     * Generate coordinates for every board cell
+     */
+    public CoordinateTable generateTable() {
+        int[] tilesPerRow = BoardCoordinatesAdapter.TILES_PER_ROW;
+        CoordinateTable.Builder builder = new CoordinateTable.Builder();
+        for (int boardY = 0; boardY < tilesPerRow.length; boardY++) {
+            float[] residual = rowResiduals[boardY];
+            for (int boardX = 0; boardX < tilesPerRow[boardY]; boardX++) {
+                int gx = gridXOf(boardX, boardY);
+                int gy = gridYOf(boardY);
+                builder.set(boardX, boardY, new CellCoordinate(gx, gy,
+                        (float) evaluate(coefficients[0], gx, gy) + residual[0],
+                        (float) evaluate(coefficients[1], gx, gy) + residual[1],
+                        (float) evaluate(coefficients[2], gx, gy) + residual[2],
+                        (float) evaluate(coefficients[3], gx, gy) + residual[3],
+                        true));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * RMS distance in the XY plane between the taught points and the affine fit
+     */
+    public float getRmsErrorMm() {
+        return rmsErrorMm;
+    }
+
+    /**
+     * Column on the 25 wide display grid; rows are centred and cells two columns apart
+     */
+    static int gridXOf(int boardX, int boardY) {
+        return BoardGeometry.STANDARD.gridXOf(boardX, boardY);
+    }
+
+    static int gridYOf(int boardY) {
+        return boardY;
+    }
+
+    private static double evaluate(double[] c, int gridX, int gridY) {
+        return c[0] + c[1] * gridX + c[2] * gridY;
+    }
+
+    /**
+     * Solve a 3x3 system by Cramer's rule, null if it is singular
+     */
+    private static double[] solve3(double[][] m, double[] b) {
+        double det = det3(m[0][0], m[0][1], m[0][2],
+                m[1][0], m[1][1], m[1][2],
+                m[2][0], m[2][1], m[2][2]);
+        if (Math.abs(det) < 1e-9) {
+            return null;
+        }
+        double[] result = new double[3];
+        for (int col = 0; col < 3; col++) {
+            double[][] r = {m[0].clone(), m[1].clone(), m[2].clone()};
+            for (int row = 0; row < 3; row++) {
+                r[row][col] = b[row];
+            }
+            result[col] = det3(r[0][0], r[0][1], r[0][2],
+                    r[1][0], r[1][1], r[1][2],
+                    r[2][0], r[2][1], r[2][2]) / det;
+        }
+        return result;
+    }
+
+    private static double det3(double a, double b, double c,
+                               double d, double e, double f,
+                               double g, double h, double i) {
+        return a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+    }
+
+    // ------------------------------------------------------------------
+    //  Taught point persistence
+    // ------------------------------------------------------------------
+
+    public static void saveTaughtPoints(List<TaughtPoint> points, File file) throws IOException, JSONException {
+        JSONArray array = new JSONArray();
+        for (TaughtPoint p : points) {
+            JSONObject json = new JSONObject();
+            json.put("boardX", p.boardX);
+            json.put("boardY", p.boardY);
+            json.put("x", p.x);
+            json.put("y", p.y);
+            json.put("z", p.z);
+            json.put("torque", p.torque);
+            array.put(json);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(array.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static List<TaughtPoint> loadTaughtPoints(File file) throws IOException, JSONException {
+        byte[] data = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < data.length) {
+                int n = in.read(data, read, data.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+        }
+        JSONArray array = new JSONArray(new String(data, StandardCharsets.UTF_8));
+        List<TaughtPoint> points = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.getJSONObject(i);
+            points.add(new TaughtPoint(json.getInt("boardX"), json.getInt("boardY"),
+                    (float) json.getDouble("x"), (float) json.getDouble("y"),
+                    (float) json.getDouble("z"), (float) json.getDouble("torque")));
+        }
+        return points;
+    }
+}
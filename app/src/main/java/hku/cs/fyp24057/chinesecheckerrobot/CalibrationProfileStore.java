@@ -0,0 +1,252 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+
+/**
+ * Named calibration profiles, one per physical table, stored as small binary files.
+ *
+ * File layout (big endian):
+ *   int   magic "CCRC"
+ *   short format version
+ *   short cell count
+ *   short flags, bit 0 set if the heights were probed (from version 2)
+ *   cell count x { byte boardX, byte boardY, byte gridX, byte gridY,
+ *                  float x, float y, float z, float torque }
+ *   long  CRC32 of everything before it
+ *
+ * Profiles are read through a memory-mapped FileChannel on a background thread
+ * and swapped into BoardCoordinatesAdapter in one step.
+ */
+public class CalibrationProfileStore {
+    private static final String TAG = "CalibrationProfileStore";
+
+    public static final String DIR_NAME = "calibration_profiles";
+    private static final String EXTENSION = ".cal";
+    private static final String ACTIVE_FILE = "active";
+
+    private static final int MAGIC = 0x43435243; // "CCRC"
+    private static final short VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 2 + 2 + 2;
+    // Version 1 had no flags
+    private static final int V1_HEADER_BYTES = 4 + 2 + 2;
+    private static final int FLAG_SURFACE_PROBED = 1;
+    private static final int CELL_BYTES = 4 + 4 * 4;
+    private static final int CRC_BYTES = 8;
+
+    public interface ProfileCallback {
+        void onLoaded(String name, CoordinateTable table);
+        void onFailure(String errorMessage);
+    }
+
+    private final File directory;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor();
+
+    public CalibrationProfileStore(File filesDir) {
+        directory = new File(filesDir, DIR_NAME);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.w(TAG, "Could not create " + directory);
+        }
+    }
+
+    public List<String> listProfiles() {
+        List<String> names = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String fileName = file.getName();
+                if (fileName.endsWith(EXTENSION)) {
+                    names.add(fileName.substring(0, fileName.length() - EXTENSION.length()));
+                }
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Write a profile to a temporary file and rename it over the old one,
+     * so a crash never leaves a half-written profile behind.
+     */
+    public void save(String name, CoordinateTable table) throws IOException {
+        File target = profileFile(name);
+        File temp = new File(directory, target.getName() + ".tmp");
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + table.getMappedCount() * CELL_BYTES + CRC_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) table.getMappedCount());
+        buffer.putShort((short) (table.isSurfaceProbed() ? FLAG_SURFACE_PROBED : 0));
+        for (int i = 0; i < CoordinateTable.SIZE; i++) {
+            if (!table.isMapped(i)) continue;
+            CellCoordinate cell = table.get(i);
+            buffer.put((byte) CoordinateTable.boardXOf(i));
+            buffer.put((byte) CoordinateTable.boardYOf(i));
+            buffer.put((byte) cell.getGridX());
+            buffer.put((byte) cell.getGridY());
+            buffer.putFloat(cell.getX());
+            buffer.putFloat(cell.getY());
+            buffer.putFloat(cell.getZ());
+            buffer.putFloat(cell.getTorque());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(buffer.array(), 0, buffer.position());
+        }
+        if (!temp.renameTo(target)) {
+            throw new IOException("Could not replace profile " + target);
+        }
+        Log.d(TAG, "Saved profile " + name + " with " + table.getMappedCount() + " cells");
+    }
+
+    /**
+     * Read a profile on the calling thread
+     */
+    public CoordinateTable load(String name) throws IOException {
+        File file = profileFile(name);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            if (size < V1_HEADER_BYTES + CRC_BYTES) {
+                throw new IOException("Profile " + name + " is truncated");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Profile " + name + " is not a calibration profile");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION && version != 1) {
+                throw new IOException("Unsupported profile version " + version);
+            }
+            int count = buffer.getShort() & 0xFFFF;
+            int headerBytes = version == 1 ? V1_HEADER_BYTES : HEADER_BYTES;
+            int flags = version == 1 ? 0 : buffer.getShort();
+            int dataBytes = headerBytes + count * CELL_BYTES;
+            if (size != dataBytes + CRC_BYTES) {
+                throw new IOException("Profile " + name + " has the wrong size for " + count + " cells");
+            }
+
+            byte[] data = new byte[dataBytes];
+            buffer.position(0);
+            buffer.get(data);
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, data.length);
+            if (buffer.getLong() != crc.getValue()) {
+                throw new IOException("Profile " + name + " is corrupt (checksum mismatch)");
+            }
+
+            buffer.position(headerBytes);
+            CoordinateTable.Builder builder = new CoordinateTable.Builder()
+                    .setSurfaceProbed((flags & FLAG_SURFACE_PROBED) != 0);
+            for (int i = 0; i < count; i++) {
+                int boardX = buffer.get();
+                int boardY = buffer.get();
+                int gridX = buffer.get();
+                int gridY = buffer.get();
+                float x = buffer.getFloat();
+                float y = buffer.getFloat();
+                float z = buffer.getFloat();
+                float torque = buffer.getFloat();
+                builder.set(boardX, boardY, new CellCoordinate(gridX, gridY, x, y, z, torque, true));
+            }
+            return builder.build();
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Profile " + name + " has a cell outside the board", e);
+        }
+    }
+
+    /**
+     * Load a profile on a background thread and make it the adapter's table
+     */
+    public void activate(String name, ProfileCallback callback) {
+        try {
+            loader.execute(() -> {
+                try {
+                    CoordinateTable table = load(name);
+                    BoardCoordinatesAdapter.getInstance().setTable(table);
+                    writeActiveName(name);
+                    callback.onLoaded(name, table);
+                } catch (IOException | IllegalArgumentException e) {
+                    Log.e(TAG, "Failed to activate profile " + name, e);
+                    callback.onFailure(e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            callback.onFailure("Profile store is shut down");
+        }
+    }
+
+    /**
+     * Stop the loader thread once a pending activation is done
+     */
+    public void shutdown() {
+        loader.shutdown();
+    }
+
+    /**
+     * Profile that was active last time, or null for the default table,
+     * also if the saved name is missing or invalid
+     */
+    public String getActiveName() {
+        File file = new File(directory, ACTIVE_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            byte[] data = new byte[(int) raf.length()];
+            raf.readFully(data);
+            String name = new String(data, StandardCharsets.UTF_8).trim();
+            return name.isEmpty() || !profileFile(name).exists() ? null : name;
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e(TAG, "Failed to read active profile", e);
+            return null;
+        }
+    }
+
+    public void clearActive() {
+        File file = new File(directory, ACTIVE_FILE);
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not clear active profile");
+        }
+    }
+
+    public boolean delete(String name) {
+        if (name.equals(getActiveName())) {
+            clearActive();
+        }
+        return profileFile(name).delete();
+    }
+
+    private void writeActiveName(String name) throws IOException {
+        try (OutputStream out = new FileOutputStream(new File(directory, ACTIVE_FILE))) {
+            out.write(name.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private File profileFile(String name) {
+        if (!name.matches("[A-Za-z0-9_\\- ]+")) {
+            throw new IllegalArgumentException("Invalid profile name: " + name);
+        }
+        return new File(directory, name + EXTENSION);
+    }
+}
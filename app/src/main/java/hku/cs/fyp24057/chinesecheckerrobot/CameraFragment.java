@@ -25,7 +25,6 @@ import androidx.fragment.app.Fragment;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.nio.ByteBuffer;
-import java.util.List;
 import java.util.concurrent.ExecutionException;
 
 public class CameraFragment extends Fragment {
@@ -184,7 +183,7 @@ public class CameraFragment extends Fragment {
         if (isEmptyBoard) {
             detectionClient.uploadEmptyBoard(bitmap, new BoardDetectionClient.DetectionCallback() {
                 @Override
-                public void onSuccess(List<String> boardState) {
+                public void onSuccess(BoardState boardState) {
                     requireActivity().runOnUiThread(() -> {
                         hasEmptyBoard = true;
                         captureEmptyButton.setEnabled(true);
@@ -207,15 +206,11 @@ public class CameraFragment extends Fragment {
         } else {
             detectionClient.detectCurrentState(bitmap, new BoardDetectionClient.DetectionCallback() {
                 @Override
-                public void onSuccess(List<String> boardState) {
+                public void onSuccess(BoardState boardState) {
                     requireActivity().runOnUiThread(() -> {
                         captureCurrentButton.setEnabled(true);
                         if (boardState != null) {
-                            StringBuilder display = new StringBuilder("Board State:\n\n");
-                            for (String row : boardState) {
-                                display.append(row).append('\n');
-                            }
-                            resultText.setText(display.toString());
+                            resultText.setText("Board State:\n\n" + boardState);
                         }
                         Toast.makeText(requireContext(),
                                 "Board state detected successfully",
@@ -0,0 +1,156 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+/**
+ * k-d tree over the robot XYZ positions of all mapped board cells, used to find
+ * which cell the arm is at from a T:105 pose. Built once per coordinate table;
+ * a query visits O(log n) nodes on average.
+ */
+public class CellSpatialIndex {
+
+    private static final int DIMENSIONS = 3;
+
+    public static class Match {
+        public final int boardX;
+        public final int boardY;
+        public final CellCoordinate cell;
+        // Distance from the queried pose, over the dimensions that were compared
+        public final float distance;
+
+        Match(int boardX, int boardY, CellCoordinate cell, float distance) {
+            this.boardX = boardX;
+            this.boardY = boardY;
+            this.cell = cell;
+            this.distance = distance;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("cell (%d,%d) at %.2fmm", boardX, boardY, distance);
+        }
+    }
+
+    private final CoordinateTable table;
+    // Packed table indices in tree order: the median of each range is its node
+    private final int[] nodes;
+    private final float[][] axes;
+
+    public CellSpatialIndex(CoordinateTable table) {
+        this.table = table;
+        axes = new float[][]{table.xs, table.ys, table.zs};
+
+        nodes = new int[table.getMappedCount()];
+        int n = 0;
+        for (int i = 0; i < CoordinateTable.SIZE; i++) {
+            if (table.isMapped(i)) {
+                nodes[n++] = i;
+            }
+        }
+        build(0, nodes.length, 0);
+    }
+
+    public CoordinateTable getTable() {
+        return table;
+    }
+
+    /**
+     * Nearest cell to a full XYZ pose, null if the table is empty
+     */
+    public Match nearest(float x, float y, float z) {
+        return search(new float[]{x, y, z}, DIMENSIONS);
+    }
+
+    /**
+     * Nearest cell in the horizontal plane, whatever the arm's height
+     */
+    public Match nearestXY(float x, float y) {
+        return search(new float[]{x, y, 0f}, 2);
+    }
+
+    private Match search(float[] query, int dims) {
+        if (nodes.length == 0) {
+            return null;
+        }
+        float[] best = {Float.MAX_VALUE};
+        int[] bestIndex = {-1};
+        search(0, nodes.length, 0, query, dims, best, bestIndex);
+        int index = bestIndex[0];
+        return new Match(CoordinateTable.boardXOf(index), CoordinateTable.boardYOf(index),
+                table.get(index), (float) Math.sqrt(best[0]));
+    }
+
+    private void search(int lo, int hi, int depth, float[] query, int dims,
+                        float[] bestDistSq, int[] bestIndex) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        int index = nodes[mid];
+
+        float distSq = 0f;
+        for (int d = 0; d < dims; d++) {
+            float delta = axes[d][index] - query[d];
+            distSq += delta * delta;
+        }
+        if (distSq < bestDistSq[0]) {
+            bestDistSq[0] = distSq;
+            bestIndex[0] = index;
+        }
+
+        int axis = depth % DIMENSIONS;
+        if (axis >= dims) {
+            // Split on a dimension the query ignores, both halves may hold the answer
+            search(lo, mid, depth + 1, query, dims, bestDistSq, bestIndex);
+            search(mid + 1, hi, depth + 1, query, dims, bestDistSq, bestIndex);
+            return;
+        }
+
+        float diff = query[axis] - axes[axis][index];
+        boolean goLeft = diff < 0f;
+        search(goLeft ? lo : mid + 1, goLeft ? mid : hi, depth + 1, query, dims, bestDistSq, bestIndex);
+        if (diff * diff < bestDistSq[0]) {
+            search(goLeft ? mid + 1 : lo, goLeft ? hi : mid, depth + 1, query, dims, bestDistSq, bestIndex);
+        }
+    }
+
+    /**
+     * Arrange nodes[lo, hi) so every median splits its range on the depth's axis
+     */
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axes[depth % DIMENSIONS]);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Quickselect: put the k-th smallest value on the axis at position k
+     */
+    private void select(int left, int right, int k, float[] axis) {
+        while (left < right) {
+            float pivot = axis[nodes[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (axis[nodes[i]] < pivot) i++;
+                while (axis[nodes[j]] > pivot) j--;
+                if (i <= j) {
+                    int tmp = nodes[i];
+                    nodes[i] = nodes[j];
+                    nodes[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
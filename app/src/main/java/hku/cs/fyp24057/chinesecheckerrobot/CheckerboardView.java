@@ -11,8 +11,6 @@ import android.view.View;
 
 public class CheckerboardView extends View {
     private static final String TAG = "CheckerboardView";
-    private static final int ROWS = 17;
-    private static final int COLS = 25;
     private static final int CELL_PADDING = 1;
     private static final float VERTICAL_SPACING_FACTOR = 1.2f; // Increase vertical spacing
 
@@ -23,11 +21,20 @@ public class CheckerboardView extends View {
     private Paint cellPaint;
     private Paint validCellPaint;
     private Paint highlightPaint;
+    private Paint armPaint;
+    private Paint hintPaint;
     private OnCellClickListener listener;
 
     private CellCoordinate[][] coordinates;
+    private final int rows = BoardGeometry.STANDARD.getRowCount();
+    private final int cols = BoardGeometry.STANDARD.getGridWidth();
     private int lastTouchedRow = -1;
     private int lastTouchedCol = -1;
+    // Display grid cell the robot arm is currently over, -1 if unknown
+    private int armRow = -1;
+    private int armCol = -1;
+    // Display grid cells the selected marble can move to
+    private boolean[][] hintCells;
 
     public interface OnCellClickListener {
         void onCellClick(CellCoordinate coordinate);
@@ -61,6 +68,16 @@ public class CheckerboardView extends View {
         highlightPaint.setColor(Color.BLUE);
         highlightPaint.setStyle(Paint.Style.STROKE);
         highlightPaint.setStrokeWidth(2f);
+
+        armPaint = new Paint();
+        armPaint.setColor(Color.RED);
+        armPaint.setStyle(Paint.Style.STROKE);
+        armPaint.setStrokeWidth(3f);
+
+        hintPaint = new Paint();
+        hintPaint.setColor(Color.GREEN);
+        hintPaint.setStyle(Paint.Style.FILL);
+        hintPaint.setAlpha(128);
     }
 
     public void setCoordinates(CellCoordinate[][] coordinates) {
@@ -68,6 +85,37 @@ public class CheckerboardView extends View {
         invalidate();
     }
 
+    /**
+     * Mark the display grid cell the arm is over, or clear it with -1
+     */
+    public void setArmCell(int gridX, int gridY) {
+        if (gridX == armCol && gridY == armRow) {
+            return;
+        }
+        armCol = gridX;
+        armRow = gridY;
+        invalidate();
+    }
+
+    /**
+     * Mark the display grid cells a marble can move to
+     */
+    public void setMoveHints(int[] gridXs, int[] gridYs, int count) {
+        boolean[][] cells = new boolean[rows][cols];
+        for (int i = 0; i < count; i++) {
+            cells[gridYs[i]][gridXs[i]] = true;
+        }
+        hintCells = cells;
+        invalidate();
+    }
+
+    public void clearMoveHints() {
+        if (hintCells != null) {
+            hintCells = null;
+            invalidate();
+        }
+    }
+
     public void setOnCellClickListener(OnCellClickListener listener) {
         this.listener = listener;
     }
@@ -75,13 +123,16 @@ public class CheckerboardView extends View {
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
+        layoutGrid(w, h);
+    }
 
+    private void layoutGrid(int w, int h) {
         // Calculate the base cell size using the width
-        cellSize = (w * 0.9f) / COLS; // Use 90% of width
+        cellSize = (w * 0.9f) / cols; // Use 90% of width
 
         // Calculate total board width and height
-        float boardWidth = cellSize * COLS;
-        float boardHeight = cellSize * ROWS * VERTICAL_SPACING_FACTOR;
+        float boardWidth = cellSize * cols;
+        float boardHeight = cellSize * rows * VERTICAL_SPACING_FACTOR;
 
         // Center the board
         startX = (w - boardWidth) / 2;
@@ -95,8 +146,8 @@ public class CheckerboardView extends View {
         if (coordinates == null) return;
 
         // Draw grid and cells
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLS; col++) {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
                 float left = startX + (col * cellSize);
                 float top = startY + (row * cellSize * VERTICAL_SPACING_FACTOR);
 
@@ -128,6 +179,26 @@ public class CheckerboardView extends View {
                     );
                 }
 
+                // Fill the cells the selected marble can reach
+                if (hintCells != null && hintCells[row][col]) {
+                    canvas.drawCircle(
+                            left + cellSize/2,
+                            top + cellSize/2,
+                            (cellSize/2) - CELL_PADDING * 2,
+                            hintPaint
+                    );
+                }
+
+                // Ring the cell the arm is over
+                if (row == armRow && col == armCol) {
+                    canvas.drawCircle(
+                            left + cellSize/2,
+                            top + cellSize/2,
+                            (cellSize/2) - CELL_PADDING,
+                            armPaint
+                    );
+                }
+
                 // Highlight touched cell
                 if (row == lastTouchedRow && col == lastTouchedCol) {
                     canvas.drawRect(
@@ -179,7 +250,7 @@ public class CheckerboardView extends View {
     }
 
     private boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < ROWS && col >= 0 && col < COLS &&
+        return row >= 0 && row < rows && col >= 0 && col < cols &&
                 coordinates != null && coordinates[row][col] != null &&
                 coordinates[row][col].isValidCell();
     }
@@ -0,0 +1,141 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+/**
+ * Plans the transit height for arm movements from the current board occupancy.
+ * Instead of always rising to the fixed safe Z, the arm only needs to clear the
+ * cells lying along the straight line between two positions: marble height plus
+ * a margin over occupied cells, and just the margin over empty ones.
+ */
+public class ClearancePlanner {
+    private static final String TAG = "ClearancePlanner";
+
+    // Never plan higher than the fixed safe height the robot used so far
+    public static final float MAX_TRANSIT_Z = -60f;
+
+    private static final float MARBLE_HEIGHT_MM = 16f;
+    public static final float DEFAULT_CLEARANCE_MARGIN_MM = 5f;
+    // Once cell heights are probed rather than hand-tuned the margin can shrink
+    // (see CoordinateTable.isSurfaceProbed())
+    public static final float PROBED_CLEARANCE_MARGIN_MM = 2f;
+    // Cells closer than this to the travel line are considered "under" the gripper
+    private static final float CORRIDOR_RADIUS_MM = 20f;
+
+    private static ClearancePlanner instance;
+
+    // Null until a board state is known
+    private volatile BoardState occupancy;
+
+    private ClearancePlanner() {
+    }
+
+    public static synchronized ClearancePlanner getInstance() {
+        if (instance == null) {
+            instance = new ClearancePlanner();
+        }
+        return instance;
+    }
+
+    /**
+     * Update the occupancy from a detected board state
+     */
+    public void updateOccupancy(BoardState boardState) {
+        occupancy = boardState;
+    }
+
+    /**
+     * Keep the occupancy in sync after the robot moved a marble itself.
+     */
+    public void applyMove(int fromX, int fromY, int toX, int toY) {
+        BoardState state = occupancy;
+        BoardGeometry geometry = BoardGeometry.STANDARD;
+        int fromId = geometry.cellId(fromX, fromY);
+        int toId = geometry.cellId(toX, toY);
+        if (state == null || fromId < 0 || toId < 0) {
+            return;
+        }
+        occupancy = state.move(fromId, toId);
+    }
+
+    public BoardState getOccupancy() {
+        return occupancy;
+    }
+
+    public void clearOccupancy() {
+        occupancy = null;
+    }
+
+    /**
+     * Margin kept above marbles and the board surface. Follows the active
+     * coordinate table, so it only shrinks while that table's heights are probed.
+     */
+    public float getClearanceMargin() {
+        return BoardCoordinatesAdapter.getInstance().getTable().isSurfaceProbed()
+                ? PROBED_CLEARANCE_MARGIN_MM : DEFAULT_CLEARANCE_MARGIN_MM;
+    }
+
+    /**
+     * Lowest safe height to travel in a straight line between two robot XY positions.
+     * Falls back to MAX_TRANSIT_Z when the occupancy is unknown or the line
+     * does not pass over any mapped cell.
+     */
+    public float getTransitZ(float fromX, float fromY, float toX, float toY) {
+        BoardState state = occupancy;
+        if (state == null) {
+            return MAX_TRANSIT_Z;
+        }
+
+        CoordinateTable table = BoardCoordinatesAdapter.getInstance().getTable();
+        float margin = getClearanceMargin();
+        float required = Float.NEGATIVE_INFINITY;
+
+        BoardGeometry geometry = BoardGeometry.STANDARD;
+        for (int id = 0; id < geometry.getCellCount(); id++) {
+            int index = CoordinateTable.pack(geometry.getCellX(id), geometry.getCellY(id));
+            if (!table.isMapped(index)) {
+                continue;
+            }
+            float distance = distanceToSegment(table.getX(index), table.getY(index),
+                    fromX, fromY, toX, toY);
+            if (distance > CORRIDOR_RADIUS_MM) {
+                continue;
+            }
+            float clearance = state.isOccupied(id)
+                    ? MARBLE_HEIGHT_MM + margin
+                    : margin;
+            required = Math.max(required, table.getZ(index) + clearance);
+        }
+
+        if (required == Float.NEGATIVE_INFINITY) {
+            return MAX_TRANSIT_Z;
+        }
+
+        float transitZ = Math.min(required, MAX_TRANSIT_Z);
+        Log.d(TAG, String.format("Transit (%.2f,%.2f) -> (%.2f,%.2f) at Z=%.2f",
+                fromX, fromY, toX, toY, transitZ));
+        return transitZ;
+    }
+
+    /**
+     * Lowest safe height to hover directly above a position.
+     */
+    public float getHoverZ(float x, float y) {
+        return getTransitZ(x, y, x, y);
+    }
+
+    private static float distanceToSegment(float px, float py,
+                                           float ax, float ay, float bx, float by) {
+        float dx = bx - ax;
+        float dy = by - ay;
+        float lengthSq = dx * dx + dy * dy;
+        float t = 0f;
+        if (lengthSq > 0f) {
+            t = ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+            t = Math.max(0f, Math.min(1f, t));
+        }
+        float cx = ax + t * dx - px;
+        float cy = ay + t * dy - py;
+        return (float) Math.sqrt(cx * cx + cy * cy);
+    }
+}
@@ -0,0 +1,104 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import java.util.Arrays;
+
+/**
+ * Immutable dense table of robot coordinates for every board cell.
+ * Cells are indexed by a packed (boardX, boardY) index, and the robot
+ * coordinates are also kept as parallel float arrays so loops over the
+ * whole board don't touch CellCoordinate objects.
+ */
+public final class CoordinateTable {
+    public static final int ROWS = BoardGeometry.STANDARD.getRowCount();
+    public static final int MAX_ROW_WIDTH = BoardGeometry.STANDARD.getMaxRowWidth();
+    public static final int SIZE = ROWS * MAX_ROW_WIDTH;
+
+    final CellCoordinate[] cells;
+    final float[] xs;
+    final float[] ys;
+    final float[] zs;
+    final float[] torques;
+    private final int mappedCount;
+    // Heights come from a surface probe rather than hand tuning
+    private final boolean surfaceProbed;
+
+    private CoordinateTable(CellCoordinate[] cells, boolean surfaceProbed) {
+        this.cells = cells;
+        this.surfaceProbed = surfaceProbed;
+        xs = new float[SIZE];
+        ys = new float[SIZE];
+        zs = new float[SIZE];
+        torques = new float[SIZE];
+        Arrays.fill(xs, Float.NaN);
+        Arrays.fill(ys, Float.NaN);
+        Arrays.fill(zs, Float.NaN);
+        Arrays.fill(torques, Float.NaN);
+
+        int count = 0;
+        for (int i = 0; i < SIZE; i++) {
+            CellCoordinate cell = cells[i];
+            if (cell == null) continue;
+            xs[i] = cell.getX();
+            ys[i] = cell.getY();
+            zs[i] = cell.getZ();
+            torques[i] = cell.getTorque();
+            count++;
+        }
+        mappedCount = count;
+    }
+
+    /**
+     * Packed index of a board cell, or -1 if it lies outside the table
+     */
+    public static int pack(int boardX, int boardY) {
+        if (boardX < 0 || boardX >= MAX_ROW_WIDTH || boardY < 0 || boardY >= ROWS) {
+            return -1;
+        }
+        return boardY * MAX_ROW_WIDTH + boardX;
+    }
+
+    public static int boardXOf(int index) { return index % MAX_ROW_WIDTH; }
+    public static int boardYOf(int index) { return index / MAX_ROW_WIDTH; }
+
+    public CellCoordinate get(int index) { return cells[index]; }
+    public boolean isMapped(int index) { return cells[index] != null; }
+    public float getX(int index) { return xs[index]; }
+    public float getY(int index) { return ys[index]; }
+    public float getZ(int index) { return zs[index]; }
+    public float getTorque(int index) { return torques[index]; }
+    public int getMappedCount() { return mappedCount; }
+    public boolean isSurfaceProbed() { return surfaceProbed; }
+
+    public static class Builder {
+        private final CellCoordinate[] cells = new CellCoordinate[SIZE];
+        private boolean surfaceProbed;
+
+        public Builder() {
+        }
+
+        /**
+         * Copy of a table's cells; not marked probed, since its heights may be changed
+         */
+        public Builder(CoordinateTable source) {
+            System.arraycopy(source.cells, 0, cells, 0, SIZE);
+        }
+
+        public Builder setSurfaceProbed(boolean probed) {
+            surfaceProbed = probed;
+            return this;
+        }
+
+        public Builder set(int boardX, int boardY, CellCoordinate cell) {
+            int index = pack(boardX, boardY);
+            if (index < 0) {
+                throw new IllegalArgumentException("Board cell out of range: " + boardX + "," + boardY);
+            }
+            cells[index] = cell;
+            return this;
+        }
+
+        public CoordinateTable build() {
+            return new CoordinateTable(cells.clone(), surfaceProbed);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Watches first-attempt verification residuals (actual minus target XY) per
+ * board region. When a region's recent residuals show a consistent offset,
+ * i.e. the mean is both large enough to matter and significant against the
+ * scatter (a one-sample t-test), the arm or table has shifted. The offset is
+ * then folded into a per-region command offset that RobotController subtracts
+ * from every target in that region, so moves land at the first attempt again
+ * instead of needing retries. Verification still compares against the target.
+ */
+public class DriftMonitor implements BoardCoordinatesAdapter.OnTableChangedListener {
+    private static final String TAG = "DriftMonitor";
+
+    // Residuals kept per region; older ones fall out so each correction uses recent data
+    private static final int WINDOW = 12;
+    private static final int MIN_SAMPLES = 6;
+    private static final float[] NO_OFFSET = {0f, 0f};
+    // Smaller offsets are within the normal scatter of the arm
+    private static final float MIN_DRIFT_MM = 0.75f;
+    private static final float T_THRESHOLD = 3f;
+    // Larger offsets mean the board was knocked, which needs a recalibration instead
+    private static final float MAX_CORRECTION_MM = 10f;
+    // Targets further than this from every cell (home, probing) are ignored
+    private static final float MAX_CELL_DISTANCE_MM = 15f;
+
+    public interface DriftListener {
+        void onDriftCorrected(BoardRegion region, float offsetX, float offsetY, int samples);
+    }
+
+    private static class RegionWindow {
+        final float[] dx = new float[WINDOW];
+        final float[] dy = new float[WINDOW];
+        int count;
+        int next;
+        // Command offset for this region since the coordinate table was last replaced
+        volatile float appliedX;
+        volatile float appliedY;
+
+        void add(float x, float y) {
+            dx[next] = x;
+            dy[next] = y;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+        }
+
+        void clear() {
+            count = 0;
+            next = 0;
+        }
+    }
+
+    private final Map<BoardRegion, RegionWindow> windows = new EnumMap<>(BoardRegion.class);
+    private volatile DriftListener listener;
+    private volatile boolean registered;
+    private boolean enabled = true;
+
+    public DriftMonitor() {
+        for (BoardRegion region : BoardRegion.values()) {
+            windows.put(region, new RegionWindow());
+        }
+    }
+
+    public void setListener(DriftListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Turning the monitor off also drops the offsets it has applied
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            reset();
+        }
+    }
+
+    /**
+     * XY offset to subtract from a target before commanding it, {0, 0} off the board
+     */
+    public float[] getCommandOffset(float targetX, float targetY) {
+        BoardRegion region = regionOf(targetX, targetY);
+        if (region == null) {
+            return NO_OFFSET;
+        }
+        RegionWindow window = windows.get(region);
+        return new float[]{window.appliedX, window.appliedY};
+    }
+
+    /**
+     * Record where the arm ended up after the first, uncorrected attempt at a target,
+     * commanded with the offset from getCommandOffset.
+     * @return true if this sample triggered a new correction
+     */
+    public synchronized boolean record(float targetX, float targetY, float actualX, float actualY) {
+        if (!enabled) {
+            return false;
+        }
+        BoardRegion region = regionOf(targetX, targetY);
+        if (region == null) {
+            return false;
+        }
+        RegionWindow window = windows.get(region);
+        // The command already compensated appliedX/Y, what is left is new drift
+        window.add(actualX - targetX, actualY - targetY);
+        if (window.count < MIN_SAMPLES) {
+            return false;
+        }
+
+        float meanX = mean(window.dx, window.count);
+        float meanY = mean(window.dy, window.count);
+        boolean driftX = isSignificant(window.dx, window.count, meanX);
+        boolean driftY = isSignificant(window.dy, window.count, meanY);
+        if (!driftX && !driftY) {
+            return false;
+        }
+
+        float offsetX = driftX ? meanX : 0f;
+        float offsetY = driftY ? meanY : 0f;
+        if (Math.hypot(window.appliedX + offsetX, window.appliedY + offsetY) > MAX_CORRECTION_MM) {
+            Log.w(TAG, String.format("Drift in %s of (%.2f,%.2f)mm exceeds %.0fmm, recalibrate the board",
+                    region, window.appliedX + offsetX, window.appliedY + offsetY, MAX_CORRECTION_MM));
+            window.clear();
+            return false;
+        }
+
+        int samples = window.count;
+        window.appliedX += offsetX;
+        window.appliedY += offsetY;
+        window.clear();
+        Log.d(TAG, String.format("Drift in %s corrected by (%.2f,%.2f)mm from %d samples, total (%.2f,%.2f)mm",
+                region, offsetX, offsetY, samples, window.appliedX, window.appliedY));
+
+        DriftListener current = listener;
+        if (current != null) {
+            current.onDriftCorrected(region, offsetX, offsetY, samples);
+        }
+        return true;
+    }
+
+    private BoardRegion regionOf(float x, float y) {
+        BoardCoordinatesAdapter adapter = BoardCoordinatesAdapter.getInstance();
+        if (!registered) {
+            registered = true;
+            adapter.addOnTableChangedListener(this);
+        }
+        CellSpatialIndex.Match match = adapter.getSpatialIndex().nearestXY(x, y);
+        if (match == null || match.distance > MAX_CELL_DISTANCE_MM) {
+            return null;
+        }
+        return BoardRegion.forRow(match.boardY);
+    }
+
+    /**
+     * A new mapping (profile, calibration fit) is measured afresh
+     */
+    @Override
+    public void onTableChanged(CoordinateTable oldTable, CoordinateTable newTable) {
+        reset();
+    }
+
+    public synchronized void reset() {
+        for (RegionWindow window : windows.values()) {
+            window.clear();
+            window.appliedX = 0f;
+            window.appliedY = 0f;
+        }
+    }
+
+    private static float mean(float[] values, int count) {
+        float sum = 0f;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+        }
+        return sum / count;
+    }
+
+    private static boolean isSignificant(float[] values, int count, float mean) {
+        if (Math.abs(mean) < MIN_DRIFT_MM) {
+            return false;
+        }
+        float sumSq = 0f;
+        for (int i = 0; i < count; i++) {
+            float d = values[i] - mean;
+            sumSq += d * d;
+        }
+        double standardError = Math.sqrt(sumSq / (count - 1) / count);
+        return standardError == 0.0 || Math.abs(mean) / standardError >= T_THRESHOLD;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("Drift corrections:");
+        for (Map.Entry<BoardRegion, RegionWindow> entry : windows.entrySet()) {
+            RegionWindow window = entry.getValue();
+            sb.append(String.format(" %s (%.2f,%.2f)mm", entry.getKey(), window.appliedX, window.appliedY));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,174 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decides on the device whether the game is over, so automated play can stop
+ * without another camera capture or AI request. Uses the AI server's rules:
+ * green (player 1) starts in the top triangle and red (player 2) in the bottom
+ * one, and a player wins once their target triangle is full with at least one
+ * of their own marbles in it. The game is drawn after a move limit or when the
+ * same position comes back too often, and a player who cannot move is stalemated.
+ */
+public class GameEndDetector {
+    private static final String TAG = "GameEndDetector";
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+    private static final int[] GREEN_TARGET = GEOMETRY.getHomeTriangle(BoardGeometry.Corner.BOTTOM);
+    private static final int[] RED_TARGET = GEOMETRY.getHomeTriangle(BoardGeometry.Corner.TOP);
+
+    public static final int DEFAULT_MAX_ROBOT_MOVES = 150;
+    private static final int REPETITION_LIMIT = 3;
+
+    public enum Outcome {
+        IN_PROGRESS,
+        GREEN_WINS,
+        RED_WINS,
+        DRAW_MOVE_LIMIT,
+        DRAW_REPETITION,
+        STALEMATE;
+
+        public boolean isOver() {
+            return this != IN_PROGRESS;
+        }
+    }
+
+    private final int maxRobotMoves;
+    private final Map<BoardState, Integer> positionCounts = new HashMap<>();
+    private int robotMoves;
+    // Detecting the same board again is not a repetition
+    private BoardState lastPosition;
+
+    public GameEndDetector() {
+        this(DEFAULT_MAX_ROBOT_MOVES);
+    }
+
+    public GameEndDetector(int maxRobotMoves) {
+        this.maxRobotMoves = maxRobotMoves;
+    }
+
+    public synchronized void reset() {
+        positionCounts.clear();
+        robotMoves = 0;
+        lastPosition = null;
+    }
+
+    public synchronized void recordRobotMove() {
+        robotMoves++;
+    }
+
+    public synchronized int getRobotMoves() {
+        return robotMoves;
+    }
+
+    /**
+     * Record a detected position with a player to move and decide the outcome.
+     * A board in the starting position begins a new game.
+     */
+    public synchronized Outcome update(BoardState state, int colourToMove) {
+        if (isStartPosition(state)) {
+            reset();
+        }
+        Integer count = positionCounts.get(state);
+        int seen = count == null ? 0 : count;
+        if (!state.equals(lastPosition)) {
+            seen++;
+            positionCounts.put(state, seen);
+            lastPosition = state;
+        }
+
+        Outcome outcome = evaluate(state, colourToMove);
+        if (!outcome.isOver()) {
+            if (robotMoves >= maxRobotMoves) {
+                outcome = Outcome.DRAW_MOVE_LIMIT;
+            } else if (seen >= REPETITION_LIMIT) {
+                outcome = Outcome.DRAW_REPETITION;
+            }
+        }
+        if (outcome.isOver()) {
+            Log.d(TAG, "Game over: " + outcome + " after " + robotMoves + " robot moves");
+        }
+        return outcome;
+    }
+
+    /**
+     * Outcome from the board alone: a win, a stalemate, or still in progress
+     */
+    public static Outcome evaluate(BoardState state, int colourToMove) {
+        if (hasReachedTarget(state, BoardState.GREEN)) {
+            return Outcome.GREEN_WINS;
+        }
+        if (hasReachedTarget(state, BoardState.RED)) {
+            return Outcome.RED_WINS;
+        }
+        if (!hasLegalMove(state, colourToMove)) {
+            return Outcome.STALEMATE;
+        }
+        return Outcome.IN_PROGRESS;
+    }
+
+    /**
+     * Target triangle full, with at least one of the player's own marbles in it
+     */
+    public static boolean hasReachedTarget(BoardState state, int colour) {
+        int[] target = colour == BoardState.GREEN ? GREEN_TARGET : RED_TARGET;
+        boolean ownMarble = false;
+        for (int id : target) {
+            int value = state.get(id);
+            if (value == BoardState.EMPTY) {
+                return false;
+            }
+            ownMarble |= value == colour;
+        }
+        return ownMarble;
+    }
+
+    /**
+     * Whether any marble of the colour can step or jump. Marbles already in their
+     * target triangle may only move within it, as on the AI server.
+     */
+    public static boolean hasLegalMove(BoardState state, int colour) {
+        int[] target = colour == BoardState.GREEN ? GREEN_TARGET : RED_TARGET;
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            if (state.get(id) != colour) {
+                continue;
+            }
+            boolean inTarget = contains(target, id);
+            for (int dir = 0; dir < BoardGeometry.DIRECTIONS; dir++) {
+                int next = GEOMETRY.neighbour(id, dir);
+                if (next < 0) {
+                    continue;
+                }
+                int landing = state.isOccupied(next) ? GEOMETRY.jump(id, dir) : next;
+                if (landing >= 0 && !state.isOccupied(landing) && (!inTarget || contains(target, landing))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Both colours entirely in their own starting triangles
+     */
+    public static boolean isStartPosition(BoardState state) {
+        int triangle = RED_TARGET.length;
+        for (int id : RED_TARGET) {
+            if (state.get(id) != BoardState.GREEN) return false;
+        }
+        for (int id : GREEN_TARGET) {
+            if (state.get(id) != BoardState.RED) return false;
+        }
+        return state.occupiedCount() == 2 * triangle;
+    }
+
+    private static boolean contains(int[] cells, int id) {
+        for (int cell : cells) {
+            if (cell == id) return true;
+        }
+        return false;
+    }
+}
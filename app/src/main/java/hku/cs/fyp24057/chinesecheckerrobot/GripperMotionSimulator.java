@@ -0,0 +1,98 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+/**
+ * Small time-stepped model of the arm's vertical motion and the gripper jaws.
+ * Used to check that overlapping gripper actuation with arm motion can never
+ * drop a marble from too high, lift before the grip is secure, or drag the
+ * jaws through a marble that has just been released.
+ */
+public class GripperMotionSimulator {
+
+    // Jaw opening fraction at which a held marble comes loose
+    private static final float RELEASE_FRACTION = 0.25f;
+    // Closing fraction after which the marble is held firmly enough to lift
+    private static final float SECURE_GRIP_FRACTION = 0.7f;
+    // Opening fraction after which the jaws clear the marble when lifting
+    private static final float JAW_CLEAR_FRACTION = 0.6f;
+    // Highest drop that cannot bounce a marble out of its hole
+    private static final float MAX_SAFE_DROP_MM = 2f;
+
+    private static final int STEP_MS = 5;
+
+    public static class Result {
+        public final boolean safe;
+        public final String reason;
+
+        Result(boolean safe, String reason) {
+            this.safe = safe;
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * Simulate a place: descend descentMm at armSpeedMmPerS while pre-opening
+     * the gripper, then start the lift once the opening crosses the lift threshold.
+     */
+    public Result simulatePlace(float descentMm, GripperOverlapScheduler.Config config, float armSpeedMmPerS) {
+        if (config.liftThreshold < JAW_CLEAR_FRACTION) {
+            return new Result(false, String.format(
+                    "Lift threshold %.2f lifts before jaws clear the marble (%.2f)",
+                    config.liftThreshold, JAW_CLEAR_FRACTION));
+        }
+
+        long descentMs = GripperOverlapScheduler.verticalMoveMs(descentMm, armSpeedMmPerS);
+        long openAtMs = GripperOverlapScheduler.preOpenDelayMs(descentMm, config, armSpeedMmPerS);
+
+        for (long t = 0; t <= descentMs + config.actuationMs; t += STEP_MS) {
+            float heightAboveTarget = Math.max(0f,
+                    descentMm - armSpeedMmPerS * t / 1000f);
+            float opening = jawProgress(t - openAtMs, config.actuationMs);
+            if (opening >= RELEASE_FRACTION) {
+                if (heightAboveTarget > MAX_SAFE_DROP_MM) {
+                    return new Result(false, String.format(
+                            "Marble released %.2fmm above the board", heightAboveTarget));
+                }
+                return new Result(true, "ok");
+            }
+        }
+        return new Result(false, "Gripper never released the marble");
+    }
+
+    /**
+     * Simulate a pickup: close at the grasp height, then lift at the threshold.
+     */
+    public Result simulatePickup(GripperOverlapScheduler.Config config) {
+        if (config.liftThreshold < SECURE_GRIP_FRACTION) {
+            return new Result(false, String.format(
+                    "Lift threshold %.2f lifts before the grip is secure (%.2f)",
+                    config.liftThreshold, SECURE_GRIP_FRACTION));
+        }
+        return new Result(true, "ok");
+    }
+
+    /**
+     * Check a configuration over the range of descents the robot performs.
+     * A slower arm is still higher when the jaws let go, so pass the slowest
+     * speed the arm descends at.
+     */
+    public Result validate(GripperOverlapScheduler.Config config, float maxDescentMm, float armSpeedMmPerS) {
+        Result pickup = simulatePickup(config);
+        if (!pickup.safe) {
+            return pickup;
+        }
+        for (float descent = 0f; descent <= maxDescentMm; descent += 1f) {
+            Result place = simulatePlace(descent, config, armSpeedMmPerS);
+            if (!place.safe) {
+                return new Result(false, String.format("Descent %.0fmm: %s", descent, place.reason));
+            }
+        }
+        return new Result(true, "ok");
+    }
+
+    private static float jawProgress(long sinceCommandMs, long actuationMs) {
+        if (sinceCommandMs <= 0) {
+            return 0f;
+        }
+        return Math.min(1f, (float) sinceCommandMs / actuationMs);
+    }
+}
@@ -0,0 +1,169 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import org.json.JSONObject;
+
+/**
+ * Schedules gripper actuation so it overlaps with arm motion instead of
+ * running strictly after it. For a place the gripper is opened during the
+ * final descent, and after any actuation the lift starts as soon as the
+ * gripper has travelled past a configurable threshold.
+ *
+ * Every configuration is checked against GripperMotionSimulator first;
+ * an unsafe one falls back to the serial timing the robot always used.
+ */
+public class GripperOverlapScheduler {
+    private static final String TAG = "GripperOverlapScheduler";
+
+    // Largest hover-to-grasp descent we validate configurations for
+    private static final float MAX_DESCENT_MM = 60f;
+    private static final int FEEDBACK_POLL_MS = 50;
+
+    public static class Config {
+        // Time for the gripper to travel fully open or closed
+        public final long actuationMs;
+        // Fraction of the travel after which the arm may start lifting
+        public final float liftThreshold;
+        // Height above the place position at which the gripper starts opening
+        public final float preOpenHeightMm;
+        // Optional feedback field reporting the gripper position, null to use timing only
+        public final String feedbackKey;
+        public final float openValue;
+        public final float closedValue;
+
+        public Config(long actuationMs, float liftThreshold, float preOpenHeightMm) {
+            this(actuationMs, liftThreshold, preOpenHeightMm, null, 0f, 0f);
+        }
+
+        public Config(long actuationMs, float liftThreshold, float preOpenHeightMm,
+                      String feedbackKey, float openValue, float closedValue) {
+            this.actuationMs = actuationMs;
+            this.liftThreshold = liftThreshold;
+            this.preOpenHeightMm = preOpenHeightMm;
+            this.feedbackKey = feedbackKey;
+            this.openValue = openValue;
+            this.closedValue = closedValue;
+        }
+    }
+
+    public static final Config DEFAULT_CONFIG = new Config(1000, 0.8f, 8f);
+
+    private final RobotController robotController;
+    private final GripperMotionSimulator simulator = new GripperMotionSimulator();
+
+    private volatile Config config = DEFAULT_CONFIG;
+    private volatile boolean overlapEnabled;
+    private volatile long lastCommandTimeMs;
+    private volatile boolean lastCommandClose;
+    private volatile float lastCommandStartValue = Float.NaN;
+
+    public GripperOverlapScheduler(RobotController robotController) {
+        this.robotController = robotController;
+        setConfig(DEFAULT_CONFIG);
+    }
+
+    /**
+     * Install a new configuration, checked at the slowest vertical speed of
+     * the current speed profile.
+     * @return true if it passed simulation and overlapping is enabled
+     */
+    public synchronized boolean setConfig(Config newConfig) {
+        float armSpeed = robotController.getSlowestVerticalSpeed();
+        GripperMotionSimulator.Result result = simulator.validate(newConfig, MAX_DESCENT_MM, armSpeed);
+        config = newConfig;
+        overlapEnabled = result.safe;
+        if (result.safe) {
+            Log.d(TAG, String.format("Overlap enabled: actuation=%dms threshold=%.2f preOpen=%.1fmm at %.1fmm/s",
+                    newConfig.actuationMs, newConfig.liftThreshold, newConfig.preOpenHeightMm, armSpeed));
+        } else {
+            Log.w(TAG, "Overlap disabled, unsafe configuration: " + result.reason);
+        }
+        return result.safe;
+    }
+
+    /**
+     * Check the current configuration again, called when the speed profile changes
+     */
+    public void revalidate() {
+        setConfig(config);
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public boolean isOverlapEnabled() {
+        return overlapEnabled;
+    }
+
+    /**
+     * Called by RobotController whenever a gripper command is sent
+     */
+    void onGripperCommand(boolean close) {
+        lastCommandTimeMs = System.currentTimeMillis();
+        lastCommandClose = close;
+        lastCommandStartValue = close ? config.openValue : config.closedValue;
+    }
+
+    /**
+     * Delay from the start of a descent of descentMm at armSpeedMmPerS until
+     * the gripper should open
+     */
+    public long getPreOpenDelayMs(float descentMm, float armSpeedMmPerS) {
+        return preOpenDelayMs(descentMm, config, armSpeedMmPerS);
+    }
+
+    /**
+     * Block until the gripper has travelled far enough to start lifting.
+     * Without a safe overlap configuration this waits for the full actuation.
+     */
+    public void awaitLiftThreshold() throws InterruptedException {
+        Config current = config;
+        float threshold = overlapEnabled ? current.liftThreshold : 1f;
+        long deadline = lastCommandTimeMs + current.actuationMs;
+
+        if (overlapEnabled && current.feedbackKey != null) {
+            // Poll the gripper position until it crosses the threshold
+            long timeout = lastCommandTimeMs + current.actuationMs * 2;
+            while (System.currentTimeMillis() < timeout) {
+                float progress = readFeedbackProgress(current);
+                if (!Float.isNaN(progress) && progress >= threshold) {
+                    return;
+                }
+                Thread.sleep(FEEDBACK_POLL_MS);
+            }
+            Log.w(TAG, "Gripper feedback never crossed threshold, continuing after timeout");
+            return;
+        }
+
+        long wakeAt = lastCommandTimeMs + (long) (current.actuationMs * threshold);
+        long remaining = Math.min(wakeAt, deadline) - System.currentTimeMillis();
+        if (remaining > 0) {
+            Thread.sleep(remaining);
+        }
+    }
+
+    private float readFeedbackProgress(Config current) {
+        JSONObject feedback = robotController.getPositionFeedback();
+        if (feedback == null || !feedback.has(current.feedbackKey)) {
+            return Float.NaN;
+        }
+        float value = (float) feedback.optDouble(current.feedbackKey, Double.NaN);
+        float target = lastCommandClose ? current.closedValue : current.openValue;
+        float span = target - lastCommandStartValue;
+        if (Float.isNaN(value) || span == 0f) {
+            return Float.NaN;
+        }
+        return (value - lastCommandStartValue) / span;
+    }
+
+    static long verticalMoveMs(float distanceMm, float armSpeedMmPerS) {
+        return (long) (Math.max(0f, distanceMm) * 1000f / armSpeedMmPerS);
+    }
+
+    static long preOpenDelayMs(float descentMm, Config config, float armSpeedMmPerS) {
+        return Math.max(0L, verticalMoveMs(descentMm, armSpeedMmPerS)
+                - verticalMoveMs(config.preOpenHeightMm, armSpeedMmPerS));
+    }
+}
@@ -0,0 +1,225 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+/**
+ * Homography from detection image pixels to robot XY, fitted by the normalised
+ * direct linear transform. The board is flat, so one homography maps the whole
+ * camera view onto the arm's working plane.
+ *
+ * Correspondences come for free: every detection reports the pixel centre of
+ * each cell, and the coordinate table holds the robot XY of the same cell.
+ */
+public class HandEyeCalibration {
+    private static final String TAG = "HandEyeCalibration";
+
+    public static final int MIN_POINTS = 4;
+    // Marble offsets smaller than this are noise, larger ones are more likely a misdetection
+    private static final float MIN_CORRECTION_MM = 1f;
+    private static final float MAX_CORRECTION_MM = 8f;
+
+    // Row-major 3x3, h[8] = 1
+    private final double[] h;
+    private final float rmsErrorMm;
+
+    private HandEyeCalibration(double[] h, float rmsErrorMm) {
+        this.h = h;
+        this.rmsErrorMm = rmsErrorMm;
+    }
+
+    /**
+     * Fit from the detected cell centres and the current coordinate table
+     * @throws IllegalArgumentException with fewer than four usable cells
+     */
+    public static HandEyeCalibration fit(MarbleObservations observations, CoordinateTable table) {
+        int n = 0;
+        float[] px = new float[CoordinateTable.SIZE];
+        float[] py = new float[CoordinateTable.SIZE];
+        float[] rx = new float[CoordinateTable.SIZE];
+        float[] ry = new float[CoordinateTable.SIZE];
+        for (int i = 0; i < CoordinateTable.SIZE; i++) {
+            if (!table.isMapped(i) || !observations.hasCellPixel(i)) continue;
+            px[n] = observations.getCellPx(i);
+            py[n] = observations.getCellPy(i);
+            rx[n] = table.getX(i);
+            ry[n] = table.getY(i);
+            n++;
+        }
+        return fit(px, py, rx, ry, n);
+    }
+
+    public static HandEyeCalibration fit(float[] px, float[] py, float[] rx, float[] ry, int n) {
+        if (n < MIN_POINTS) {
+            throw new IllegalArgumentException("Need at least " + MIN_POINTS + " correspondences, got " + n);
+        }
+
+        // Normalise both point sets for a well conditioned system
+        double[] tp = normalisation(px, py, n);
+        double[] tr = normalisation(rx, ry, n);
+
+        // Least squares for the 8 unknowns of the normalised homography
+        double[][] ata = new double[8][8];
+        double[] atb = new double[8];
+        double[] rowX = new double[8];
+        double[] rowY = new double[8];
+        for (int i = 0; i < n; i++) {
+            double u = (px[i] - tp[0]) * tp[2];
+            double v = (py[i] - tp[1]) * tp[2];
+            double x = (rx[i] - tr[0]) * tr[2];
+            double y = (ry[i] - tr[1]) * tr[2];
+
+            rowX[0] = u; rowX[1] = v; rowX[2] = 1; rowX[3] = 0; rowX[4] = 0; rowX[5] = 0;
+            rowX[6] = -u * x; rowX[7] = -v * x;
+            rowY[0] = 0; rowY[1] = 0; rowY[2] = 0; rowY[3] = u; rowY[4] = v; rowY[5] = 1;
+            rowY[6] = -u * y; rowY[7] = -v * y;
+
+            for (int r = 0; r < 8; r++) {
+                for (int c = 0; c < 8; c++) {
+                    ata[r][c] += rowX[r] * rowX[c] + rowY[r] * rowY[c];
+                }
+                atb[r] += rowX[r] * x + rowY[r] * y;
+            }
+        }
+        double[] hn = solve(ata, atb);
+        if (hn == null) {
+            throw new IllegalArgumentException("Cell centres are degenerate (collinear)");
+        }
+
+        // H = Tr^-1 * Hn * Tp
+        double[] normalised = {hn[0], hn[1], hn[2], hn[3], hn[4], hn[5], hn[6], hn[7], 1};
+        double[] tpMatrix = {tp[2], 0, -tp[2] * tp[0], 0, tp[2], -tp[2] * tp[1], 0, 0, 1};
+        double[] trInverse = {1 / tr[2], 0, tr[0], 0, 1 / tr[2], tr[1], 0, 0, 1};
+        double[] result = multiply(trInverse, multiply(normalised, tpMatrix));
+        for (int i = 0; i < 9; i++) {
+            result[i] /= result[8];
+        }
+
+        HandEyeCalibration fitted = new HandEyeCalibration(result, 0f);
+        double errorSq = 0;
+        for (int i = 0; i < n; i++) {
+            float[] mapped = fitted.map(px[i], py[i]);
+            double dx = mapped[0] - rx[i];
+            double dy = mapped[1] - ry[i];
+            errorSq += dx * dx + dy * dy;
+        }
+        float rms = (float) Math.sqrt(errorSq / n);
+        Log.d(TAG, String.format("Fitted from %d cells, RMS error %.2fmm", n, rms));
+        return new HandEyeCalibration(result, rms);
+    }
+
+    /**
+     * Robot XY of an image pixel
+     */
+    public float[] map(float px, float py) {
+        double w = h[6] * px + h[7] * py + h[8];
+        return new float[]{
+                (float) ((h[0] * px + h[1] * py + h[2]) / w),
+                (float) ((h[3] * px + h[4] * py + h[5]) / w)};
+    }
+
+    public float getRmsErrorMm() {
+        return rmsErrorMm;
+    }
+
+    /**
+     * Grasp target for a marble that may sit off the cell centre. The offset is
+     * measured between the marble centroid and the detected cell centre, both
+     * mapped through the homography, so a constant fitting error cancels out.
+     * @return the nominal cell, or a copy moved onto the marble
+     */
+    public CellCoordinate correctGrasp(CellCoordinate nominal, int boardX, int boardY,
+                                       MarbleObservations observations) {
+        int index = CoordinateTable.pack(boardX, boardY);
+        if (index < 0 || !observations.hasMarble(index) || !observations.hasCellPixel(index)) {
+            return nominal;
+        }
+        float[] marble = map(observations.getMarblePx(index), observations.getMarblePy(index));
+        float[] centre = map(observations.getCellPx(index), observations.getCellPy(index));
+        float dx = marble[0] - centre[0];
+        float dy = marble[1] - centre[1];
+        float offset = (float) Math.sqrt(dx * dx + dy * dy);
+
+        if (offset < MIN_CORRECTION_MM) {
+            return nominal;
+        }
+        if (offset > MAX_CORRECTION_MM) {
+            Log.w(TAG, String.format("Ignoring %.2fmm marble offset at (%d,%d), too large", offset, boardX, boardY));
+            return nominal;
+        }
+        Log.d(TAG, String.format("Marble at (%d,%d) is %.2fmm off centre, grasp moved by (%.2f, %.2f)",
+                boardX, boardY, offset, dx, dy));
+        return new CellCoordinate(nominal.getGridX(), nominal.getGridY(),
+                nominal.getX() + dx, nominal.getY() + dy, nominal.getZ(), nominal.getTorque(),
+                nominal.isValidCell());
+    }
+
+    /**
+     * {meanX, meanY, scale} moving the points to the origin at mean distance sqrt(2)
+     */
+    private static double[] normalisation(float[] xs, float[] ys, int n) {
+        double mx = 0;
+        double my = 0;
+        for (int i = 0; i < n; i++) {
+            mx += xs[i];
+            my += ys[i];
+        }
+        mx /= n;
+        my /= n;
+        double dist = 0;
+        for (int i = 0; i < n; i++) {
+            dist += Math.hypot(xs[i] - mx, ys[i] - my);
+        }
+        dist /= n;
+        double scale = dist > 0 ? Math.sqrt(2) / dist : 1;
+        return new double[]{mx, my, scale};
+    }
+
+    private static double[] multiply(double[] a, double[] b) {
+        double[] c = new double[9];
+        for (int r = 0; r < 3; r++) {
+            for (int col = 0; col < 3; col++) {
+                c[r * 3 + col] = a[r * 3] * b[col] + a[r * 3 + 1] * b[3 + col] + a[r * 3 + 2] * b[6 + col];
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Gaussian elimination with partial pivoting, null if singular
+     */
+    private static double[] solve(double[][] a, double[] b) {
+        int n = b.length;
+        double[][] m = new double[n][];
+        double[] rhs = b.clone();
+        for (int i = 0; i < n; i++) {
+            m[i] = a[i].clone();
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int r = col + 1; r < n; r++) {
+                if (Math.abs(m[r][col]) > Math.abs(m[pivot][col])) pivot = r;
+            }
+            if (Math.abs(m[pivot][col]) < 1e-12) {
+                return null;
+            }
+            double[] tmpRow = m[col]; m[col] = m[pivot]; m[pivot] = tmpRow;
+            double tmp = rhs[col]; rhs[col] = rhs[pivot]; rhs[pivot] = tmp;
+            for (int r = col + 1; r < n; r++) {
+                double factor = m[r][col] / m[col][col];
+                for (int c = col; c < n; c++) {
+                    m[r][c] -= factor * m[col][c];
+                }
+                rhs[r] -= factor * rhs[col];
+            }
+        }
+        double[] x = new double[n];
+        for (int r = n - 1; r >= 0; r--) {
+            double sum = rhs[r];
+            for (int c = r + 1; c < n; c++) {
+                sum -= m[r][c] * x[c];
+            }
+            x[r] = sum / m[r][r];
+        }
+        return x;
+    }
+}
@@ -2,6 +2,7 @@ package hku.cs.fyp24057.chinesecheckerrobot;
 
 import android.app.AlertDialog;
 import android.content.Context;
+import android.content.res.AssetManager;
 import android.graphics.Bitmap;
 import android.media.MediaPlayer;
 import android.os.Bundle;
@@ -42,6 +43,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -52,6 +54,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import okhttp3.Call;
 import okhttp3.Callback;
@@ -68,7 +71,7 @@ public class IntegratedAIGameFragment extends Fragment {
     // UI references
     private PreviewView previewView;
     private EditText etDebugBoardX, etDebugBoardY;
-    private Button btnLookupCoords, btnShowDebugInfo;
+    private Button btnLookupCoords, btnShowDebugInfo, btnCalibration;
     private TextView tvMappedPosition;
     private TextView tvBoardState, tvAIResponse;
 
@@ -87,8 +90,16 @@ public class IntegratedAIGameFragment extends Fragment {
     // State
     private boolean isMoving = false;
     private boolean hasEmptyBoard = false;
-    private List<String> currentBoardState = null;           // set after detectCurrentBoard() finishes
+    private BoardState currentBoardState = null;             // set after detectCurrentBoard() finishes
     private JSONArray lastRecommendedMoveSequence = null;    // set after getAIMove() finishes
+    private final List<CalibrationModel.TaughtPoint> taughtPoints = new ArrayList<>();
+    private MarbleObservations marbleObservations = null;    // pixel positions from the last detection
+    private volatile HandEyeCalibration handEyeCalibration = null;
+    // Board expected after the robot's own moves, checked against each detection
+    private final BoardWorldModel worldModel = new BoardWorldModel(AI_COLOUR);
+    private BoardWorldModel.Reconciliation lastReconciliation = null;
+    private final GameEndDetector gameEndDetector = new GameEndDetector();
+    private volatile GameEndDetector.Outcome gameOutcome = GameEndDetector.Outcome.IN_PROGRESS;
 
     // Camera
     private ImageCapture imageCapture;
@@ -104,14 +115,57 @@ public class IntegratedAIGameFragment extends Fragment {
             .writeTimeout(30, TimeUnit.SECONDS)
             .readTimeout(30, TimeUnit.SECONDS)
             .build();
+    // With an on-device fallback, a cold-starting server only gets this long
+    private static final int FALLBACK_TIMEOUT_S = 8;
+    private final OkHttpClient fallbackClient = client.newBuilder()
+            .callTimeout(FALLBACK_TIMEOUT_S, TimeUnit.SECONDS)
+            .build();
+    // Pending AI server request, cancelled when the fragment is destroyed
+    private volatile Call aiMoveCall;
     private BoardDetectionClient detectionClient;
     private RobotController robotController;
+    private CalibrationProfileStore profileStore;
+    private AIMoveCache moveCache;
+    private volatile OpeningBook openingBook;
+    private AlphaBetaEngine alphaBetaEngine;
+    private MctsEngine mctsEngine;
+    private RaceSolver raceSolver;
     private String serverIp = "192.168.11.192";  // Example defaults
     private String robotIp = "192.168.11.172";
 
     // For AI requests
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
     private static final int AI_PORT = 5002;
+    // The robot plays player 2 ("X" on the AI server), the red marbles on the board
+    private static final boolean AI_IS_PLAYER1 = false;
+    private static final int AI_COLOUR = BoardState.RED;
+    private static final int OPPONENT_COLOUR = BoardState.GREEN;
+    private static final int AI_DEPTH = 3;
+    private static final int AI_EVAL_FUNC = 1;
+    // Runners-up the server sends, for when the arm cannot reach a cell of its best move
+    private static final int AI_TOP_K = 5;
+    private static final long[] LOCAL_BUDGETS_MS = {1000, 3000, 10000, 30000};
+    private volatile long localBudgetMs = 3000;
+    // Races that take longer than this to prove go to the usual AI instead
+    private static final long RACE_BUDGET_MS = 1000;
+
+    // Where AI moves come from; long-press "Get AI Move" to change
+    private enum AIMode {
+        REMOTE("AI server only"),
+        REMOTE_WITH_FALLBACK("AI server, on-device if unreachable"),
+        ON_DEVICE("On-device alpha-beta"),
+        ON_DEVICE_MCTS("On-device Monte Carlo");
+
+        final String label;
+
+        AIMode(String label) {
+            this.label = label;
+        }
+    }
+    private volatile AIMode aiMode = AIMode.REMOTE_WITH_FALLBACK;
+
+    // Released further than this from the target cell centre counts as misplaced
+    private static final float MISPLACEMENT_TOLERANCE_MM = 6f;
 
     // Create a Handler for polling; we'll remove callbacks in onDestroyView
     private final Handler pollHandler = new Handler(Looper.getMainLooper());
@@ -123,10 +177,32 @@ public class IntegratedAIGameFragment extends Fragment {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
+        // Build the coordinate table off the main thread before the first move needs it
+        File taughtPointsFile = new File(requireContext().getFilesDir(), CalibrationModel.FILE_NAME);
+        profileStore = new CalibrationProfileStore(requireContext().getFilesDir());
+        moveCache = new AIMoveCache(requireContext().getFilesDir(),
+                String.format(Locale.US, "d%d_e%d", AI_DEPTH, AI_EVAL_FUNC));
+        alphaBetaEngine = new AlphaBetaEngine(message -> Log.d(TAG, message));
+        mctsEngine = new MctsEngine();
+        raceSolver = new RaceSolver();
+        AssetManager assets = requireContext().getAssets();
+        new Thread(() -> {
+            BoardCoordinatesAdapter.preload();
+            loadCalibrationModel(taughtPointsFile);
+            loadActiveProfile();
+            TravelTimeMatrix.getInstance();
+            try {
+                openingBook = OpeningBook.open(assets);
+            } catch (IOException e) {
+                Log.w(TAG, "No opening book: " + e.getMessage());
+            }
+        }).start();
+
         // Initialize detection and robot with default IPs
         detectionClient = new BoardDetectionClient(serverIp);
         robotController = RobotController.getInstance();
         robotController.setRobotIp(robotIp);
+        loadSpeedProfile();
 
         initSoundPlayer();
 
@@ -151,6 +227,10 @@ public class IntegratedAIGameFragment extends Fragment {
     public void onViewCreated(@NonNull View view,
                               @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        robotController.getDriftMonitor().setListener((region, offsetX, offsetY, samples) ->
+                updateProgress(String.format(Locale.US,
+                        "Arm drift in %s: commands shifted by (%.2f, %.2f)mm from %d moves",
+                        region, -offsetX, -offsetY, samples)));
 
 //        setupInputFields();
 
@@ -165,6 +245,7 @@ public class IntegratedAIGameFragment extends Fragment {
 
         btnLookupCoords = view.findViewById(R.id.btnLookupCoords);
         btnShowDebugInfo = view.findViewById(R.id.btnShowDebugInfo);
+        btnCalibration = view.findViewById(R.id.btnCalibration);
         btnCaptureEmpty = view.findViewById(R.id.btnCaptureEmpty);
         btnDetectCurrent = view.findViewById(R.id.btnDetectCurrent);
         btnGetAIMove = view.findViewById(R.id.btnGetAIMove);
@@ -209,9 +290,23 @@ public class IntegratedAIGameFragment extends Fragment {
             mp.seekTo(0);
         });
     }
+    @Override
+    public void onDestroy() {
+        Call call = aiMoveCall;
+        if (call != null) {
+            call.cancel();
+        }
+        alphaBetaEngine.shutdown();
+        mctsEngine.shutdown();
+        moveCache.shutdown();
+        profileStore.shutdown();
+        super.onDestroy();
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        robotController.getDriftMonitor().setListener(null);
         // Cancel any pending polling callbacks to avoid updating UI after view is destroyed
         pollHandler.removeCallbacksAndMessages(null);
 
@@ -261,7 +356,7 @@ public class IntegratedAIGameFragment extends Fragment {
         });
 
         btnGetAIMove.setOnClickListener(v -> {
-            if (currentBoardState == null || currentBoardState.isEmpty()) {
+            if (currentBoardState == null) {
                 Toast.makeText(requireContext(),
                         "Please detect current board state first",
                         Toast.LENGTH_SHORT).show();
@@ -269,6 +364,10 @@ public class IntegratedAIGameFragment extends Fragment {
             }
             getAIMove();
         });
+        btnGetAIMove.setOnLongClickListener(v -> {
+            showAIModeDialog();
+            return true;
+        });
 
         btnExecuteMove.setOnClickListener(v -> {
             if (lastRecommendedMoveSequence != null) {
@@ -285,7 +384,9 @@ public class IntegratedAIGameFragment extends Fragment {
 
         btnShowDebugInfo.setOnClickListener(v -> showDebugInfo());
 //        btnLookupCoords.setOnClickListener(v -> lookupAndMoveToPosition());
-        btnLookupCoords.setOnClickListener(v -> showBoardCoordsDialog());
+        btnLookupCoords.setOnClickListener(v ->
+                showBoardCoordsDialog("Enter Board Coordinates", this::lookupAndMoveToPosition));
+        btnCalibration.setOnClickListener(v -> showCalibrationDialog());
 
 
         btnStartGripper.setOnClickListener(v -> {
@@ -404,7 +505,22 @@ public class IntegratedAIGameFragment extends Fragment {
     private void pollForBoardDetection() {
         pollHandler.postDelayed(() -> {
             if (!isAdded() || getView() == null) return; // do not update if fragment is detached
-            if (currentBoardState != null && !currentBoardState.isEmpty()) {
+            if (currentBoardState != null) {
+                if (gameOutcome.isOver()) {
+                    safeRunOnUiThread(() -> tvAIResponse.append("Game over: " + describeOutcome(gameOutcome)
+                            + "\nAutoPlay stopped.\n"));
+                    autoPlayState = AutoPlayState.COMPLETED;
+                    currentBoardState = null;
+                    return;
+                }
+                BoardWorldModel.Reconciliation reconciliation = lastReconciliation;
+                if (reconciliation != null && !reconciliation.isAcceptable()) {
+                    safeRunOnUiThread(() -> tvAIResponse.append("Board detected, but "
+                            + reconciliation.opponentMove + "\nAutoPlay stopped. Fix the marbles and try again.\n"));
+                    autoPlayState = AutoPlayState.IDLE;
+                    currentBoardState = null;
+                    return;
+                }
                 safeRunOnUiThread(() -> tvAIResponse.append("Board detected!\n2) Getting AI move...\n"));
                 getAIMove();
                 pollForAIMove();
@@ -523,7 +639,7 @@ public class IntegratedAIGameFragment extends Fragment {
                     Toast.LENGTH_SHORT).show();
             detectionClient.uploadEmptyBoard(bitmap, new BoardDetectionClient.DetectionCallback() {
                 @Override
-                public void onSuccess(List<String> boardState) {
+                public void onSuccess(BoardState boardState) {
                     safeRunOnUiThread(() -> {
                         hasEmptyBoard = true;
                         btnCaptureEmpty.setEnabled(true);
@@ -547,17 +663,24 @@ public class IntegratedAIGameFragment extends Fragment {
         } else {
             detectionClient.detectCurrentState(bitmap, new BoardDetectionClient.DetectionCallback() {
                 @Override
-                public void onSuccess(List<String> boardState) {
+                public void onSuccess(BoardState boardState) {
                     safeRunOnUiThread(() -> {
                         btnDetectCurrent.setEnabled(true);
                         btnGetAIMove.setEnabled(true);
                         if (boardState != null) {
                             currentBoardState = boardState;
-                            StringBuilder display = new StringBuilder("Detected Board State:\n\n");
-                            for (String row : boardState) {
-                                display.append(row).append('\n');
+                            ClearancePlanner.getInstance().updateOccupancy(boardState);
+                            if (GameEndDetector.isStartPosition(boardState)) {
+                                worldModel.reset();
+                            }
+                            lastReconciliation = worldModel.reconcile(boardState);
+                            reportReconciliation(lastReconciliation);
+                            gameOutcome = gameEndDetector.update(boardState, AI_COLOUR);
+                            if (gameOutcome.isOver()) {
+                                tvAIResponse.append("\nGame over: " + describeOutcome(gameOutcome));
                             }
-                            tvBoardState.setText(display.toString());
+                            updateHandEyeCalibration(detectionClient.getLastObservations());
+                            tvBoardState.setText("Detected Board State:\n\n" + boardState);
                         }
                         Toast.makeText(requireContext(),
                                 "Board state detected successfully",
@@ -579,6 +702,78 @@ public class IntegratedAIGameFragment extends Fragment {
         }
     }
 
+    private String describeOutcome(GameEndDetector.Outcome outcome) {
+        switch (outcome) {
+            case GREEN_WINS:
+                return AI_COLOUR == BoardState.GREEN ? "the robot wins!" : "you win!";
+            case RED_WINS:
+                return AI_COLOUR == BoardState.RED ? "the robot wins!" : "you win!";
+            case DRAW_MOVE_LIMIT:
+                return "draw, move limit reached";
+            case DRAW_REPETITION:
+                return "draw, the same position keeps repeating";
+            case STALEMATE:
+                return "stalemate, no legal moves";
+            default:
+                return "game in progress";
+        }
+    }
+
+    /**
+     * Show the opponent's inferred move and flag cells where the detection
+     * contradicts the expected board, e.g. a dropped marble
+     */
+    private void reportReconciliation(BoardWorldModel.Reconciliation reconciliation) {
+        if (reconciliation.opponentMove != null) {
+            tvAIResponse.append("\n" + reconciliation.opponentMove);
+        }
+        if (reconciliation.isConsistent()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("\nBoard check found ")
+                .append(reconciliation.discrepancies.size()).append(" problem(s):");
+        for (BoardWorldModel.Discrepancy discrepancy : reconciliation.discrepancies) {
+            message.append("\n  ").append(discrepancy);
+        }
+        tvAIResponse.append(message.toString());
+        Toast.makeText(requireContext(),
+                "Board differs from expected, check the marbles",
+                Toast.LENGTH_LONG).show();
+    }
+
+    /**
+     * Refit the camera-to-robot homography from the cell centres of a detection
+     */
+    private void updateHandEyeCalibration(MarbleObservations observations) {
+        marbleObservations = observations;
+        if (observations == null) {
+            return;
+        }
+        try {
+            handEyeCalibration = HandEyeCalibration.fit(observations,
+                    BoardCoordinatesAdapter.getInstance().getTable());
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Hand-eye calibration failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Move the pickup onto the marble if the camera saw it off the cell centre
+     */
+    private CellCoordinate correctGraspTarget(CellCoordinate nominal, int boardX, int boardY,
+                                              MarbleObservations observations) {
+        HandEyeCalibration calibration = handEyeCalibration;
+        if (calibration == null || observations == null) {
+            return nominal;
+        }
+        CellCoordinate corrected = calibration.correctGrasp(nominal, boardX, boardY, observations);
+        if (corrected != nominal) {
+            updateProgress(String.format(Locale.US, "Grasp adjusted to marble at (X=%.2f, Y=%.2f)",
+                    corrected.getX(), corrected.getY()));
+        }
+        return corrected;
+    }
+
     private Bitmap imageProxyToBitmap(ImageProxy image) {
         ImageProxy.PlaneProxy[] planes = image.getPlanes();
         if (planes.length > 0) {
@@ -591,26 +786,97 @@ public class IntegratedAIGameFragment extends Fragment {
     }
 
     private void getAIMove() {
+        if (gameOutcome.isOver()) {
+            safeRunOnUiThread(() -> tvAIResponse.setText("Game over: " + describeOutcome(gameOutcome)));
+            return;
+        }
+        // Do not plan on a board that cannot follow from the last one
+        BoardWorldModel.Reconciliation reconciliation = lastReconciliation;
+        if (reconciliation != null && !reconciliation.isAcceptable()) {
+            safeRunOnUiThread(() -> tvAIResponse.setText("Board does not follow from the last one ("
+                    + reconciliation.opponentMove + ").\nFix the marbles and detect the board again."));
+            return;
+        }
         btnGetAIMove.setEnabled(false);
         safeRunOnUiThread(() -> tvAIResponse.setText("Requesting AI move..."));
 
-        try {
-            List<String> convertedBoard = new ArrayList<>();
-            for (String row : currentBoardState) {
-                convertedBoard.add(row.replace('G','O').replace('R','X'));
+        // Once the armies have passed each other the race is solved exactly on the device
+        final BoardState requestState = currentBoardState;
+        if (!RaceSolver.isDisengaged(requestState)) {
+            lookUpAIMove(requestState);
+            return;
+        }
+        safeRunOnUiThread(() -> tvAIResponse.setText("Solving the race to the finish..."));
+        new Thread(() -> {
+            int[] path = raceSolver.solve(requestState, AI_COLOUR, RACE_BUDGET_MS, reachableCells());
+            if (path == null) {
+                safeRunOnUiThread(() -> tvAIResponse.setText("Requesting AI move..."));
+                lookUpAIMove(requestState);
+                return;
             }
+            String searchInfo = raceSolver.describeLastSearch();
+            JSONArray moveSeq = toMoveSequence(path);
+            safeRunOnUiThread(() -> {
+                btnGetAIMove.setEnabled(true);
+                lastRecommendedMoveSequence = moveSeq;
+                tvAIResponse.setText("AI Move Sequence (" + searchInfo + "): " + moveSeq.toString());
+                btnExecuteMove.setEnabled(true);
+            });
+        }).start();
+    }
 
-            JSONArray boardStateJson = new JSONArray();
-            for (String row : convertedBoard) {
-                boardStateJson.put(row);
+    /**
+     * Opening positions are answered from the book, then positions seen before
+     * from the cache, the rest by the server or the on-device engines. Book and
+     * cache hold the best move only, so one the arm cannot reach counts as a miss.
+     */
+    private void lookUpAIMove(BoardState requestState) {
+        boolean[] reachable = reachableCells();
+        OpeningBook book = openingBook;
+        int[] bookMove = book == null ? null : book.lookup(requestState, AI_COLOUR);
+        if (bookMove != null && !isReachable(bookMove, reachable)) {
+            Log.d(TAG, "Book move has a cell the arm cannot reach, searching instead");
+            bookMove = null;
+        }
+        if (bookMove != null) {
+            JSONArray moveSeq = toMoveSequence(bookMove);
+            safeRunOnUiThread(() -> {
+                btnGetAIMove.setEnabled(true);
+                lastRecommendedMoveSequence = moveSeq;
+                tvAIResponse.setText("AI Move Sequence (opening book): " + moveSeq.toString());
+                btnExecuteMove.setEnabled(true);
+            });
+            return;
+        }
+        moveCache.lookup(requestState, AI_COLOUR, cached -> {
+            if (cached == null || !isReachable(cached, reachable)) {
+                if (aiMode == AIMode.ON_DEVICE || aiMode == AIMode.ON_DEVICE_MCTS) {
+                    runLocalEngine(requestState, null);
+                } else {
+                    requestAIMove(requestState);
+                }
+                return;
             }
+            JSONArray moveSeq = toMoveSequence(cached);
+            safeRunOnUiThread(() -> {
+                btnGetAIMove.setEnabled(true);
+                lastRecommendedMoveSequence = moveSeq;
+                tvAIResponse.setText("AI Move Sequence (cached): " + moveSeq.toString());
+                btnExecuteMove.setEnabled(true);
+            });
+            Log.d(TAG, moveCache.getStats());
+        });
+    }
 
+    private void requestAIMove(BoardState requestState) {
+        try {
             JSONObject jsonPayload = new JSONObject();
-            jsonPayload.put("board_state", boardStateJson);
-            jsonPayload.put("is_player1", false);
-            jsonPayload.put("depth", 3);
-            jsonPayload.put("eval_func", 1);
+            jsonPayload.put("board_state", requestState.toAiJson());
+            jsonPayload.put("is_player1", AI_IS_PLAYER1);
+            jsonPayload.put("depth", AI_DEPTH);
+            jsonPayload.put("eval_func", AI_EVAL_FUNC);
             jsonPayload.put("use_heuristic", true);
+            jsonPayload.put("top_k", AI_TOP_K);
 
 //            String url = "http://" + serverIp + ":" + AI_PORT + "/get_ai_move";
             String url = "https://chinesecheckerrobot-zu9g.onrender.com/get_ai_move";
@@ -620,9 +886,20 @@ public class IntegratedAIGameFragment extends Fragment {
                     .post(RequestBody.create(jsonPayload.toString(), JSON))
                     .build();
 
-            client.newCall(request).enqueue(new Callback() {
+            OkHttpClient httpClient = aiMode == AIMode.REMOTE_WITH_FALLBACK ? fallbackClient : client;
+            Call aiCall = httpClient.newCall(request);
+            aiMoveCall = aiCall;
+            aiCall.enqueue(new Callback() {
                 @Override
                 public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    // Also reached when onDestroy cancels the call
+                    if (!isAdded()) {
+                        return;
+                    }
+                    if (aiMode == AIMode.REMOTE_WITH_FALLBACK) {
+                        runLocalEngine(requestState, "AI server unreachable: " + e.getMessage());
+                        return;
+                    }
                     safeRunOnUiThread(() -> {
                         btnGetAIMove.setEnabled(true);
                         tvAIResponse.setText("Error: " + e.getMessage());
@@ -634,14 +911,29 @@ public class IntegratedAIGameFragment extends Fragment {
 
                 @Override
                 public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
+                    if (!isAdded()) {
+                        response.close();
+                        return;
+                    }
                     final String responseData = response.body().string();
+                    if (!response.isSuccessful() && aiMode == AIMode.REMOTE_WITH_FALLBACK) {
+                        runLocalEngine(requestState, "AI server returned HTTP " + response.code());
+                        return;
+                    }
                     safeRunOnUiThread(() -> {
                         btnGetAIMove.setEnabled(true);
                         try {
                             JSONObject jsonResponse = new JSONObject(responseData);
                             String status = jsonResponse.optString("status", "error");
                             if ("success".equals(status)) {
-                                JSONArray moveSeq = jsonResponse.getJSONArray("move_sequence");
+                                cacheAIMove(requestState, jsonResponse.getJSONArray("move_sequence"));
+                                JSONArray moveSeq = chooseExecutableMove(requestState, jsonResponse);
+                                if (moveSeq == null) {
+                                    tvAIResponse.setText("None of the AI's moves can be reached by the arm."
+                                            + "\nCheck the calibration, or move a marble by hand.");
+                                    btnExecuteMove.setEnabled(false);
+                                    return;
+                                }
                                 lastRecommendedMoveSequence = moveSeq;
                                 tvAIResponse.setText("AI Move Sequence: " + moveSeq.toString());
                                 btnExecuteMove.setEnabled(true);
@@ -658,11 +950,177 @@ public class IntegratedAIGameFragment extends Fragment {
                 }
             });
         } catch (JSONException e) {
-            btnGetAIMove.setEnabled(true);
-            safeRunOnUiThread(() -> tvAIResponse.setText("Error creating JSON payload: " + e.getMessage()));
+            safeRunOnUiThread(() -> {
+                btnGetAIMove.setEnabled(true);
+                tvAIResponse.setText("Error creating JSON payload: " + e.getMessage());
+            });
         }
     }
 
+    /**
+     * Search on the device in the background and offer the move like a server move
+     * @param reason why the server was not used, or null
+     */
+    private void runLocalEngine(BoardState requestState, String reason) {
+        // The server fallback always uses alpha-beta, closest to the server's own search
+        MoveEngine engine = aiMode == AIMode.ON_DEVICE_MCTS ? mctsEngine : alphaBetaEngine;
+        long budgetMs = localBudgetMs;
+        safeRunOnUiThread(() -> tvAIResponse.setText((reason == null ? "" : reason + "\n")
+                + "Searching on the device (" + engine.getName() + ")..."));
+        new Thread(() -> {
+            int[] path = engine.findMove(requestState, AI_COLOUR, budgetMs, reachableCells());
+            String searchInfo = engine.describeLastSearch();
+            safeRunOnUiThread(() -> {
+                btnGetAIMove.setEnabled(true);
+                if (path == null) {
+                    tvAIResponse.setText("No valid moves the arm can reach. Your turn!");
+                    btnExecuteMove.setEnabled(false);
+                    return;
+                }
+                JSONArray moveSeq = toMoveSequence(path);
+                lastRecommendedMoveSequence = moveSeq;
+                tvAIResponse.setText("AI Move Sequence (" + searchInfo + "): " + moveSeq.toString());
+                btnExecuteMove.setEnabled(true);
+            });
+        }).start();
+    }
+
+    private void showAIModeDialog() {
+        AIMode[] modes = AIMode.values();
+        String[] labels = new String[modes.length];
+        for (int i = 0; i < modes.length; i++) {
+            labels[i] = modes[i].label;
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle("AI moves from")
+                .setSingleChoiceItems(labels, aiMode.ordinal(), (d, which) -> {
+                    aiMode = modes[which];
+                    Toast.makeText(requireContext(), "AI moves from: " + aiMode.label, Toast.LENGTH_SHORT).show();
+                    d.dismiss();
+                    if (aiMode != AIMode.REMOTE) {
+                        showLocalBudgetDialog();
+                    }
+                })
+                .setNegativeButton("Cancel", (d, which) -> d.dismiss())
+                .show();
+    }
+
+    /**
+     * On-device search time per move; both engines play stronger with more
+     */
+    private void showLocalBudgetDialog() {
+        String[] labels = new String[LOCAL_BUDGETS_MS.length];
+        int checked = 0;
+        for (int i = 0; i < LOCAL_BUDGETS_MS.length; i++) {
+            labels[i] = (LOCAL_BUDGETS_MS[i] / 1000) + " s per move";
+            if (LOCAL_BUDGETS_MS[i] == localBudgetMs) {
+                checked = i;
+            }
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle("On-device thinking time")
+                .setSingleChoiceItems(labels, checked, (d, which) -> {
+                    localBudgetMs = LOCAL_BUDGETS_MS[which];
+                    d.dismiss();
+                })
+                .setNegativeButton("Cancel", (d, which) -> d.dismiss())
+                .show();
+    }
+
+    /**
+     * Best of the server's candidate moves that is legal on the board and has an
+     * arm position for every cell; servers without top_k send only move_sequence
+     * @return the move sequence, or null if the arm can execute none of them
+     */
+    private JSONArray chooseExecutableMove(BoardState requestState, JSONObject response) throws JSONException {
+        JSONArray candidates = response.optJSONArray("candidates");
+        if (candidates == null || candidates.length() == 0) {
+            candidates = new JSONArray().put(new JSONObject()
+                    .put("move_sequence", response.getJSONArray("move_sequence")));
+        }
+        BoardCoordinatesAdapter adapter = BoardCoordinatesAdapter.getInstance();
+        for (int i = 0; i < candidates.length(); i++) {
+            JSONArray moveSeq = candidates.getJSONObject(i).getJSONArray("move_sequence");
+            int[] xs = new int[moveSeq.length()];
+            int[] ys = new int[moveSeq.length()];
+            boolean mapped = true;
+            for (int j = 0; j < moveSeq.length(); j++) {
+                JSONObject coordObj = moveSeq.getJSONObject(j);
+                xs[j] = coordObj.getInt("x");
+                ys[j] = coordObj.getInt("y");
+                mapped &= adapter.isMapped(xs[j], ys[j]);
+            }
+            if (!mapped) {
+                Log.d(TAG, "Skipping AI candidate " + i + ", a cell has no arm position: " + moveSeq);
+                continue;
+            }
+            String illegal = MoveValidator.validate(requestState, xs, ys, xs.length, AI_COLOUR);
+            if (illegal != null) {
+                Log.w(TAG, "Skipping AI candidate " + i + ": " + illegal);
+                continue;
+            }
+            return moveSeq;
+        }
+        return null;
+    }
+
+    /**
+     * Cache the server's best move, if it is legal on the board it was computed
+     * for. It is cached even if the arm cannot reach it: reachability depends on
+     * the calibration and is checked on lookup.
+     */
+    private void cacheAIMove(BoardState requestState, JSONArray moveSeq) throws JSONException {
+        int[] xs = new int[moveSeq.length()];
+        int[] ys = new int[moveSeq.length()];
+        int[] cells = new int[moveSeq.length()];
+        for (int i = 0; i < moveSeq.length(); i++) {
+            JSONObject coordObj = moveSeq.getJSONObject(i);
+            xs[i] = coordObj.getInt("x");
+            ys[i] = coordObj.getInt("y");
+            cells[i] = BoardGeometry.STANDARD.cellId(xs[i], ys[i]);
+        }
+        if (MoveValidator.validate(requestState, xs, ys, xs.length, AI_COLOUR) == null) {
+            moveCache.put(requestState, AI_COLOUR, cells);
+        }
+    }
+
+    /**
+     * Cells the arm has a calibrated position for, by cell id
+     */
+    private static boolean[] reachableCells() {
+        BoardCoordinatesAdapter adapter = BoardCoordinatesAdapter.getInstance();
+        boolean[] reachable = new boolean[BoardState.CELL_COUNT];
+        for (int id = 0; id < reachable.length; id++) {
+            reachable[id] = adapter.isMapped(BoardGeometry.STANDARD.getCellX(id), BoardGeometry.STANDARD.getCellY(id));
+        }
+        return reachable;
+    }
+
+    private static boolean isReachable(int[] cells, boolean[] reachable) {
+        for (int cell : cells) {
+            if (!reachable[cell]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static JSONArray toMoveSequence(int[] cells) {
+        JSONArray moveSeq = new JSONArray();
+        try {
+            for (int cell : cells) {
+                JSONObject coordObj = new JSONObject();
+                coordObj.put("x", BoardGeometry.STANDARD.getCellX(cell));
+                coordObj.put("y", BoardGeometry.STANDARD.getCellY(cell));
+                moveSeq.put(coordObj);
+            }
+        } catch (JSONException e) {
+            // Only thrown for non-finite numbers
+            throw new IllegalStateException(e);
+        }
+        return moveSeq;
+    }
+
     private void executeAIMoveSequence(JSONArray moveSequence) {
         Log.d(TAG, "executeAIMoveSequence called");
         Toast.makeText(requireContext(), "Executing AI move...", Toast.LENGTH_SHORT).show();
@@ -677,35 +1135,87 @@ public class IntegratedAIGameFragment extends Fragment {
         try {
             isMoving = true;
             updateAutoPlayButtonState();
+            final MarbleObservations observations = marbleObservations;
+            final BoardState boardState = currentBoardState;
 
             new Thread(() -> {
                 try {
-                    List<CellCoordinate> path = new ArrayList<>();
-                    for (int i = 0; i < moveSequence.length(); i++) {
+                    int count = moveSequence.length();
+                    int[] pathXs = new int[count];
+                    int[] pathYs = new int[count];
+                    for (int i = 0; i < count; i++) {
                         JSONObject coordObj = moveSequence.getJSONObject(i);
-                        int boardX = coordObj.getInt("x");
-                        int boardY = coordObj.getInt("y");
-                        CellCoordinate cell = BoardCoordinatesAdapter.getInstance().getBoardCellCoordinate(boardX, boardY);
-                        if (cell != null) {
-                            path.add(cell);
-                        } else {
-                            Log.e(TAG, "No mapping for (" + boardX + "," + boardY + ")");
-                        }
+                        pathXs[i] = coordObj.getInt("x");
+                        pathYs[i] = coordObj.getInt("y");
                     }
-                    if (path.size() < 2) {
+                    // Refuse an illegal sequence before the arm moves anything
+                    String illegal = boardState == null ? null
+                            : MoveValidator.validate(boardState, pathXs, pathYs, count, AI_COLOUR);
+                    if (illegal != null) {
+                        Log.w(TAG, "Rejected move sequence: " + illegal);
                         safeRunOnUiThread(() -> {
                             isMoving = false;
                             updateAutoPlayButtonState();
                             btnExecuteMove.setEnabled(true);
-                            tvAIResponse.append("\nError: Path must have at least 2 points");
+                            tvAIResponse.append("\nError: Illegal move, " + illegal);
                         });
                         return;
                     }
-                    safeRunOnUiThread(() -> tvAIResponse.append("\nPath created with " + path.size() + " points"));
+                    // The whole sequence is resolved against one table, or not at all:
+                    // skipping a cell would carry the marble along a different, truncated path
+                    float[] robotXs = new float[count];
+                    float[] robotYs = new float[count];
+                    float[] robotZs = new float[count];
+                    float[] torques = new float[count];
+                    int resolved = BoardCoordinatesAdapter.getInstance().resolvePath(
+                            pathXs, pathYs, count, robotXs, robotYs, robotZs, torques);
+                    if (resolved < 0) {
+                        int missing = -resolved - 1;
+                        Log.e(TAG, "No mapping for (" + pathXs[missing] + "," + pathYs[missing] + ")");
+                        safeRunOnUiThread(() -> {
+                            isMoving = false;
+                            updateAutoPlayButtonState();
+                            btnExecuteMove.setEnabled(true);
+                            tvAIResponse.append(String.format(Locale.US,
+                                    "\nError: No arm position for (%d,%d), refusing a partial move",
+                                    pathXs[missing], pathYs[missing]));
+                        });
+                        return;
+                    }
+                    List<CellCoordinate> path = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        path.add(new CellCoordinate(BoardGeometry.STANDARD.gridXOf(pathXs[i], pathYs[i]), pathYs[i],
+                                robotXs[i], robotYs[i], robotZs[i], torques[i], true));
+                    }
+                    path.set(0, correctGraspTarget(path.get(0), pathXs[0], pathYs[0], observations));
+                    int estimateMs = TravelTimeMatrix.getInstance().getPathTimeMs(pathXs, pathYs, count);
+                    safeRunOnUiThread(() -> tvAIResponse.append("\nPath created with " + path.size() + " points"
+                            + (estimateMs >= 0 ? String.format(Locale.US, ", arm travel about %.1fs", estimateMs / 1000f) : "")));
                     robotController.reset();
                     Thread.sleep(2000);
 
-                    boolean success = executeMove(path);
+                    robotController.getVerificationPolicy().beginTurn();
+                    boolean success = executeMove(path, pathXs[count - 1], pathYs[count - 1]);
+                    VerificationPolicy.TurnStats turnStats = robotController.getVerificationPolicy().endTurn();
+                    updateProgress(turnStats.toString());
+                    if (success) {
+                        JSONObject first = moveSequence.getJSONObject(0);
+                        JSONObject last = moveSequence.getJSONObject(moveSequence.length() - 1);
+                        ClearancePlanner.getInstance().applyMove(
+                                first.getInt("x"), first.getInt("y"),
+                                last.getInt("x"), last.getInt("y"));
+                        worldModel.applyRobotMove(
+                                first.getInt("x"), first.getInt("y"),
+                                last.getInt("x"), last.getInt("y"));
+                        gameEndDetector.recordRobotMove();
+                        BoardState expected = worldModel.getExpected();
+                        GameEndDetector.Outcome outcome = expected == null ? GameEndDetector.Outcome.IN_PROGRESS
+                                : GameEndDetector.evaluate(expected, OPPONENT_COLOUR);
+                        if (outcome.isOver()) {
+                            gameOutcome = outcome;
+                            updateProgress("Game over: " + describeOutcome(outcome));
+                        }
+                    }
                     safeRunOnUiThread(() -> {
                         isMoving = false;
                         updateAutoPlayButtonState();
@@ -742,18 +1252,22 @@ public class IntegratedAIGameFragment extends Fragment {
         }
         // Clear the current board state so autoPlay can restart fresh next time
         currentBoardState = null;
+        marbleObservations = null;
     }
 
     /**
      * Executes the robot move along the given path.
      * Retries a step (by decrementing the loop counter) if moveToAndWait() fails.
+     * Gripper waits come from the overlap scheduler: the arm moves on as soon as
+     * the jaws pass the lift threshold, and with overlap enabled the gripper
+     * opens during the final descent.
      */
-    private boolean executeMove(List<CellCoordinate> path) {
-        final int GRIPPER_WAIT_MS = 3000;
+    private boolean executeMove(List<CellCoordinate> path, int targetBoardX, int targetBoardY) {
+        GripperOverlapScheduler gripperScheduler = robotController.getGripperScheduler();
         try {
             // Step 1: Move to the first coordinate (pick up)
             CellCoordinate origin = path.get(0);
-            if (!moveToAndWait(origin)) {
+            if (!moveToAndWait(origin, VerificationPolicy.SegmentType.GRASP)) {
 //                return false;
                 updateProgress("Warning: Failed to reach pickup position accurately. Attempting to continue anyway.");
             }
@@ -762,7 +1276,7 @@ public class IntegratedAIGameFragment extends Fragment {
             // Step 2: Close gripper (grab)
             updateProgress("Grabbing marble...");
             robotController.controlGripper(true);
-            Thread.sleep(GRIPPER_WAIT_MS);
+            gripperScheduler.awaitLiftThreshold();
 
             //step 2.5, make torque to 0
 //            robotController.setTorque(1.2f);
@@ -770,9 +1284,16 @@ public class IntegratedAIGameFragment extends Fragment {
 //            Thread.sleep(2000);
 
             // Step 3: Move through the remaining coordinates
+            boolean overlap = gripperScheduler.isOverlapEnabled();
             for (int i = 1; i < path.size(); i++) {
                 // If a move fails, retry this step by decrementing i
-                if (!moveToAndWait(path.get(i))) {
+                boolean last = i == path.size() - 1;
+                boolean reached = last && overlap
+                        ? moveAboveAndWait(path.get(i))
+                        : moveToAndWait(path.get(i), last
+                                ? VerificationPolicy.SegmentType.RELEASE
+                                : VerificationPolicy.SegmentType.TRANSIT);
+                if (!reached) {
 //                    i--;
                     //tentatively we dont retry
                     updateProgress("Warning: Failed to reach target position：" + i+". Attempting to continue anyway.");
@@ -780,9 +1301,16 @@ public class IntegratedAIGameFragment extends Fragment {
             }
 
             // Step 4: Release gripper (drop)
-            updateProgress("Releasing marble...");
-            robotController.controlGripper(false);
-            Thread.sleep(GRIPPER_WAIT_MS);
+            CellCoordinate target = path.get(path.size() - 1);
+            if (overlap) {
+                updateProgress("Releasing marble during descent...");
+                robotController.descendAndRelease(target);
+            } else {
+                updateProgress("Releasing marble...");
+                robotController.controlGripper(false);
+            }
+            gripperScheduler.awaitLiftThreshold();
+            checkPlacement(targetBoardX, targetBoardY);
 
             // Step 5: Return home
             updateProgress("Returning home...");
@@ -803,16 +1331,47 @@ public class IntegratedAIGameFragment extends Fragment {
     }
 
     /**
-     * Moves to the given coordinate and waits until movement is verified.
+     * Warn if the arm released the marble over a different cell than planned,
+     * or too far from the cell centre for the marble to settle in its hole.
      */
-    private boolean moveToAndWait(CellCoordinate coord) {
-        final CountDownLatch latch = new CountDownLatch(1);
-        final AtomicBoolean success = new AtomicBoolean(false);
+    private void checkPlacement(int boardX, int boardY) {
+        CellSpatialIndex.Match match = robotController.locateArm();
+        if (match == null) {
+            updateProgress("Could not check placement: no position feedback");
+            return;
+        }
+        boolean sameCell = match.boardX == boardX && match.boardY == boardY;
+        if (!sameCell || match.distance > MISPLACEMENT_TOLERANCE_MM) {
+            updateProgress("Warning: possible misplacement, released near " + match);
+        } else {
+            Log.d(TAG, "Placement confirmed at " + match);
+        }
+    }
 
+    /**
+     * Moves to the given coordinate and waits until movement is complete.
+     * Whether it is verified with position feedback depends on the segment type.
+     */
+    private boolean moveToAndWait(CellCoordinate coord, VerificationPolicy.SegmentType segmentType) {
         updateProgress(String.format("Moving to (X=%.2f, Y=%.2f, Z=%.2f)...", coord.getX(), coord.getY(), coord.getZ()));
+        return awaitMovement(callback -> robotController.executeMovement(
+                coord.getX(), coord.getY(), coord.getZ(), coord.getTorque(), segmentType, callback));
+    }
+
+    /**
+     * Moves to the verified hover position above a cell, ready for an
+     * overlapped release, and waits until movement is complete.
+     */
+    private boolean moveAboveAndWait(CellCoordinate coord) {
+        updateProgress(String.format("Moving above (X=%.2f, Y=%.2f)...", coord.getX(), coord.getY()));
+        return awaitMovement(callback -> robotController.moveAbove(coord, true, callback));
+    }
+
+    private boolean awaitMovement(Function<RobotController.MovementCallback, CompletableFuture<Boolean>> movement) {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicBoolean success = new AtomicBoolean(false);
 
-        CompletableFuture<Boolean> fut = robotController.executeVerifiedMovement(
-                coord.getX(), coord.getY(), coord.getZ(), coord.getTorque(),
+        movement.apply(
                 new RobotController.MovementCallback() {
                     @Override
                     public void onSuccess() {
@@ -904,6 +1463,8 @@ public class IntegratedAIGameFragment extends Fragment {
         sb.append("Debug Info:\n");
         sb.append("Server IP: ").append(serverIp).append("\n");
         sb.append("Robot IP: ").append(robotIp).append("\n");
+        sb.append("AI mode: ").append(aiMode.label).append(", ")
+                .append(localBudgetMs / 1000).append(" s on device\n");
         sb.append("isMoving: ").append(isMoving).append("\n");
         sb.append("hasEmptyBoard: ").append(hasEmptyBoard).append("\n");
         safeRunOnUiThread(() -> tvMappedPosition.setText(sb.toString()));
@@ -911,6 +1472,282 @@ public class IntegratedAIGameFragment extends Fragment {
         Toast.makeText(requireContext(), "Debug info displayed", Toast.LENGTH_SHORT).show();
     }
 
+    // ------------------------------------------------------------------
+    //  Calibration
+    // ------------------------------------------------------------------
+
+    private void showCalibrationDialog() {
+        if (isMoving) {
+            Toast.makeText(requireContext(), "Robot is currently moving. Please wait.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] items = {"Speed sweep", "Teach point at arm position",
+                "Fit board from taught points", "Restore hand-taught mapping",
+                "Save mapping as profile", "Load profile", "Probe surface heights"};
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Calibration")
+                .setItems(items, (d, which) -> {
+                    if (which == 0) {
+                        runSpeedCalibration();
+                    } else if (which == 1) {
+                        showBoardCoordsDialog("Teach Board Cell", this::teachPoint);
+                    } else if (which == 2) {
+                        fitCalibrationModel();
+                    } else if (which == 3) {
+                        profileStore.clearActive();
+                        BoardCoordinatesAdapter.getInstance().restoreDefaultTable();
+                        Toast.makeText(requireContext(), "Hand-taught mapping restored", Toast.LENGTH_SHORT).show();
+                    } else if (which == 4) {
+                        showSaveProfileDialog();
+                    } else if (which == 5) {
+                        showLoadProfileDialog();
+                    } else if (which == 6) {
+                        runSurfaceProbe();
+                    }
+                })
+                .setNegativeButton("Cancel", (d, which) -> d.dismiss())
+                .show();
+    }
+
+    private void loadSpeedProfile() {
+        File file = new File(requireContext().getFilesDir(), SpeedProfile.FILE_NAME);
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            robotController.setSpeedProfile(SpeedProfile.load(file));
+            Log.d(TAG, "Loaded speed profile from " + file);
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Failed to load speed profile", e);
+        }
+    }
+
+    private void loadCalibrationModel(File file) {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            List<CalibrationModel.TaughtPoint> points = CalibrationModel.loadTaughtPoints(file);
+            synchronized (taughtPoints) {
+                taughtPoints.clear();
+                taughtPoints.addAll(points);
+            }
+            if (points.size() >= CalibrationModel.MIN_POINTS) {
+                BoardCoordinatesAdapter.getInstance().applyCalibration(CalibrationModel.fit(points));
+                Log.d(TAG, "Applied calibration from " + points.size() + " taught points");
+            }
+        } catch (IOException | JSONException | IllegalArgumentException e) {
+            Log.e(TAG, "Failed to load taught points", e);
+        }
+    }
+
+    /**
+     * Active profile wins over taught points, it is what the user picked last
+     */
+    private void loadActiveProfile() {
+        String active = profileStore.getActiveName();
+        if (active == null) {
+            return;
+        }
+        try {
+            BoardCoordinatesAdapter.getInstance().setTable(profileStore.load(active));
+            Log.d(TAG, "Loaded calibration profile " + active);
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e(TAG, "Failed to load calibration profile " + active, e);
+        }
+    }
+
+    private void showSaveProfileDialog() {
+        EditText input = new EditText(requireContext());
+        input.setInputType(InputType.TYPE_CLASS_TEXT);
+        input.setHint("Profile name, e.g. lab_table_1");
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Save Calibration Profile")
+                .setView(input)
+                .setPositiveButton("Save", (d, which) -> {
+                    String name = input.getText().toString().trim();
+                    CoordinateTable table = BoardCoordinatesAdapter.getInstance().getTable();
+                    new Thread(() -> {
+                        try {
+                            profileStore.save(name, table);
+                            safeRunOnUiThread(() -> tvMappedPosition.setText("Saved calibration profile " + name));
+                        } catch (IOException | IllegalArgumentException e) {
+                            Log.e(TAG, "Failed to save calibration profile", e);
+                            safeRunOnUiThread(() -> tvMappedPosition.setText("Save failed: " + e.getMessage()));
+                        }
+                    }).start();
+                })
+                .setNegativeButton("Cancel", (d, which) -> d.dismiss())
+                .show();
+    }
+
+    private void showLoadProfileDialog() {
+        List<String> names = profileStore.listProfiles();
+        if (names.isEmpty()) {
+            Toast.makeText(requireContext(), "No calibration profiles saved", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Load Calibration Profile")
+                .setItems(names.toArray(new String[0]), (d, which) ->
+                        profileStore.activate(names.get(which), new CalibrationProfileStore.ProfileCallback() {
+                            @Override
+                            public void onLoaded(String name, CoordinateTable table) {
+                                safeRunOnUiThread(() -> tvMappedPosition.setText(
+                                        "Calibration profile " + name + " active (" + table.getMappedCount() + " cells)"));
+                            }
+
+                            @Override
+                            public void onFailure(String errorMessage) {
+                                safeRunOnUiThread(() -> tvMappedPosition.setText(
+                                        "Failed to load profile: " + errorMessage));
+                            }
+                        }))
+                .setNegativeButton("Cancel", (d, which) -> d.dismiss())
+                .show();
+    }
+
+    /**
+     * Record the arm's current position as the true coordinate of a board cell.
+     * Jog the arm onto the cell first.
+     */
+    private void teachPoint(int boardX, int boardY) {
+        new Thread(() -> {
+            JSONObject feedback = robotController.getPositionFeedback();
+            if (feedback == null) {
+                safeRunOnUiThread(() -> tvMappedPosition.setText("Teach failed: no position feedback"));
+                return;
+            }
+            try {
+                CalibrationModel.TaughtPoint point = new CalibrationModel.TaughtPoint(boardX, boardY,
+                        (float) feedback.getDouble("x"), (float) feedback.getDouble("y"),
+                        (float) feedback.getDouble("z"), (float) feedback.getDouble("t"));
+                int count;
+                synchronized (taughtPoints) {
+                    // Re-teaching a cell replaces its old point
+                    for (int i = taughtPoints.size() - 1; i >= 0; i--) {
+                        CalibrationModel.TaughtPoint old = taughtPoints.get(i);
+                        if (old.boardX == boardX && old.boardY == boardY) {
+                            taughtPoints.remove(i);
+                        }
+                    }
+                    taughtPoints.add(point);
+                    count = taughtPoints.size();
+                }
+                String info = String.format(Locale.US, "Taught (%d,%d) at (X=%.2f, Y=%.2f, Z=%.2f, T=%.2f), %d points",
+                        boardX, boardY, point.x, point.y, point.z, point.torque, count);
+                Log.d(TAG, info);
+                safeRunOnUiThread(() -> tvMappedPosition.setText(info));
+            } catch (JSONException e) {
+                Log.e(TAG, "Error parsing position data", e);
+                safeRunOnUiThread(() -> tvMappedPosition.setText("Teach failed: " + e.getMessage()));
+            }
+        }).start();
+    }
+
+    private void fitCalibrationModel() {
+        List<CalibrationModel.TaughtPoint> points;
+        synchronized (taughtPoints) {
+            points = new ArrayList<>(taughtPoints);
+        }
+        try {
+            CalibrationModel model = CalibrationModel.fit(points);
+            BoardCoordinatesAdapter.getInstance().applyCalibration(model);
+            CalibrationModel.saveTaughtPoints(points,
+                    new File(requireContext().getFilesDir(), CalibrationModel.FILE_NAME));
+            String info = String.format(Locale.US, "Board fitted from %d points, RMS error %.2fmm",
+                    points.size(), model.getRmsErrorMm());
+            Log.d(TAG, info);
+            tvMappedPosition.setText(info);
+        } catch (IllegalArgumentException e) {
+            tvMappedPosition.setText("Fit failed: " + e.getMessage());
+        } catch (IOException | JSONException e) {
+            Log.e(TAG, "Failed to save taught points", e);
+        }
+    }
+
+    /**
+     * Probe the board surface and replace every cell's Z with the interpolated
+     * height plus the grasp offset the current table uses at the probed cells
+     */
+    private void runSurfaceProbe() {
+        isMoving = true;
+        updateAutoPlayButtonState();
+        safeRunOnUiThread(() -> tvMappedPosition.setText("Probing surface, probe cells must be empty..."));
+
+        new SurfaceProber(robotController).start(new SurfaceProber.ProbeCallback() {
+            @Override
+            public void onProgress(String status) {
+                safeRunOnUiThread(() -> tvMappedPosition.append("\n" + status));
+            }
+
+            @Override
+            public void onComplete(SurfaceHeightMap heightMap) {
+                BoardCoordinatesAdapter adapter = BoardCoordinatesAdapter.getInstance();
+                CoordinateTable table = adapter.getTable();
+                float offset = heightMap.graspOffsetFrom(table);
+                adapter.setTable(heightMap.applyTo(table, offset));
+                String info = String.format(Locale.US, "%s, grasp offset %.2fmm. Save as a profile to keep it.",
+                        heightMap, offset);
+                Log.d(TAG, info);
+                safeRunOnUiThread(() -> {
+                    isMoving = false;
+                    updateAutoPlayButtonState();
+                    tvMappedPosition.append("\n" + info);
+                });
+            }
+
+            @Override
+            public void onFailure(String errorMessage) {
+                safeRunOnUiThread(() -> {
+                    isMoving = false;
+                    updateAutoPlayButtonState();
+                    tvMappedPosition.append("\nSurface probing failed: " + errorMessage);
+                });
+            }
+        });
+    }
+
+    private void runSpeedCalibration() {
+        isMoving = true;
+        updateAutoPlayButtonState();
+        safeRunOnUiThread(() -> tvMappedPosition.setText("Running speed calibration..."));
+        File file = new File(requireContext().getFilesDir(), SpeedProfile.FILE_NAME);
+
+        new SpeedCalibrator(robotController, RobotController.DEFAULT_POSITION_TOLERANCE)
+                .start(new SpeedCalibrator.CalibrationCallback() {
+                    @Override
+                    public void onProgress(String status) {
+                        safeRunOnUiThread(() -> tvMappedPosition.append("\n" + status));
+                    }
+
+                    @Override
+                    public void onComplete(SpeedProfile profile) {
+                        robotController.setSpeedProfile(profile);
+                        try {
+                            profile.save(file);
+                        } catch (IOException | JSONException e) {
+                            Log.e(TAG, "Failed to save speed profile", e);
+                        }
+                        safeRunOnUiThread(() -> {
+                            isMoving = false;
+                            updateAutoPlayButtonState();
+                            tvMappedPosition.append("\nSpeed calibration complete.");
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(String errorMessage) {
+                        safeRunOnUiThread(() -> {
+                            isMoving = false;
+                            updateAutoPlayButtonState();
+                            tvMappedPosition.append("\nSpeed calibration failed: " + errorMessage);
+                        });
+                    }
+                });
+    }
+
     private void lookupAndMoveToPosition(int boardX, int boardY) {
         if (isMoving) {
             Toast.makeText(requireContext(), "Robot is currently moving. Please wait.", Toast.LENGTH_SHORT).show();
@@ -1120,7 +1957,11 @@ public class IntegratedAIGameFragment extends Fragment {
         });
     }
 
-    private void showBoardCoordsDialog() {
+    private interface BoardCellAction {
+        void onCell(int boardX, int boardY);
+    }
+
+    private void showBoardCoordsDialog(String title, BoardCellAction action) {
         // Inflate the dialog layout
         LayoutInflater inflater = LayoutInflater.from(requireContext());
         View dialogView = inflater.inflate(R.layout.dialog_board_coords, null);
@@ -1130,7 +1971,7 @@ public class IntegratedAIGameFragment extends Fragment {
 
         // Create a dialog
         AlertDialog dialog = new AlertDialog.Builder(requireContext())
-                .setTitle("Enter Board Coordinates")
+                .setTitle(title)
                 .setView(dialogView)
                 .setPositiveButton("OK", null)  // We'll override the click later
                 .setNegativeButton("Cancel", (d, which) -> d.dismiss())
@@ -1162,7 +2003,7 @@ public class IntegratedAIGameFragment extends Fragment {
 
                 // Pass the coordinates to your method that does the robot move
                 // or store them in your Fragment’s fields so you can use them later
-                lookupAndMoveToPosition(boardX, boardY);
+                action.onCell(boardX, boardY);
                 dialog.dismiss();
             } catch (NumberFormatException e) {
                 Toast.makeText(requireContext(), "Invalid numbers", Toast.LENGTH_SHORT).show();
@@ -0,0 +1,65 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.Arrays;
+
+/**
+ * Pixel positions reported by the detection server alongside the board state:
+ * the centre of every board cell found on the empty board, and the centroid of
+ * the marble seen in each occupied cell. Indexed like CoordinateTable; NaN
+ * where nothing was detected.
+ */
+public class MarbleObservations {
+
+    private final float[] cellPx = new float[CoordinateTable.SIZE];
+    private final float[] cellPy = new float[CoordinateTable.SIZE];
+    private final float[] marblePx = new float[CoordinateTable.SIZE];
+    private final float[] marblePy = new float[CoordinateTable.SIZE];
+
+    private MarbleObservations() {
+        Arrays.fill(cellPx, Float.NaN);
+        Arrays.fill(cellPy, Float.NaN);
+        Arrays.fill(marblePx, Float.NaN);
+        Arrays.fill(marblePy, Float.NaN);
+    }
+
+    /**
+     * Parse the server's "cell_pixels" and "marble_centroids": one array per row,
+     * each entry [x, y] or null
+     */
+    public static MarbleObservations fromJson(JSONArray cellPixels, JSONArray marbleCentroids) throws JSONException {
+        MarbleObservations observations = new MarbleObservations();
+        readRows(cellPixels, observations.cellPx, observations.cellPy);
+        readRows(marbleCentroids, observations.marblePx, observations.marblePy);
+        return observations;
+    }
+
+    private static void readRows(JSONArray rows, float[] xs, float[] ys) throws JSONException {
+        for (int boardY = 0; boardY < rows.length() && boardY < CoordinateTable.ROWS; boardY++) {
+            JSONArray row = rows.optJSONArray(boardY);
+            if (row == null) continue;
+            for (int boardX = 0; boardX < row.length() && boardX < CoordinateTable.MAX_ROW_WIDTH; boardX++) {
+                JSONArray point = row.optJSONArray(boardX);
+                if (point == null || point.length() < 2) continue;
+                int index = CoordinateTable.pack(boardX, boardY);
+                xs[index] = (float) point.getDouble(0);
+                ys[index] = (float) point.getDouble(1);
+            }
+        }
+    }
+
+    public boolean hasCellPixel(int index) {
+        return !Float.isNaN(cellPx[index]);
+    }
+
+    public boolean hasMarble(int index) {
+        return !Float.isNaN(marblePx[index]);
+    }
+
+    public float getCellPx(int index) { return cellPx[index]; }
+    public float getCellPy(int index) { return cellPy[index]; }
+    public float getMarblePx(int index) { return marblePx[index]; }
+    public float getMarblePy(int index) { return marblePy[index]; }
+}
@@ -0,0 +1,427 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-device Monte Carlo tree search player. Strength grows with the time
+ * budget instead of a fixed depth, and whatever has been found when the
+ * deadline passes is returned.
+ *
+ * Every worker on a fork-join pool walks the shared tree by UCT, expands one
+ * move, and plays the game on with a playout policy that mostly takes the move
+ * gaining the most ground, so long forward jumps are favoured. Playouts stop
+ * after a fixed number of plies and are scored from BoardEvaluator. A visit is
+ * counted on the way down, so workers spread over different branches.
+ *
+ * The tree is kept between turns: the next search starts from the node for the
+ * opponent's reply, if the tree reached it.
+ */
+public class MctsEngine implements MoveEngine {
+    private static final String TAG = "MctsEngine";
+
+    private static final double EXPLORATION = 0.7;
+    private static final int PLAYOUT_PLIES = 40;
+    // Chance a playout takes the best forward move rather than a random one
+    private static final double GREEDY_PLAYOUT = 0.85;
+    // Evaluation difference that makes a playout count as about three quarters of a win
+    private static final double SCORE_SCALE = 10.0;
+    private static final int MAX_NODES = 400_000;
+    private static final int MAX_TREE_DEPTH = 120;
+
+    private final ForkJoinPool pool;
+    private final int workers;
+
+    private Node root;
+    private int rootColour;
+    private volatile long deadline;
+    private final AtomicInteger nodeCount = new AtomicInteger();
+    private final AtomicLong playouts = new AtomicLong();
+    private String lastSearch = "no search yet";
+
+    /**
+     * A position reached by a move. Stats are for the player who made the move.
+     */
+    private static final class Node {
+        final int from;
+        final int to;
+        final long hash;
+        // Colour to move in this position
+        final int colour;
+        volatile int visits;
+        volatile double value;
+        // Moves from here, best forward move first; expanded in order
+        int[] froms;
+        int[] tos;
+        Node[] children;
+        int expanded;
+        boolean terminal;
+
+        Node(int from, int to, long hash, int colour) {
+            this.from = from;
+            this.to = to;
+            this.hash = hash;
+            this.colour = colour;
+        }
+    }
+
+    public MctsEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public MctsEngine(int workers) {
+        this.workers = Math.max(1, workers);
+        pool = new ForkJoinPool(this.workers);
+    }
+
+    @Override
+    public String getName() {
+        return "Monte Carlo";
+    }
+
+    @Override
+    public synchronized String describeLastSearch() {
+        return lastSearch;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public synchronized int[] findMove(BoardState state, int colour, long budgetMs, boolean[] allowedCells) {
+        long start = System.nanoTime();
+        deadline = start + budgetMs * 1_000_000L;
+        playouts.set(0);
+
+        int reusedVisits = reuseTree(state, colour);
+        MoveGenerator generator = new MoveGenerator(state);
+        if (root.froms == null) {
+            expandMoves(root, generator);
+        }
+        if (root.froms.length == 0) {
+            lastSearch = "Monte Carlo: no legal move";
+            return null;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            tasks.add(() -> {
+                MoveGenerator worker = new MoveGenerator(state);
+                Playout playout = new Playout();
+                while (System.nanoTime() < deadline) {
+                    iterate(worker, playout);
+                }
+                return null;
+            });
+        }
+        try {
+            pool.invokeAll(tasks);
+        } catch (RejectedExecutionException e) {
+            // Shut down with its owner while a search was still on the way
+            lastSearch = "Monte Carlo: engine shut down";
+            return null;
+        }
+
+        // The tree searches every move; only allowed ones can be played
+        int[] froms = root.froms.clone();
+        int[] tos = root.tos.clone();
+        int allowed = allowedCells == null ? froms.length
+                : generator.retainAllowed(froms, tos, froms.length, allowedCells);
+        if (allowed == 0) {
+            lastSearch = "Monte Carlo: no allowed move";
+            return null;
+        }
+        Node best = null;
+        for (int i = 0; i < root.expanded; i++) {
+            Node child = root.children[i];
+            if ((best == null || child.visits > best.visits) && isListed(child, froms, tos, allowed)) {
+                best = child;
+            }
+        }
+        if (best == null) {
+            // Deadline passed before an allowed move was expanded; take the best forward one
+            best = new Node(froms[0], tos[0], 0L, BoardEvaluator.opponent(colour));
+        }
+
+        int[] buffer = new int[MoveGenerator.CELL_COUNT];
+        generator.destinations(best.from, buffer);
+        int length = generator.pathTo(best.to, buffer);
+        int[] path = new int[length];
+        System.arraycopy(buffer, 0, path, 0, length);
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        double winRate = best.visits == 0 ? 0.5 : best.value / best.visits;
+        lastSearch = String.format(Locale.US,
+                "Monte Carlo: %d playouts in %d ms, %d nodes (%d reused), best %d visits, %.0f%% expected",
+                playouts.get(), elapsedMs, nodeCount.get(), reusedVisits, best.visits, winRate * 100);
+        Log.d(TAG, lastSearch);
+        return path;
+    }
+
+    private static boolean isListed(Node child, int[] froms, int[] tos, int count) {
+        for (int i = 0; i < count; i++) {
+            if (froms[i] == child.from && tos[i] == child.to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start from the node for this position if the last tree reached it, else a new tree
+     * @return visits already in the reused tree
+     */
+    private int reuseTree(BoardState state, int colour) {
+        long hash = ZobristHash.hash(state) ^ sideKey(colour);
+        Node found = null;
+        if (root != null) {
+            if (root.hash == hash && root.colour == colour) {
+                found = root;
+            } else {
+                // Two plies down: our move, then the opponent's reply
+                for (int i = 0; i < root.expanded && found == null; i++) {
+                    Node mine = root.children[i];
+                    for (int j = 0; j < mine.expanded; j++) {
+                        Node reply = mine.children[j];
+                        if (reply.hash == hash && reply.colour == colour) {
+                            found = reply;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        if (found == null) {
+            root = new Node(-1, -1, hash, colour);
+            nodeCount.set(1);
+        } else {
+            root = found;
+            nodeCount.set(countNodes(found));
+        }
+        rootColour = colour;
+        return found == null ? 0 : found.visits;
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        for (int i = 0; i < node.expanded; i++) {
+            count += countNodes(node.children[i]);
+        }
+        return count;
+    }
+
+    /**
+     * One worker's buffers, reused for every iteration
+     */
+    private static final class Playout {
+        final Node[] path = new Node[MAX_TREE_DEPTH + 1];
+        final int[] froms = new int[MoveGenerator.MAX_MOVES];
+        final int[] tos = new int[MoveGenerator.MAX_MOVES];
+        final int[] madeFroms = new int[PLAYOUT_PLIES];
+        final int[] madeTos = new int[PLAYOUT_PLIES];
+    }
+
+    /**
+     * One selection, expansion, playout and backup
+     */
+    private void iterate(MoveGenerator generator, Playout buffers) {
+        Node[] path = buffers.path;
+        int depth = 0;
+        Node node = root;
+        path[depth++] = node;
+        addVisit(node);
+        while (depth < MAX_TREE_DEPTH) {
+            Node next;
+            synchronized (node) {
+                if (node.froms == null && !node.terminal) {
+                    expandMoves(node, generator);
+                }
+                if (node.terminal || node.froms.length == 0) {
+                    break;
+                }
+                if (node.expanded < node.froms.length && nodeCount.get() < MAX_NODES) {
+                    int i = node.expanded;
+                    next = new Node(node.froms[i], node.tos[i],
+                            childHash(node.hash, node.froms[i], node.tos[i], node.colour),
+                            BoardEvaluator.opponent(node.colour));
+                    node.children[i] = next;
+                    node.expanded++;
+                    nodeCount.incrementAndGet();
+                    generator.makeMove(next.from, next.to);
+                    path[depth++] = next;
+                    addVisit(next);
+                    break;
+                }
+                if (node.expanded == 0) {
+                    break;
+                }
+                next = selectChild(node);
+            }
+            generator.makeMove(next.from, next.to);
+            node = next;
+            path[depth++] = node;
+            addVisit(node);
+        }
+
+        Node leaf = path[depth - 1];
+        double result = playout(generator, leaf.colour, buffers);
+        playouts.incrementAndGet();
+
+        // Undo the tree moves and credit each node to the player who moved into it
+        for (int i = depth - 1; i >= 1; i--) {
+            Node n = path[i];
+            generator.unmakeMove(n.from, n.to);
+            double forMover = BoardEvaluator.opponent(n.colour) == rootColour ? result : 1.0 - result;
+            synchronized (n) {
+                n.value += forMover;
+            }
+        }
+    }
+
+    private static void addVisit(Node node) {
+        synchronized (node) {
+            node.visits++;
+        }
+    }
+
+    private static Node selectChild(Node node) {
+        double logVisits = Math.log(Math.max(1, node.visits));
+        Node best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < node.expanded; i++) {
+            Node child = node.children[i];
+            int visits = Math.max(1, child.visits);
+            double score = child.value / visits + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (score > bestScore) {
+                bestScore = score;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Generate a node's moves, best forward move first, and note whether the game is over
+     */
+    private static void expandMoves(Node node, MoveGenerator generator) {
+        if (generator.hasReachedTarget(BoardState.GREEN) || generator.hasReachedTarget(BoardState.RED)) {
+            node.terminal = true;
+            node.froms = new int[0];
+            node.tos = new int[0];
+            node.children = new Node[0];
+            return;
+        }
+        int[] froms = new int[MoveGenerator.MAX_MOVES];
+        int[] tos = new int[MoveGenerator.MAX_MOVES];
+        int count = generator.generate(node.colour, froms, tos);
+        int[] gains = new int[count];
+        for (int i = 0; i < count; i++) {
+            gains[i] = BoardEvaluator.progress(node.colour, tos[i]) - BoardEvaluator.progress(node.colour, froms[i]);
+        }
+        // Insertion sort by gain, largest first
+        for (int i = 1; i < count; i++) {
+            int from = froms[i];
+            int to = tos[i];
+            int gain = gains[i];
+            int j = i - 1;
+            while (j >= 0 && gains[j] < gain) {
+                froms[j + 1] = froms[j];
+                tos[j + 1] = tos[j];
+                gains[j + 1] = gains[j];
+                j--;
+            }
+            froms[j + 1] = from;
+            tos[j + 1] = to;
+            gains[j + 1] = gain;
+        }
+        node.froms = Arrays.copyOf(froms, count);
+        node.tos = Arrays.copyOf(tos, count);
+        node.children = new Node[count];
+    }
+
+    /**
+     * Play on from the generator's position and undo the moves again
+     * @return 1 for a win for the root colour, 0 for a loss, in between by evaluation
+     */
+    private double playout(MoveGenerator generator, int colour, Playout buffers) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] froms = buffers.froms;
+        int[] tos = buffers.tos;
+        int[] madeFroms = buffers.madeFroms;
+        int[] madeTos = buffers.madeTos;
+        int made = 0;
+        double result = -1;
+        for (int ply = 0; ply < PLAYOUT_PLIES; ply++) {
+            if (generator.hasReachedTarget(rootColour)) {
+                result = 1.0;
+                break;
+            }
+            if (generator.hasReachedTarget(BoardEvaluator.opponent(rootColour))) {
+                result = 0.0;
+                break;
+            }
+            int count = generator.generate(colour, froms, tos);
+            if (count == 0) {
+                break;
+            }
+            int pick;
+            if (random.nextDouble() < GREEDY_PLAYOUT) {
+                pick = 0;
+                int bestGain = Integer.MIN_VALUE;
+                int ties = 0;
+                for (int i = 0; i < count; i++) {
+                    int gain = BoardEvaluator.progress(colour, tos[i]) - BoardEvaluator.progress(colour, froms[i]);
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        pick = i;
+                        ties = 1;
+                    } else if (gain == bestGain && random.nextInt(++ties) == 0) {
+                        pick = i;
+                    }
+                }
+            } else {
+                pick = random.nextInt(count);
+            }
+            generator.makeMove(froms[pick], tos[pick]);
+            madeFroms[made] = froms[pick];
+            madeTos[made] = tos[pick];
+            made++;
+            colour = BoardEvaluator.opponent(colour);
+        }
+        if (result < 0) {
+            int score = 0;
+            for (int id = 0; id < MoveGenerator.CELL_COUNT; id++) {
+                int value = generator.get(id);
+                if (value == rootColour) {
+                    score += BoardEvaluator.progress(value, id);
+                } else if (value != BoardState.EMPTY) {
+                    score -= BoardEvaluator.progress(value, id);
+                }
+            }
+            result = 1.0 / (1.0 + Math.exp(-score / SCORE_SCALE));
+        }
+        for (int i = made - 1; i >= 0; i--) {
+            generator.unmakeMove(madeFroms[i], madeTos[i]);
+        }
+        return result;
+    }
+
+    private static long sideKey(int colour) {
+        return colour == BoardState.RED ? ZobristHash.RED_TO_MOVE : 0L;
+    }
+
+    private static long childHash(long hash, int from, int to, int colour) {
+        return hash ^ ZobristHash.key(from, colour) ^ ZobristHash.key(to, colour) ^ ZobristHash.RED_TO_MOVE;
+    }
+}
@@ -0,0 +1,31 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+/**
+ * An on-device player. Moves are returned as the cell ids of the path from
+ * the marble's start to its final cell, in the same order as the AI server's
+ * move sequences.
+ */
+public interface MoveEngine {
+
+    /**
+     * Best move found for a colour within the time budget
+     * @return the move's cell ids, or null if the colour has no legal move
+     */
+    default int[] findMove(BoardState state, int colour, long budgetMs) {
+        return findMove(state, colour, budgetMs, null);
+    }
+
+    /**
+     * Best move whose every cell is allowed, e.g. reachable by the arm
+     * @param allowedCells allowed cells by id, null to allow all
+     * @return the move's cell ids, or null if no legal move is allowed
+     */
+    int[] findMove(BoardState state, int colour, long budgetMs, boolean[] allowedCells);
+
+    String getName();
+
+    /**
+     * One line about the last search, for the log and the UI
+     */
+    String describeLastSearch();
+}
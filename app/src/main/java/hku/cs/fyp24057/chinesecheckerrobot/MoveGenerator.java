@@ -0,0 +1,303 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import java.util.Arrays;
+
+/**
+ * Rules kernel for the standard board. Occupancy is held as one bitset per
+ * colour (121 cells in 2 longs), neighbours and jump landings come from flat
+ * int tables built once, and every buffer is allocated up front, so
+ * enumerating moves allocates nothing. Follows the AI server's rules: a single
+ * step to an empty neighbour, or any chain of jumps over occupied cells onto
+ * empty ones, and a marble already in its target triangle must stay in it.
+ *
+ * Not thread safe; give each thread its own generator.
+ */
+public final class MoveGenerator {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+    public static final int CELL_COUNT = GEOMETRY.getCellCount();
+    // Upper bound on moves for one colour: every marble to every empty cell
+    public static final int MAX_MOVES = (CELL_COUNT / 2 + 1) * (CELL_COUNT / 2 + 1);
+
+    private static final int WORDS = (CELL_COUNT + 63) / 64;
+    private static final int[] NEIGHBOURS = new int[CELL_COUNT * BoardGeometry.DIRECTIONS];
+    private static final int[] JUMPS = new int[CELL_COUNT * BoardGeometry.DIRECTIONS];
+    private static final long[] GREEN_TARGET = new long[WORDS];
+    private static final long[] RED_TARGET = new long[WORDS];
+
+    static {
+        for (int id = 0; id < CELL_COUNT; id++) {
+            for (int dir = 0; dir < BoardGeometry.DIRECTIONS; dir++) {
+                NEIGHBOURS[id * BoardGeometry.DIRECTIONS + dir] = GEOMETRY.neighbour(id, dir);
+                JUMPS[id * BoardGeometry.DIRECTIONS + dir] = GEOMETRY.jump(id, dir);
+            }
+        }
+        for (int id : GEOMETRY.getHomeTriangle(BoardGeometry.Corner.BOTTOM)) {
+            GREEN_TARGET[id >>> 6] |= 1L << id;
+        }
+        for (int id : GEOMETRY.getHomeTriangle(BoardGeometry.Corner.TOP)) {
+            RED_TARGET[id >>> 6] |= 1L << id;
+        }
+    }
+
+    private final long[] green = new long[WORDS];
+    private final long[] red = new long[WORDS];
+
+    // Breadth-first search state, reused between calls
+    private final int[] queue = new int[CELL_COUNT];
+    private final int[] parent = new int[CELL_COUNT];
+    private final int[] visited = new int[CELL_COUNT];
+    private int stamp;
+    private int searchFrom = -1;
+
+    // Per-ply move lists for perft, grown only when a deeper count is requested
+    private int[][] plyFroms = new int[0][];
+    private int[][] plyTos = new int[0][];
+
+    public MoveGenerator() {
+    }
+
+    public MoveGenerator(BoardState state) {
+        load(state);
+    }
+
+    public void load(BoardState state) {
+        for (int w = 0; w < WORDS; w++) {
+            green[w] = 0L;
+            red[w] = 0L;
+        }
+        for (int id = 0; id < CELL_COUNT; id++) {
+            int value = state.get(id);
+            if (value == BoardState.GREEN) {
+                green[id >>> 6] |= 1L << id;
+            } else if (value == BoardState.RED) {
+                red[id >>> 6] |= 1L << id;
+            }
+        }
+        searchFrom = -1;
+    }
+
+    public int get(int id) {
+        long bit = 1L << id;
+        if ((green[id >>> 6] & bit) != 0) return BoardState.GREEN;
+        if ((red[id >>> 6] & bit) != 0) return BoardState.RED;
+        return BoardState.EMPTY;
+    }
+
+    public boolean isOccupied(int id) {
+        return ((green[id >>> 6] | red[id >>> 6]) & (1L << id)) != 0;
+    }
+
+    /**
+     * Every cell the marble on a cell can move to.
+     * @param out receives the destination cell ids, needs room for CELL_COUNT
+     * @return the number of destinations, 0 if the cell is empty
+     */
+    public int destinations(int from, int[] out) {
+        return destinations(from, out, 0);
+    }
+
+    private int destinations(int from, int[] out, int offset) {
+        int colour = get(from);
+        searchFrom = -1;
+        if (colour == BoardState.EMPTY) {
+            return 0;
+        }
+        long[] target = colour == BoardState.GREEN ? GREEN_TARGET : RED_TARGET;
+        boolean mustStay = contains(target, from);
+
+        if (++stamp == 0) {
+            // Stamp wrapped around, forget every old mark
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+        visited[from] = stamp;
+        parent[from] = from;
+        searchFrom = from;
+        int count = offset;
+
+        // Jump chains first, so cells next to the start still extend chains
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int cell = queue[head++];
+            int base = cell * BoardGeometry.DIRECTIONS;
+            for (int dir = 0; dir < BoardGeometry.DIRECTIONS; dir++) {
+                int landing = JUMPS[base + dir];
+                if (landing < 0 || visited[landing] == stamp || isOccupied(landing)) {
+                    continue;
+                }
+                int over = NEIGHBOURS[base + dir];
+                // The moving marble has left its start and cannot be jumped over
+                if (over == from || !isOccupied(over)) {
+                    continue;
+                }
+                visited[landing] = stamp;
+                parent[landing] = cell;
+                queue[tail++] = landing;
+                if (!mustStay || contains(target, landing)) {
+                    out[count++] = landing;
+                }
+            }
+        }
+
+        int base = from * BoardGeometry.DIRECTIONS;
+        for (int dir = 0; dir < BoardGeometry.DIRECTIONS; dir++) {
+            int next = NEIGHBOURS[base + dir];
+            if (next < 0 || visited[next] == stamp || isOccupied(next)) {
+                continue;
+            }
+            visited[next] = stamp;
+            parent[next] = from;
+            if (!mustStay || contains(target, next)) {
+                out[count++] = next;
+            }
+        }
+        return count - offset;
+    }
+
+    /**
+     * Cells of the move to a destination found by the last destinations() call.
+     * @param out receives the path from start to destination, needs room for CELL_COUNT
+     * @return the path length, 0 if the cell was not reached
+     */
+    public int pathTo(int to, int[] out) {
+        if (searchFrom < 0 || visited[to] != stamp || to == searchFrom) {
+            return 0;
+        }
+        int length = 1;
+        for (int cell = to; cell != searchFrom; cell = parent[cell]) {
+            length++;
+        }
+        int cell = to;
+        for (int i = length - 1; i >= 0; i--) {
+            out[i] = cell;
+            cell = parent[cell];
+        }
+        return length;
+    }
+
+    /**
+     * All moves of one colour as parallel from/to arrays of at least MAX_MOVES
+     * @return the number of moves
+     */
+    public int generate(int colour, int[] froms, int[] tos) {
+        long[] own = colour == BoardState.GREEN ? green : red;
+        int count = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long bits = own[w];
+            while (bits != 0) {
+                int from = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int n = destinations(from, tos, count);
+                for (int i = 0; i < n; i++) {
+                    froms[count + i] = from;
+                }
+                count += n;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Drop the moves whose path visits a cell that is not allowed, keeping the
+     * rest in order. Allocates, so meant for root moves only.
+     * @param allowed allowed cells by id, e.g. the cells the arm can reach
+     * @return the number of moves kept
+     */
+    public int retainAllowed(int[] froms, int[] tos, int count, boolean[] allowed) {
+        int[] scratch = new int[CELL_COUNT];
+        int[] path = new int[CELL_COUNT];
+        int searched = -1;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (froms[i] != searched) {
+                searched = froms[i];
+                destinations(searched, scratch);
+            }
+            int length = pathTo(tos[i], path);
+            boolean ok = length > 0;
+            for (int j = 0; j < length && ok; j++) {
+                ok = allowed[path[j]];
+            }
+            if (ok) {
+                froms[kept] = froms[i];
+                tos[kept] = tos[i];
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Target triangle full with at least one of the colour's marbles in it, the server's win rule
+     */
+    public boolean hasReachedTarget(int colour) {
+        long[] target = colour == BoardState.GREEN ? GREEN_TARGET : RED_TARGET;
+        long[] own = colour == BoardState.GREEN ? green : red;
+        boolean ownMarble = false;
+        for (int w = 0; w < WORDS; w++) {
+            if ((target[w] & ~(green[w] | red[w])) != 0) {
+                return false;
+            }
+            ownMarble |= (target[w] & own[w]) != 0;
+        }
+        return ownMarble;
+    }
+
+    public void makeMove(int from, int to) {
+        long[] own = (green[from >>> 6] & (1L << from)) != 0 ? green : red;
+        own[from >>> 6] &= ~(1L << from);
+        own[to >>> 6] |= 1L << to;
+        searchFrom = -1;
+    }
+
+    public void unmakeMove(int from, int to) {
+        makeMove(to, from);
+    }
+
+    /**
+     * Number of move sequences of the given depth, colours alternating from colourToMove.
+     * Counts through wins like a classic perft; used to check and time the generator.
+     * From the starting position depths 1 to 4 give 14, 196, 4760 and 115600,
+     * the first three matching the AI server's move generation.
+     */
+    public long perft(int colourToMove, int depth) {
+        if (plyFroms.length < depth) {
+            int[][] froms = new int[depth][];
+            int[][] tos = new int[depth][];
+            for (int d = 0; d < depth; d++) {
+                froms[d] = new int[MAX_MOVES];
+                tos[d] = new int[MAX_MOVES];
+            }
+            plyFroms = froms;
+            plyTos = tos;
+        }
+        return perftRecursive(colourToMove, depth);
+    }
+
+    private long perftRecursive(int colour, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] froms = plyFroms[depth - 1];
+        int[] tos = plyTos[depth - 1];
+        int count = generate(colour, froms, tos);
+        if (depth == 1) {
+            return count;
+        }
+        int other = colour == BoardState.GREEN ? BoardState.RED : BoardState.GREEN;
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            makeMove(froms[i], tos[i]);
+            nodes += perftRecursive(other, depth - 1);
+            unmakeMove(froms[i], tos[i]);
+        }
+        return nodes;
+    }
+
+    private static boolean contains(long[] set, int id) {
+        return (set[id >>> 6] & (1L << id)) != 0;
+    }
+}
@@ -0,0 +1,83 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+/**
+ * Checks a move sequence against the Chinese checkers rules before the arm
+ * touches anything: either one step to a neighbouring empty cell, or a chain
+ * of jumps, each over an occupied neighbour onto an empty cell, never landing
+ * on a cell twice. Works on the packed BoardState and the geometry tables
+ * without allocating.
+ */
+public final class MoveValidator {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+
+    private MoveValidator() {
+    }
+
+    /**
+     * @param colour the colour that is moving, or BoardState.EMPTY to accept either
+     * @return null if the move is legal, otherwise why it is not
+     */
+    public static String validate(BoardState state, int[] xs, int[] ys, int count, int colour) {
+        if (count < 2) {
+            return "Move needs at least 2 cells, got " + count;
+        }
+        int start = GEOMETRY.cellId(xs[0], ys[0]);
+        if (start < 0) {
+            return String.format("Start (%d,%d) is not on the board", xs[0], ys[0]);
+        }
+        int piece = state.get(start);
+        if (piece == BoardState.EMPTY) {
+            return String.format("No marble at start (%d,%d)", xs[0], ys[0]);
+        }
+        if (colour != BoardState.EMPTY && piece != colour) {
+            return String.format("Marble at start (%d,%d) belongs to the other player", xs[0], ys[0]);
+        }
+
+        int current = start;
+        for (int i = 1; i < count; i++) {
+            int next = GEOMETRY.cellId(xs[i], ys[i]);
+            if (next < 0) {
+                return String.format("Cell (%d,%d) is not on the board", xs[i], ys[i]);
+            }
+            // The moving marble has left its start, so only the start may be treated as empty
+            if (next != start && state.isOccupied(next)) {
+                return String.format("Cell (%d,%d) is occupied", xs[i], ys[i]);
+            }
+            for (int j = 0; j < i; j++) {
+                if (xs[j] == xs[i] && ys[j] == ys[i]) {
+                    return String.format("Cell (%d,%d) is visited twice", xs[i], ys[i]);
+                }
+            }
+
+            int dir = directionOf(current, next, false);
+            if (dir >= 0) {
+                if (count != 2) {
+                    return String.format("Step to (%d,%d) cannot be combined with jumps", xs[i], ys[i]);
+                }
+                return null;
+            }
+            dir = directionOf(current, next, true);
+            if (dir < 0) {
+                return String.format("(%d,%d) to (%d,%d) is neither a step nor a jump",
+                        xs[i - 1], ys[i - 1], xs[i], ys[i]);
+            }
+            int over = GEOMETRY.neighbour(current, dir);
+            if (over == start || !state.isOccupied(over)) {
+                return String.format("Jump to (%d,%d) has no marble to jump over", xs[i], ys[i]);
+            }
+            current = next;
+        }
+        return null;
+    }
+
+    private static int directionOf(int from, int to, boolean jump) {
+        for (int dir = 0; dir < BoardGeometry.DIRECTIONS; dir++) {
+            int target = jump ? GEOMETRY.jump(from, dir) : GEOMETRY.neighbour(from, dir);
+            if (target == to) {
+                return dir;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,143 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.CRC_BYTES;
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.HEADER_BYTES;
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.MAGIC;
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.SLOT_BYTES;
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.VERSION;
+
+/**
+ * Opening moves computed offline by the tools/opening-book generator and
+ * shipped as an app asset. The book is an open-addressing hash table on disk
+ * (layout in OpeningBookFormat), read through a memory map, so a lookup is a
+ * hash and a probe or two without loading the book or touching the network.
+ *
+ * Positions are keyed like AIMoveCache: canonical Zobrist hash with the side
+ * to move XORed in, moves stored in the canonical orientation.
+ */
+public class OpeningBook {
+    private static final String TAG = "OpeningBook";
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+
+    private final ByteBuffer slots;
+    private final int mask;
+    private final int entries;
+
+    private OpeningBook(ByteBuffer buffer) throws IOException {
+        int size = buffer.remaining();
+        if (size < HEADER_BYTES + CRC_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an opening book");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported opening book version " + version);
+        }
+        int slotCount = buffer.getInt(8);
+        if (Integer.bitCount(slotCount) != 1 || size != HEADER_BYTES + slotCount * SLOT_BYTES + CRC_BYTES) {
+            throw new IOException("Opening book has the wrong size for " + slotCount + " slots");
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer data = buffer.duplicate();
+        data.limit(size - CRC_BYTES);
+        crc.update(data);
+        if (buffer.getLong(size - CRC_BYTES) != crc.getValue()) {
+            throw new IOException("Opening book is corrupt (checksum mismatch)");
+        }
+        mask = slotCount - 1;
+        entries = buffer.getInt(12);
+        ByteBuffer view = buffer.duplicate();
+        view.position(HEADER_BYTES);
+        view.limit(HEADER_BYTES + slotCount * SLOT_BYTES);
+        slots = view.slice();
+    }
+
+    /**
+     * Map the book shipped in the app's assets. The asset is stored uncompressed
+     * (see noCompress in build.gradle) so it can be mapped in place.
+     */
+    public static OpeningBook open(AssetManager assets) throws IOException {
+        try (AssetFileDescriptor descriptor = assets.openFd(OpeningBookFormat.ASSET_NAME);
+             FileInputStream in = new FileInputStream(descriptor.getFileDescriptor());
+             FileChannel channel = in.getChannel()) {
+            OpeningBook book = new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getLength()));
+            Log.d(TAG, "Opened opening book with " + book.entries + " positions");
+            return book;
+        }
+    }
+
+    public static OpeningBook open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    /**
+     * Book move for a position, checked against the rules on this board
+     * @return the move's cell ids, or null if the position is not in the book
+     */
+    public int[] lookup(BoardState state, int colour) {
+        long plain = ZobristHash.hash(state);
+        long reflected = ZobristHash.mirrorHash(state);
+        boolean mirrored = reflected < plain;
+        long key = OpeningBookFormat.key(Math.min(plain, reflected), colour);
+
+        for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+            int offset = slot * SLOT_BYTES;
+            long stored = slots.getLong(offset);
+            if (stored == 0L) {
+                return null;
+            }
+            if (stored != key) {
+                continue;
+            }
+            int from = slots.get(offset + 8) & 0xFF;
+            int to = slots.get(offset + 9) & 0xFF;
+            if (from >= BoardState.CELL_COUNT || to >= BoardState.CELL_COUNT) {
+                return null;
+            }
+            if (mirrored) {
+                from = GEOMETRY.mirror(from);
+                to = GEOMETRY.mirror(to);
+            }
+            return legalPath(state, colour, from, to);
+        }
+    }
+
+    /**
+     * Full path of a move if it is legal here; a 64-bit key collision gives null, never a bad move
+     */
+    private static int[] legalPath(BoardState state, int colour, int from, int to) {
+        if (state.get(from) != colour) {
+            return null;
+        }
+        MoveGenerator generator = new MoveGenerator(state);
+        int[] buffer = new int[MoveGenerator.CELL_COUNT];
+        generator.destinations(from, buffer);
+        int length = generator.pathTo(to, buffer);
+        if (length < 2) {
+            return null;
+        }
+        int[] path = new int[length];
+        System.arraycopy(buffer, 0, path, 0, length);
+        return path;
+    }
+}
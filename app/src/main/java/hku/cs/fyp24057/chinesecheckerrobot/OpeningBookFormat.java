@@ -0,0 +1,37 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+/**
+ * Layout of the opening book file, shared by OpeningBook in the app and the
+ * offline tool that writes it (tools/opening-book). Plain Java, so the tool
+ * can use it on a desktop JVM.
+ *
+ * File layout (big endian):
+ *   int   magic "CCOB"
+ *   short format version
+ *   short reserved
+ *   int   slot count, a power of two
+ *   int   entry count
+ *   slot count x { long key, 0 if empty; byte from cell; byte to cell }
+ *   long  CRC32 of everything before it
+ */
+final class OpeningBookFormat {
+
+    static final String ASSET_NAME = "opening_book.bin";
+
+    static final int MAGIC = 0x43434F42; // "CCOB"
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 4 + 2 + 2 + 4 + 4;
+    static final int SLOT_BYTES = 8 + 1 + 1;
+    static final int CRC_BYTES = 8;
+
+    private OpeningBookFormat() {
+    }
+
+    /**
+     * Key of a canonical hash with the side to move, never 0 since 0 marks an empty slot
+     */
+    static long key(long canonicalHash, int colour) {
+        long key = canonicalHash ^ (colour == BoardState.RED ? ZobristHash.RED_TO_MOVE : 0L);
+        return key == 0L ? 1L : key;
+    }
+}
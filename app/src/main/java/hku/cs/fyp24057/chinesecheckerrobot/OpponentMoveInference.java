@@ -0,0 +1,165 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import java.util.Arrays;
+
+/**
+ * Reconstructs the opponent's move from two consecutive board states. The
+ * cells where an opponent marble disappeared and appeared give the start and
+ * end; a breadth-first search over steps and jump chains on the earlier board
+ * finds a legal path between them. Anything that is not exactly one marble
+ * moving along a legal path is reported, so a bad detection is caught before
+ * it reaches the AI server.
+ */
+public final class OpponentMoveInference {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+
+    public enum Status {
+        NO_MOVE,          // the opponent's marbles are where they were
+        LEGAL,            // one marble moved along a legal path
+        ILLEGAL,          // one marble moved, but no legal path reaches its new cell
+        MULTIPLE_MOVES,   // several marbles moved
+        DETECTION_ERROR   // marbles appeared or vanished, or the robot's marbles changed
+    }
+
+    public static class Result {
+        public final Status status;
+        // Cell ids of the move, from start to end; empty unless LEGAL
+        public final int[] path;
+        public final String message;
+
+        Result(Status status, int[] path, String message) {
+            this.status = status;
+            this.path = path;
+            this.message = message;
+        }
+
+        /**
+         * Whether the AI may plan on the new board
+         */
+        public boolean isAcceptable() {
+            return status == Status.LEGAL || status == Status.NO_MOVE;
+        }
+
+        @Override
+        public String toString() {
+            if (status != Status.LEGAL) {
+                return status + ": " + message;
+            }
+            StringBuilder sb = new StringBuilder("Opponent moved");
+            for (int id : path) {
+                sb.append(String.format(" (%d,%d)", GEOMETRY.getCellX(id), GEOMETRY.getCellY(id)));
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final int[] NO_PATH = new int[0];
+
+    private OpponentMoveInference() {
+    }
+
+    public static Result infer(BoardState before, BoardState after, int opponentColour) {
+        int[] changed = before.diff(after);
+        if (changed.length == 0) {
+            return new Result(Status.NO_MOVE, NO_PATH, "board unchanged");
+        }
+
+        int from = -1;
+        int to = -1;
+        int left = 0;
+        int arrived = 0;
+        for (int id : changed) {
+            int was = before.get(id);
+            int now = after.get(id);
+            if (was == opponentColour && now == BoardState.EMPTY) {
+                from = id;
+                left++;
+            } else if (was == BoardState.EMPTY && now == opponentColour) {
+                to = id;
+                arrived++;
+            } else {
+                return new Result(Status.DETECTION_ERROR, NO_PATH,
+                        String.format("cell (%d,%d) changed from %s to %s",
+                                GEOMETRY.getCellX(id), GEOMETRY.getCellY(id), symbol(was), symbol(now)));
+            }
+        }
+        if (left != arrived) {
+            return new Result(Status.DETECTION_ERROR, NO_PATH,
+                    String.format("%d opponent marble(s) left cells but %d arrived", left, arrived));
+        }
+        if (left > 1) {
+            return new Result(Status.MULTIPLE_MOVES, NO_PATH, left + " opponent marbles moved");
+        }
+
+        int[] path = findPath(before, from, to);
+        if (path == null) {
+            return new Result(Status.ILLEGAL, NO_PATH, String.format("no legal path from (%d,%d) to (%d,%d)",
+                    GEOMETRY.getCellX(from), GEOMETRY.getCellY(from),
+                    GEOMETRY.getCellX(to), GEOMETRY.getCellY(to)));
+        }
+        return new Result(Status.LEGAL, path, "");
+    }
+
+    /**
+     * Shortest legal path from one cell to another, null if there is none.
+     * A single step is only allowed on its own; otherwise breadth-first over jumps.
+     */
+    static int[] findPath(BoardState board, int from, int to) {
+        for (int dir = 0; dir < BoardGeometry.DIRECTIONS; dir++) {
+            if (GEOMETRY.neighbour(from, dir) == to) {
+                return new int[]{from, to};
+            }
+        }
+
+        int[] parent = new int[GEOMETRY.getCellCount()];
+        Arrays.fill(parent, -1);
+        int[] queue = new int[GEOMETRY.getCellCount()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = from;
+        parent[from] = from;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int dir = 0; dir < BoardGeometry.DIRECTIONS; dir++) {
+                int landing = GEOMETRY.jump(cell, dir);
+                if (landing < 0 || parent[landing] >= 0 || board.isOccupied(landing)) {
+                    continue;
+                }
+                // The moving marble has left its start, so it cannot be jumped over
+                int over = GEOMETRY.neighbour(cell, dir);
+                if (over == from || !board.isOccupied(over)) {
+                    continue;
+                }
+                parent[landing] = cell;
+                if (landing == to) {
+                    return tracePath(parent, from, to);
+                }
+                queue[tail++] = landing;
+            }
+        }
+        return null;
+    }
+
+    private static int[] tracePath(int[] parent, int from, int to) {
+        int length = 1;
+        for (int cell = to; cell != from; cell = parent[cell]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int cell = to;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = cell;
+            cell = parent[cell];
+        }
+        return path;
+    }
+
+    private static String symbol(int value) {
+        switch (value) {
+            case BoardState.GREEN: return "green";
+            case BoardState.RED: return "red";
+            default: return "empty";
+        }
+    }
+}
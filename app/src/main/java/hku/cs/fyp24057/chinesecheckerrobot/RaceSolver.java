@@ -0,0 +1,279 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Exact solver for the end of the game. Once every red marble has passed
+ * every green one the armies can no longer block or carry each other, and
+ * the game is a race: the best move is the first move of the shortest
+ * sequence that fills the target triangle.
+ *
+ * The sequence is found with IDA* over the solver's own marbles, the other
+ * colour's marbles left where they are. Two lower bounds are combined: every
+ * marble outside the target needs a move, and since a jump keeps a marble on
+ * the same one of four interleaved sublattices, every marble on a sublattice
+ * with more marbles than the target has cells on it needs a single step.
+ * Bounds proven for a position are kept in a table keyed by Zobrist hash,
+ * reused within an iteration and across the deepening iterations. The hash
+ * covers the other colour's marbles too, since they can be jumped over, so
+ * after the opponent moves the earlier entries no longer match.
+ */
+public class RaceSolver {
+    private static final String TAG = "RaceSolver";
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+    private static final int MAX_DEPTH = 48;
+    // Nodes between reads of the clock
+    private static final int CHECK_INTERVAL = 1024;
+
+    private static final int TABLE_BITS = 18;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+    private static final boolean[] GREEN_TARGET = targetCells(BoardGeometry.Corner.BOTTOM);
+    private static final boolean[] RED_TARGET = targetCells(BoardGeometry.Corner.TOP);
+    // Sublattice of each cell, 0 to 3, and how many target cells are on each
+    private static final int CLASSES = 4;
+    private static final int[] CELL_CLASS = new int[BoardState.CELL_COUNT];
+    private static final int[] GREEN_TARGET_CLASSES = new int[CLASSES];
+    private static final int[] RED_TARGET_CLASSES = new int[CLASSES];
+
+    static {
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            // Axial coordinates of the display grid, where a jump adds twice a unit vector
+            int q = Math.floorDiv(GEOMETRY.getGridX(id) - GEOMETRY.getGridY(id), 2);
+            int r = GEOMETRY.getGridY(id);
+            CELL_CLASS[id] = (q & 1) << 1 | (r & 1);
+            if (GREEN_TARGET[id]) {
+                GREEN_TARGET_CLASSES[CELL_CLASS[id]]++;
+            }
+            if (RED_TARGET[id]) {
+                RED_TARGET_CLASSES[CELL_CLASS[id]]++;
+            }
+        }
+    }
+
+    // Moves this many more from a position cannot fill the target, by position hash
+    private final long[] boundKeys = new long[1 << TABLE_BITS];
+    private final byte[] bounds = new byte[1 << TABLE_BITS];
+
+    private final MoveGenerator generator = new MoveGenerator();
+    private final int[][] plyFroms = new int[MAX_DEPTH][];
+    private final int[][] plyTos = new int[MAX_DEPTH][];
+
+    private int colour;
+    private boolean[] allowedCells;
+    private boolean[] target;
+    private int[] targetClasses;
+    private final int[] classCounts = new int[CLASSES];
+    private long deadline;
+    private boolean timedOut;
+    private long nodes;
+    private int rootFrom;
+    private int rootTo;
+    private String lastSearch = "no search yet";
+
+    /**
+     * True once every red marble is further up the board than every green one
+     */
+    public static boolean isDisengaged(BoardState state) {
+        int lowestRed = -1;
+        int highestGreen = GEOMETRY.getRowCount();
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            int value = state.get(id);
+            int row = GEOMETRY.getCellY(id);
+            if (value == BoardState.RED) {
+                lowestRed = Math.max(lowestRed, row);
+            } else if (value == BoardState.GREEN) {
+                highestGreen = Math.min(highestGreen, row);
+            }
+        }
+        // Red runs up the board and green down it
+        return lowestRed < highestGreen;
+    }
+
+    public int[] solve(BoardState state, int colour, long budgetMs) {
+        return solve(state, colour, budgetMs, null);
+    }
+
+    /**
+     * First move of a shortest race to the target, if the position is a race
+     * and the search finishes within the budget
+     * @param allowedCells cells the first move may visit, e.g. those the arm can reach, null for all
+     * @return the move's cell ids, or null if not solved
+     */
+    public synchronized int[] solve(BoardState state, int colour, long budgetMs, boolean[] allowedCells) {
+        if (!isDisengaged(state)) {
+            lastSearch = "race solver: armies still engaged";
+            return null;
+        }
+        long start = System.nanoTime();
+        deadline = start + budgetMs * 1_000_000L;
+        timedOut = false;
+        nodes = 0;
+        this.colour = colour;
+        this.allowedCells = allowedCells;
+        target = colour == BoardState.GREEN ? GREEN_TARGET : RED_TARGET;
+        targetClasses = colour == BoardState.GREEN ? GREEN_TARGET_CLASSES : RED_TARGET_CLASSES;
+        generator.load(state);
+        if (generator.hasReachedTarget(colour)) {
+            lastSearch = "race solver: already home";
+            return null;
+        }
+
+        long hash = ZobristHash.hash(state) ^ (colour == BoardState.RED ? ZobristHash.RED_TO_MOVE : 0L);
+        int outside = 0;
+        Arrays.fill(classCounts, 0);
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            if (state.get(id) == colour) {
+                classCounts[CELL_CLASS[id]]++;
+                if (!target[id]) {
+                    outside++;
+                }
+            }
+        }
+        for (int bound = Math.max(lowerBound(outside), 1); bound < MAX_DEPTH; bound++) {
+            if (search(0, bound, hash, outside)) {
+                lastSearch = String.format(Locale.US, "race solver: %d moves to finish, %d nodes in %d ms",
+                        bound, nodes, (System.nanoTime() - start) / 1_000_000L);
+                Log.d(TAG, lastSearch);
+                return path(state, rootFrom, rootTo);
+            }
+            if (timedOut) {
+                break;
+            }
+        }
+        lastSearch = String.format(Locale.US, "race solver: no proof within %d ms (%d nodes)", budgetMs, nodes);
+        Log.d(TAG, lastSearch);
+        return null;
+    }
+
+    public synchronized String describeLastSearch() {
+        return lastSearch;
+    }
+
+    /**
+     * Whether the target can be filled in at most bound - ply more moves
+     */
+    private boolean search(int ply, int bound, long hash, int outside) {
+        int remaining = bound - ply;
+        if (lowerBound(outside) > remaining) {
+            return false;
+        }
+        if (outside == 0 && generator.hasReachedTarget(colour)) {
+            return true;
+        }
+        if (remaining == 0 || ply + 1 >= MAX_DEPTH) {
+            return false;
+        }
+        int slot = (int) hash & TABLE_MASK;
+        if (boundKeys[slot] == hash && bounds[slot] >= remaining) {
+            return false;
+        }
+        if (++nodes % CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+            timedOut = true;
+        }
+        if (timedOut) {
+            return false;
+        }
+
+        if (plyFroms[ply] == null) {
+            plyFroms[ply] = new int[MoveGenerator.MAX_MOVES];
+            plyTos[ply] = new int[MoveGenerator.MAX_MOVES];
+        }
+        int[] froms = plyFroms[ply];
+        int[] tos = plyTos[ply];
+        int count = generator.generate(colour, froms, tos);
+        boolean restricted = ply == 0 && allowedCells != null;
+        if (restricted) {
+            count = generator.retainAllowed(froms, tos, count, allowedCells);
+        }
+        sortByGain(froms, tos, count);
+
+        for (int i = 0; i < count; i++) {
+            int from = froms[i];
+            int to = tos[i];
+            int nextOutside = outside - (target[to] ? 1 : 0) + (target[from] ? 1 : 0);
+            long nextHash = hash ^ ZobristHash.key(from, colour) ^ ZobristHash.key(to, colour);
+            generator.makeMove(from, to);
+            classCounts[CELL_CLASS[from]]--;
+            classCounts[CELL_CLASS[to]]++;
+            boolean solved = search(ply + 1, bound, nextHash, nextOutside);
+            classCounts[CELL_CLASS[to]]--;
+            classCounts[CELL_CLASS[from]]++;
+            generator.unmakeMove(from, to);
+            if (solved) {
+                if (ply == 0) {
+                    rootFrom = from;
+                    rootTo = to;
+                }
+                return true;
+            }
+            if (timedOut) {
+                return false;
+            }
+        }
+        // An interrupted search proves nothing, so only complete ones are stored,
+        // nor does one limited to the allowed moves
+        if (!restricted) {
+            boundKeys[slot] = hash;
+            bounds[slot] = (byte) remaining;
+        }
+        return false;
+    }
+
+    /**
+     * Moves still needed at least: a move brings at most one marble into the
+     * target, and a jump never changes a marble's sublattice while a step
+     * changes one marble's
+     */
+    private int lowerBound(int outside) {
+        int excess = 0;
+        for (int c = 0; c < CLASSES; c++) {
+            excess += Math.max(0, classCounts[c] - targetClasses[c]);
+        }
+        return Math.max(outside, excess);
+    }
+
+    /**
+     * Biggest forward moves first, so the first solution is usually found early
+     */
+    private void sortByGain(int[] froms, int[] tos, int count) {
+        for (int i = 1; i < count; i++) {
+            int from = froms[i];
+            int to = tos[i];
+            int gain = gain(from, to);
+            int j = i - 1;
+            while (j >= 0 && gain(froms[j], tos[j]) < gain) {
+                froms[j + 1] = froms[j];
+                tos[j + 1] = tos[j];
+                j--;
+            }
+            froms[j + 1] = from;
+            tos[j + 1] = to;
+        }
+    }
+
+    private int gain(int from, int to) {
+        return BoardEvaluator.progress(colour, to) - BoardEvaluator.progress(colour, from);
+    }
+
+    private static int[] path(BoardState state, int from, int to) {
+        MoveGenerator root = new MoveGenerator(state);
+        int[] buffer = new int[MoveGenerator.CELL_COUNT];
+        root.destinations(from, buffer);
+        int length = root.pathTo(to, buffer);
+        int[] path = new int[length];
+        System.arraycopy(buffer, 0, path, 0, length);
+        return path;
+    }
+
+    private static boolean[] targetCells(BoardGeometry.Corner corner) {
+        boolean[] cells = new boolean[BoardState.CELL_COUNT];
+        for (int id : GEOMETRY.getHomeTriangle(corner)) {
+            cells[id] = true;
+        }
+        return cells;
+    }
+}
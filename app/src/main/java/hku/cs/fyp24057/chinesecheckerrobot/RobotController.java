@@ -30,18 +30,32 @@ public class RobotController {
 
     // Settings
     private static final int HTTP_TIMEOUT_MS = 1000;
-    private static final float DEFAULT_SPEED = 2f;  // Speed setting
+    static final float DEFAULT_SPEED = 2f;  // Speed setting, used until a speed profile is calibrated
     private static final int MOVEMENT_DELAY_MS = 2500;
     private static final int SHORT_DELAY_MS = 2500;
-    private static final float DEFAULT_POSITION_TOLERANCE = 1.5f;
+    static final float DEFAULT_POSITION_TOLERANCE = 1.5f;
     private static final int DEFAULT_MAX_RETRIES = 3;
     private static final int VERIFICATION_DELAY_MS = 500;
     private static final float SAFE_Z = -60f;
+    // Vertical moves are timed from their length instead of a fixed delay
+    private static final int MIN_VERTICAL_DELAY_MS = 600;
+    private static final float VERTICAL_DELAY_MS_PER_MM = 25f;
+    // Vertical speed those delays assume, used where the speed profile has no measurement
+    static final float DEFAULT_VERTICAL_SPEED_MM_PER_S = 1000f / VERTICAL_DELAY_MS_PER_MM;
 
     private String robotIp = "192.168.11.172";
     private OkHttpClient httpClient;
     private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final GripperOverlapScheduler gripperScheduler = new GripperOverlapScheduler(this);
+    private final VerificationPolicy verificationPolicy = new VerificationPolicy();
+    private final DriftMonitor driftMonitor = new DriftMonitor();
+
+    // Per-region speed, tolerance and settle time from SpeedCalibrator, null for defaults
+    private volatile SpeedProfile speedProfile;
+
+    // Last pose sent with T:104 (x, y, z, t), null when unknown e.g. after a reset
+    private volatile float[] lastCommandedPose;
 
     public interface MovementCallback {
         void onSuccess();
@@ -73,6 +87,90 @@ public class RobotController {
         return robotIp;
     }
 
+    public GripperOverlapScheduler getGripperScheduler() {
+        return gripperScheduler;
+    }
+
+    public VerificationPolicy getVerificationPolicy() {
+        return verificationPolicy;
+    }
+
+    public DriftMonitor getDriftMonitor() {
+        return driftMonitor;
+    }
+
+    public void setSpeedProfile(SpeedProfile profile) {
+        this.speedProfile = profile;
+        // Overlap timing depends on how fast the arm descends
+        gripperScheduler.revalidate();
+    }
+
+    public SpeedProfile getSpeedProfile() {
+        return speedProfile;
+    }
+
+    private float getSpeedFor(float x, float y) {
+        SpeedProfile.RegionSettings settings = getRegionSettings(x, y);
+        return settings != null ? settings.speed : DEFAULT_SPEED;
+    }
+
+    /**
+     * Measured travel rate at the profile speed for this position
+     */
+    float getVerticalSpeedFor(float x, float y) {
+        SpeedProfile.RegionSettings settings = getRegionSettings(x, y);
+        return settings != null && settings.travelMmPerS > 0f
+                ? settings.travelMmPerS : DEFAULT_VERTICAL_SPEED_MM_PER_S;
+    }
+
+    /**
+     * Slowest vertical speed over all board regions
+     */
+    float getSlowestVerticalSpeed() {
+        SpeedProfile profile = speedProfile;
+        if (profile == null) {
+            return DEFAULT_VERTICAL_SPEED_MM_PER_S;
+        }
+        float slowest = Float.MAX_VALUE;
+        for (BoardRegion region : BoardRegion.values()) {
+            SpeedProfile.RegionSettings settings = profile.get(region);
+            slowest = Math.min(slowest, settings != null && settings.travelMmPerS > 0f
+                    ? settings.travelMmPerS : DEFAULT_VERTICAL_SPEED_MM_PER_S);
+        }
+        return slowest;
+    }
+
+    private float getToleranceFor(float x, float y) {
+        SpeedProfile.RegionSettings settings = getRegionSettings(x, y);
+        return settings != null ? settings.tolerance : DEFAULT_POSITION_TOLERANCE;
+    }
+
+    /**
+     * Wait after the final descent: calibrated XY settle time plus the worst
+     * case descent from SAFE_Z, never longer than the fixed default delay
+     */
+    private int getSettleDelayMs(float x, float y, float z) {
+        SpeedProfile.RegionSettings settings = getRegionSettings(x, y);
+        if (settings == null) {
+            return MOVEMENT_DELAY_MS;
+        }
+        int delay = settings.settleMs + getVerticalDelayMs(Math.abs(SAFE_Z - z));
+        return Math.min(delay, MOVEMENT_DELAY_MS);
+    }
+
+    /**
+     * Time an open-loop move to a position takes once the arm is at transit
+     * height: the torque and hover steps of the precision sequence plus the settle wait
+     */
+    int getHopDelayMs(float x, float y, float z) {
+        return 2 * SHORT_DELAY_MS + getSettleDelayMs(x, y, z);
+    }
+
+    private SpeedProfile.RegionSettings getRegionSettings(float x, float y) {
+        SpeedProfile profile = speedProfile;
+        return profile != null ? profile.getForPosition(x, y) : null;
+    }
+
     public void shutdown() {
         commandExecutor.shutdownNow();
         try {
@@ -85,52 +183,91 @@ public class RobotController {
     public void reset() {
         String jsonCmd = "{\"T\":100}";
         sendHttpCommand(jsonCmd);
+        lastCommandedPose = null;
         Log.d(TAG, "Reset command sent");
     }
 
     public void moveTo(float x, float y, float z, float torque) {
+        moveTo(x, y, z, torque, getSpeedFor(x, y));
+    }
+
+    public void moveTo(float x, float y, float z, float torque, float speed) {
         String jsonCmd = String.format("{\"T\":104,\"x\":%.2f,\"y\":%.2f,\"z\":%.2f,\"t\":%.2f,\"spd\":%.2f}",
-                x, y, z, torque, DEFAULT_SPEED);
+                x, y, z, torque, speed);
         sendHttpCommand(jsonCmd);
+        lastCommandedPose = new float[]{x, y, z, torque};
         Log.d(TAG, String.format("Moving to (%.2f, %.2f, %.2f, %.2f) with speed %.2f",
-                x, y, z, torque, DEFAULT_SPEED));
+                x, y, z, torque, speed));
     }
 
     public void moveToWithPrecisionSequence(float targetX, float targetY, float targetZ, float targetTorque) {
-        float safeZ = SAFE_Z;
-
         // Get current position feedback to keep original XY in first step
         JSONObject currentPos = getPositionFeedback();
         float currentX = targetX;
         float currentY = targetY;
+        float currentZ = SAFE_Z;
         float currentTorque = targetTorque;
+        boolean hasCurrentPos = false;
 
         // Try to use current position if available
         if (currentPos != null) {
             try {
                 currentX = (float) currentPos.getDouble("x");
                 currentY = (float) currentPos.getDouble("y");
+                currentZ = (float) currentPos.getDouble("z");
                 currentTorque = (float) currentPos.getDouble("t");
+                hasCurrentPos = true;
             } catch (JSONException e) {
                 Log.e(TAG, "Error parsing current position, using target coords instead: " + e.getMessage());
             }
         }
 
+        runPrecisionSequence(currentX, currentY, currentZ, currentTorque, hasCurrentPos,
+                targetX, targetY, targetZ, targetTorque);
+    }
+
+    /**
+     * Same four steps as moveToWithPrecisionSequence, starting from the last
+     * commanded pose instead of asking the robot where it is.
+     * @return true if the start pose was known and no feedback was needed
+     */
+    private boolean moveToWithPrecisionSequenceOpenLoop(float targetX, float targetY, float targetZ, float targetTorque) {
+        float[] pose = lastCommandedPose;
+        if (pose == null) {
+            moveToWithPrecisionSequence(targetX, targetY, targetZ, targetTorque);
+            return false;
+        }
+        runPrecisionSequence(pose[0], pose[1], pose[2], pose[3], true,
+                targetX, targetY, targetZ, targetTorque);
+        return true;
+    }
+
+    private void runPrecisionSequence(float currentX, float currentY, float currentZ, float currentTorque,
+                                      boolean hasCurrentPos,
+                                      float targetX, float targetY, float targetZ, float targetTorque) {
+        float safeZ = SAFE_Z;
+        float speed = getSpeedFor(targetX, targetY);
+
+        // Only lift as high as the marbles along the way require
+        if (hasCurrentPos) {
+            safeZ = ClearancePlanner.getInstance().getTransitZ(currentX, currentY, targetX, targetY);
+        }
+
         // Step 1: rise to safe Z first (keep XY unchanged)
         String jsonCmd1 = String.format("{\"T\":104,\"x\":%.2f,\"y\":%.2f,\"z\":%.2f,\"t\":%.2f,\"spd\":%.2f}",
-                currentX, currentY, safeZ, currentTorque, DEFAULT_SPEED);
+                currentX, currentY, safeZ, currentTorque, speed);
         sendHttpCommand(jsonCmd1);
-        Log.d(TAG, "Step1: Move to safe Z (keeping current XY)");
+        Log.d(TAG, String.format("Step1: Move to transit Z %.2f (keeping current XY)", safeZ));
 
         try {
-            Thread.sleep(SHORT_DELAY_MS);
+            Thread.sleep(hasCurrentPos ? getVerticalDelayMs(Math.abs(safeZ - currentZ)) : SHORT_DELAY_MS);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
 
         // Step 2: adjust torque
         String jsonCmd2 = String.format("{\"T\":104,\"x\":%.2f,\"y\":%.2f,\"z\":%.2f,\"t\":%.2f,\"spd\":%.2f}",
-                currentX, currentY, safeZ, targetTorque, DEFAULT_SPEED);
+                currentX, currentY, safeZ, targetTorque, speed);
         sendHttpCommand(jsonCmd2);
         Log.d(TAG, "Step2: Adjust torque");
 
@@ -142,7 +279,7 @@ public class RobotController {
 
         // Step 3: move to target XY at safe Z
         String jsonCmd3 = String.format("{\"T\":104,\"x\":%.2f,\"y\":%.2f,\"z\":%.2f,\"t\":%.2f,\"spd\":%.2f}",
-                targetX, targetY, safeZ, targetTorque, DEFAULT_SPEED);
+                targetX, targetY, safeZ, targetTorque, speed);
         sendHttpCommand(jsonCmd3);
         Log.d(TAG, "Step3: Hover above target");
 
@@ -154,12 +291,22 @@ public class RobotController {
 
         // Step 4: go down to targetZ
         String jsonCmd4 = String.format("{\"T\":104,\"x\":%.2f,\"y\":%.2f,\"z\":%.2f,\"t\":%.2f,\"spd\":%.2f}",
-                targetX, targetY, targetZ, targetTorque, DEFAULT_SPEED);
+                targetX, targetY, targetZ, targetTorque, speed);
         sendHttpCommand(jsonCmd4);
+        lastCommandedPose = new float[]{targetX, targetY, targetZ, targetTorque};
         Log.d(TAG, "Step4: Descend to final position");
     }
 
+    /**
+     * Time to wait for a purely vertical move of the given length
+     */
+    static int getVerticalDelayMs(float distanceMm) {
+        int delay = MIN_VERTICAL_DELAY_MS + Math.round(distanceMm * VERTICAL_DELAY_MS_PER_MM);
+        return Math.min(delay, SHORT_DELAY_MS);
+    }
+
     public JSONObject getPositionFeedback() {
+        verificationPolicy.recordRoundTrip();
         final CountDownLatch latch = new CountDownLatch(1);
         final AtomicReference<JSONObject> resultRef = new AtomicReference<>();
 
@@ -201,6 +348,24 @@ public class RobotController {
         return resultRef.get();
     }
 
+    /**
+     * Board cell the arm is currently over, from position feedback.
+     * @return the nearest cell in the horizontal plane, or null without feedback
+     */
+    public CellSpatialIndex.Match locateArm() {
+        JSONObject feedback = getPositionFeedback();
+        if (feedback == null) {
+            return null;
+        }
+        try {
+            return BoardCoordinatesAdapter.getInstance().getSpatialIndex().nearestXY(
+                    (float) feedback.getDouble("x"), (float) feedback.getDouble("y"));
+        } catch (JSONException e) {
+            Log.e(TAG, "Error parsing position data: " + e.getMessage());
+            return null;
+        }
+    }
+
     public boolean verifyPosition(float targetX, float targetY, float targetZ, float tolerance) {
         JSONObject feedback = getPositionFeedback();
         if (feedback == null) {
@@ -218,8 +383,10 @@ public class RobotController {
                             Math.abs(currentY - targetY) <= tolerance &&
                             Math.abs(currentZ - targetZ) <= tolerance;
 
-            Log.d(TAG, String.format("Position verification: Target(%.2f, %.2f,%.2f) Current(%.2f,%.2f,%.2f) Result: %s",
-                    targetX, targetY, targetZ, currentX, currentY, currentZ, isPositionCorrect));
+            Log.d(TAG, String.format("Position verification: Target(%.2f, %.2f,%.2f) Current(%.2f,%.2f,%.2f) near %s Result: %s",
+                    targetX, targetY, targetZ, currentX, currentY, currentZ,
+                    BoardCoordinatesAdapter.getInstance().locate(currentX, currentY, currentZ),
+                    isPositionCorrect));
 
             return isPositionCorrect;
 
@@ -234,7 +401,48 @@ public class RobotController {
             MovementCallback callback) {
 
         return executeVerifiedMovement(targetX, targetY, targetZ, targetTorque,
-                DEFAULT_POSITION_TOLERANCE, DEFAULT_MAX_RETRIES, callback);
+                getToleranceFor(targetX, targetY), DEFAULT_MAX_RETRIES, callback);
+    }
+
+    /**
+     * Move to a target, verifying with position feedback only if the
+     * verification policy requires it for this kind of segment.
+     */
+    public CompletableFuture<Boolean> executeMovement(
+            float targetX, float targetY, float targetZ, float targetTorque,
+            VerificationPolicy.SegmentType segmentType, MovementCallback callback) {
+
+        if (verificationPolicy.shouldVerify(segmentType)) {
+            return executeVerifiedMovement(targetX, targetY, targetZ, targetTorque, callback);
+        }
+
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        commandExecutor.submit(() -> {
+            if (callback != null) {
+                callback.onProgress(String.format("Moving open-loop (%s) to (%.2f,%.2f,%.2f)",
+                        segmentType, targetX, targetY, targetZ));
+            }
+
+            // A verified movement needs at least the start pose and one check
+            float[] driftOffset = driftMonitor.getCommandOffset(targetX, targetY);
+            boolean usedLastPose = moveToWithPrecisionSequenceOpenLoop(
+                    targetX - driftOffset[0], targetY - driftOffset[1], targetZ, targetTorque);
+            verificationPolicy.recordAvoidedRoundTrips(usedLastPose ? 2 : 1);
+
+            try {
+                Thread.sleep(getSettleDelayMs(targetX, targetY, targetZ));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (callback != null) callback.onFailure("Movement interrupted");
+                future.complete(false);
+                return;
+            }
+
+            if (callback != null) callback.onSuccess();
+            future.complete(true);
+        });
+
+        return future;
     }
 
     public void setTorque(float torque) {
@@ -274,6 +482,10 @@ public class RobotController {
             final float originalX = targetX;
             final float originalY = targetY;
             final float originalZ = targetZ;
+            // Commanded position, shifted by any drift measured in this board region
+            float[] driftOffset = driftMonitor.getCommandOffset(targetX, targetY);
+            final float commandX = originalX - driftOffset[0];
+            final float commandY = originalY - driftOffset[1];
 
             int attemptCount = 0;
             boolean success = false;
@@ -282,8 +494,8 @@ public class RobotController {
                 attemptCount++;
 
                 // Calculate adjusted target for this attempt
-                float adjustedX = originalX;
-                float adjustedY = originalY;
+                float adjustedX = commandX;
+                float adjustedY = commandY;
                 float adjustedZ = originalZ;
 
                 // Only apply corrections on retry attempts
@@ -300,9 +512,8 @@ public class RobotController {
                             float diffY = originalY - currentY;
 
                             if (attemptCount >= 2) {
-                                adjustedX = originalX
-                                        + diffX;
-                                adjustedY = originalY + diffY;
+                                adjustedX = commandX + diffX;
+                                adjustedY = commandY + diffY;
 
                                 if (callback != null) {
                                     callback.onProgress(String.format(
@@ -360,7 +571,7 @@ public class RobotController {
                 moveToWithPrecisionSequence(adjustedX, adjustedY, adjustedZ, targetTorque);
 
                 try {
-                    Thread.sleep(MOVEMENT_DELAY_MS);
+                    Thread.sleep(getSettleDelayMs(targetX, targetY, targetZ));
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     if (callback != null) callback.onFailure("Movement interrupted");
@@ -377,6 +588,7 @@ public class RobotController {
                 // Get position feedback to check result - always compare against original target
                 JSONObject feedback = getPositionFeedback();
                 if (feedback == null) {
+                    verificationPolicy.reportAnomaly("No position feedback");
                     if (callback != null) {
                         callback.onProgress("Could not get position feedback");
                     }
@@ -389,6 +601,11 @@ public class RobotController {
                     float currentZ = (float) feedback.getDouble("z");
                     float currentT = (float) feedback.getDouble("t");
 
+                    // Only the uncorrected first attempt shows the mapping's own error
+                    if (attemptCount == 1) {
+                        driftMonitor.record(originalX, originalY, currentX, currentY);
+                    }
+
                     // Calculate differences between ORIGINAL target and actual positions
                     float diffX = originalX - currentX;
                     float diffY = originalY - currentY;
@@ -398,6 +615,9 @@ public class RobotController {
                             Math.abs(diffY) <= POSITION_TOLERANCE;
 
                     if (success) {
+                        if (attemptCount > 1) {
+                            verificationPolicy.reportAnomaly("Target reached after " + attemptCount + " attempts");
+                        }
                         if (callback != null) {
                             callback.onProgress(String.format(
                                     "Position reached within tolerance of %.2fmm\n" +
@@ -440,6 +660,7 @@ public class RobotController {
                 }
             }
 
+            verificationPolicy.reportAnomaly("Failed to reach position after " + MAX_TRIES + " attempts");
             if (callback != null) {
                 callback.onFailure("Failed to reach position after " + MAX_TRIES + " attempts");
             }
@@ -449,9 +670,40 @@ public class RobotController {
         return future;
     }
 
+    /**
+     * Move to the hover height above a cell. Pass verify before an overlapped
+     * release: the descent after it runs open-loop, so the hover has to be checked.
+     */
+    public CompletableFuture<Boolean> moveAbove(CellCoordinate cell, boolean verify, MovementCallback callback) {
+        if (verify) {
+            return executeVerifiedMovement(cell.getX(), cell.getY(), getHoverZ(cell), cell.getTorque(), callback);
+        }
+        return executeMovement(cell.getX(), cell.getY(), getHoverZ(cell), cell.getTorque(),
+                VerificationPolicy.SegmentType.HOVER, callback);
+    }
+
+    /**
+     * Overlapped release from the hover position: descend straight down at the
+     * same drift-corrected XY and open the gripper during the descent, timed
+     * from the measured vertical speed. Returns once the gripper is commanded
+     * open; follow with getGripperScheduler().awaitLiftThreshold().
+     */
+    public void descendAndRelease(CellCoordinate cell) throws InterruptedException {
+        float descent = getHoverZ(cell) - cell.getZ();
+        float[] driftOffset = driftMonitor.getCommandOffset(cell.getX(), cell.getY());
+        moveTo(cell.getX() - driftOffset[0], cell.getY() - driftOffset[1], cell.getZ(), cell.getTorque());
+        Thread.sleep(gripperScheduler.getPreOpenDelayMs(descent, getVerticalSpeedFor(cell.getX(), cell.getY())));
+        controlGripper(false);
+    }
+
+    private float getHoverZ(CellCoordinate cell) {
+        return ClearancePlanner.getInstance().getHoverZ(cell.getX(), cell.getY());
+    }
+
     public void controlGripper(boolean close) {
         String jsonCmd = close ? "{\"T\":116,\"cmd\":1}" : "{\"T\":116,\"cmd\":0}";
         sendHttpCommand(jsonCmd);
+        gripperScheduler.onGripperCommand(close);
         Log.d(TAG, close ? "Gripper closing" : "Gripper opening");
     }
 
@@ -461,8 +713,9 @@ public class RobotController {
                 if (callback != null) callback.onProgress("Starting pickup");
 
                 // Move overhead
-                CompletableFuture<Boolean> moveAboveFuture = executeVerifiedMovement(
-                        cell.getX(), cell.getY(), SAFE_Z, cell.getTorque(),
+                CompletableFuture<Boolean> moveAboveFuture = executeMovement(
+                        cell.getX(), cell.getY(), getHoverZ(cell), cell.getTorque(),
+                        VerificationPolicy.SegmentType.HOVER,
                         new MovementCallback() {
                             @Override public void onSuccess() { /* handled in main sequence */ }
                             @Override public void onFailure(String errorMessage) {
@@ -479,8 +732,9 @@ public class RobotController {
                 }
 
                 // Move down
-                CompletableFuture<Boolean> moveDownFuture = executeVerifiedMovement(
+                CompletableFuture<Boolean> moveDownFuture = executeMovement(
                         cell.getX(), cell.getY(), cell.getZ(), cell.getTorque(),
+                        VerificationPolicy.SegmentType.GRASP,
                         new MovementCallback() {
                             @Override public void onSuccess() { /* handled in main sequence */ }
                             @Override public void onFailure(String errorMessage) {
@@ -499,11 +753,12 @@ public class RobotController {
                 // Close gripper
                 if (callback != null) callback.onProgress("Closing gripper");
                 controlGripper(true);
-                Thread.sleep(1000);
+                gripperScheduler.awaitLiftThreshold();
 
                 // Move back up
-                CompletableFuture<Boolean> moveUpFuture = executeVerifiedMovement(
-                        cell.getX(), cell.getY(), SAFE_Z, cell.getTorque(),
+                CompletableFuture<Boolean> moveUpFuture = executeMovement(
+                        cell.getX(), cell.getY(), getHoverZ(cell), cell.getTorque(),
+                        VerificationPolicy.SegmentType.LIFT,
                         new MovementCallback() {
                             @Override public void onSuccess() { /* handled in main sequence */ }
                             @Override public void onFailure(String errorMessage) {
@@ -534,51 +789,60 @@ public class RobotController {
             try {
                 if (callback != null) callback.onProgress("Starting placement");
 
-                // Move overhead
-                CompletableFuture<Boolean> moveAboveFuture = executeVerifiedMovement(
-                        cell.getX(), cell.getY(), SAFE_Z, cell.getTorque(),
-                        new MovementCallback() {
-                            @Override public void onSuccess() { /* handled in main sequence */ }
-                            @Override public void onFailure(String errorMessage) {
-                                if (callback != null) callback.onFailure("Failed to move above: " + errorMessage);
-                            }
-                            @Override public void onProgress(String status) {
-                                if (callback != null) callback.onProgress(status);
-                            }
-                        });
+                MovementCallback moveAboveCallback = new MovementCallback() {
+                    @Override public void onSuccess() { /* handled in main sequence */ }
+                    @Override public void onFailure(String errorMessage) {
+                        if (callback != null) callback.onFailure("Failed to move above: " + errorMessage);
+                    }
+                    @Override public void onProgress(String status) {
+                        if (callback != null) callback.onProgress(status);
+                    }
+                };
+                // Move overhead, verified when the descent will be overlapped
+                boolean overlap = gripperScheduler.isOverlapEnabled();
+                CompletableFuture<Boolean> moveAboveFuture = moveAbove(cell, overlap, moveAboveCallback);
 
                 if (!moveAboveFuture.get()) {
                     if (callback != null) callback.onFailure("Failed to move above");
                     return;
                 }
 
-                // Move down
-                CompletableFuture<Boolean> moveDownFuture = executeVerifiedMovement(
-                        cell.getX(), cell.getY(), cell.getZ(), cell.getTorque(),
-                        new MovementCallback() {
-                            @Override public void onSuccess() { /* handled in main sequence */ }
-                            @Override public void onFailure(String errorMessage) {
-                                if (callback != null) callback.onFailure("Failed to move down: " + errorMessage);
-                            }
-                            @Override public void onProgress(String status) {
-                                if (callback != null) callback.onProgress(status);
-                            }
-                        });
+                if (overlap) {
+                    // XY was verified above the cell, so descend straight down and
+                    // open the gripper while still travelling
+                    if (callback != null) callback.onProgress("Opening gripper during descent");
+                    descendAndRelease(cell);
+                } else {
+                    // Move down
+                    CompletableFuture<Boolean> moveDownFuture = executeMovement(
+                            cell.getX(), cell.getY(), cell.getZ(), cell.getTorque(),
+                            VerificationPolicy.SegmentType.RELEASE,
+                            new MovementCallback() {
+                                @Override public void onSuccess() { /* handled in main sequence */ }
+                                @Override public void onFailure(String errorMessage) {
+                                    if (callback != null) callback.onFailure("Failed to move down: " + errorMessage);
+                                }
+                                @Override public void onProgress(String status) {
+                                    if (callback != null) callback.onProgress(status);
+                                }
+                            });
 
-                if (!moveDownFuture.get()) {
-                    if (callback != null) callback.onFailure("Failed to move down");
+                    if (!moveDownFuture.get()) {
+                        if (callback != null) callback.onFailure("Failed to move down");
+                        controlGripper(false);
+                        return;
+                    }
+
+                    // Open gripper
+                    if (callback != null) callback.onProgress("Opening gripper");
                     controlGripper(false);
-                    return;
                 }
-
-                // Open gripper
-                if (callback != null) callback.onProgress("Opening gripper");
-                controlGripper(false);
-                Thread.sleep(1000);
+                gripperScheduler.awaitLiftThreshold();
 
                 // Move back up
-                CompletableFuture<Boolean> moveUpFuture = executeVerifiedMovement(
-                        cell.getX(), cell.getY(), SAFE_Z, cell.getTorque(),
+                CompletableFuture<Boolean> moveUpFuture = executeMovement(
+                        cell.getX(), cell.getY(), getHoverZ(cell), cell.getTorque(),
+                        VerificationPolicy.SegmentType.LIFT,
                         new MovementCallback() {
                             @Override public void onSuccess() { /* handled in main sequence */ }
                             @Override public void onFailure(String errorMessage) {
@@ -656,8 +920,9 @@ public class RobotController {
                                     " of " + intermediatePoints.size());
                         }
 
-                        CompletableFuture<Boolean> moveFuture = executeVerifiedMovement(
-                                point.getX(), point.getY(), SAFE_Z, point.getTorque(),
+                        CompletableFuture<Boolean> moveFuture = executeMovement(
+                                point.getX(), point.getY(), getHoverZ(point), point.getTorque(),
+                                VerificationPolicy.SegmentType.TRANSIT,
                                 new MovementCallback() {
                                     @Override public void onSuccess() { /* handled in main sequence */ }
                                     @Override public void onFailure(String errorMessage) {
@@ -0,0 +1,229 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calibration job that sweeps the arm through sample cells of every board
+ * region at increasing speeds. From position feedback it records overshoot,
+ * settle time, final error and travel rate, and keeps the fastest speed per
+ * region that still meets the position tolerance.
+ *
+ * All test moves are made at the transit height, so marbles on the board
+ * are never touched.
+ */
+public class SpeedCalibrator {
+    private static final String TAG = "SpeedCalibrator";
+
+    private static final float[] CANDIDATE_SPEEDS = {1f, 2f, 3f, 4f, 6f, 8f, 10f};
+    private static final int POLL_INTERVAL_MS = 100;
+    private static final int MAX_SETTLE_MS = 5000;
+    // Consecutive in-tolerance readings before the arm counts as settled
+    private static final int STABLE_READINGS = 3;
+    private static final float MAX_OVERSHOOT_MM = 2f;
+    // Board cell the arm returns to between test moves
+    private static final int STAGING_BOARD_X = 4;
+    private static final int STAGING_BOARD_Y = 8;
+
+    public interface CalibrationCallback {
+        void onProgress(String status);
+        void onComplete(SpeedProfile profile);
+        void onFailure(String errorMessage);
+    }
+
+    public static class Measurement {
+        public final float overshootMm;
+        public final int settleMs;
+        public final float finalErrorMm;
+        public final boolean settled;
+        // Distance over time to settle, 0 if the start position was unknown
+        public final float travelMmPerS;
+
+        Measurement(float overshootMm, int settleMs, float finalErrorMm, boolean settled, float travelMmPerS) {
+            this.overshootMm = overshootMm;
+            this.settleMs = settleMs;
+            this.finalErrorMm = finalErrorMm;
+            this.settled = settled;
+            this.travelMmPerS = travelMmPerS;
+        }
+    }
+
+    private final RobotController robotController;
+    private final float tolerance;
+
+    public SpeedCalibrator(RobotController robotController, float tolerance) {
+        this.robotController = robotController;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Run the sweep on a background thread
+     */
+    public void start(CalibrationCallback callback) {
+        new Thread(() -> {
+            try {
+                SpeedProfile profile = runSweep(callback);
+                callback.onComplete(profile);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                callback.onFailure("Calibration interrupted");
+            } catch (Exception e) {
+                Log.e(TAG, "Speed calibration failed", e);
+                callback.onFailure("Error: " + e.getMessage());
+            }
+        }).start();
+    }
+
+    private SpeedProfile runSweep(CalibrationCallback callback) throws InterruptedException {
+        BoardCoordinatesAdapter adapter = BoardCoordinatesAdapter.getInstance();
+        CellCoordinate staging = adapter.getBoardCellCoordinate(STAGING_BOARD_X, STAGING_BOARD_Y);
+        if (staging == null) {
+            throw new IllegalStateException("Staging cell is not mapped");
+        }
+
+        Map<BoardRegion, SpeedProfile.RegionSettings> settings = new EnumMap<>(BoardRegion.class);
+
+        for (BoardRegion region : BoardRegion.values()) {
+            List<CellCoordinate> samples = getSampleCells(adapter, region);
+            SpeedProfile.RegionSettings best = null;
+
+            for (float speed : CANDIDATE_SPEEDS) {
+                int worstSettleMs = 0;
+                float slowestTravel = 0f;
+                boolean passed = true;
+
+                for (CellCoordinate cell : samples) {
+                    // Approach every sample from the same staging point
+                    moveAndTrack(staging, speed);
+                    Measurement m = moveAndTrack(cell, speed);
+
+                    callback.onProgress(String.format(
+                            "%s speed %.1f cell (%d,%d): overshoot %.2fmm, settle %dms, error %.2fmm",
+                            region, speed, cell.getGridX(), cell.getGridY(),
+                            m.overshootMm, m.settleMs, m.finalErrorMm));
+
+                    if (!m.settled || m.finalErrorMm > tolerance || m.overshootMm > MAX_OVERSHOOT_MM) {
+                        passed = false;
+                        break;
+                    }
+                    worstSettleMs = Math.max(worstSettleMs, m.settleMs);
+                    if (m.travelMmPerS > 0f && (slowestTravel == 0f || m.travelMmPerS < slowestTravel)) {
+                        slowestTravel = m.travelMmPerS;
+                    }
+                }
+
+                if (!passed) {
+                    // Faster speeds only get worse
+                    break;
+                }
+                best = new SpeedProfile.RegionSettings(speed, tolerance, worstSettleMs, slowestTravel);
+            }
+
+            if (best == null) {
+                Log.w(TAG, region + " failed even at the lowest speed");
+                best = new SpeedProfile.RegionSettings(CANDIDATE_SPEEDS[0], tolerance, MAX_SETTLE_MS);
+            }
+            settings.put(region, best);
+            callback.onProgress(String.format("%s: speed %.1f, settle %dms, travel %.1fmm/s",
+                    region, best.speed, best.settleMs, best.travelMmPerS));
+        }
+
+        return new SpeedProfile(settings);
+    }
+
+    /**
+     * First, middle and last row of the region, middle cell of each row
+     */
+    private List<CellCoordinate> getSampleCells(BoardCoordinatesAdapter adapter, BoardRegion region) {
+        List<CellCoordinate> samples = new ArrayList<>();
+        int[] rows = {region.getFirstRow(),
+                (region.getFirstRow() + region.getLastRow()) / 2,
+                region.getLastRow()};
+        for (int row : rows) {
+            CellCoordinate cell = adapter.getBoardCellCoordinate(
+                    BoardCoordinatesAdapter.TILES_PER_ROW[row] / 2, row);
+            if (cell != null && !samples.contains(cell)) {
+                samples.add(cell);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Command a move above the cell at the given speed and follow it with feedback
+     */
+    private Measurement moveAndTrack(CellCoordinate cell, float speed) throws InterruptedException {
+        float targetX = cell.getX();
+        float targetY = cell.getY();
+        float[] start = readXY();
+
+        robotController.moveTo(targetX, targetY, ClearancePlanner.MAX_TRANSIT_Z, cell.getTorque(), speed);
+        long commandTime = System.currentTimeMillis();
+
+        // Direction of approach, used to measure how far the arm runs past the target
+        float dirX = 0f;
+        float dirY = 0f;
+        float length = 0f;
+        if (start != null) {
+            float dx = targetX - start[0];
+            float dy = targetY - start[1];
+            length = (float) Math.sqrt(dx * dx + dy * dy);
+            if (length > 0f) {
+                dirX = dx / length;
+                dirY = dy / length;
+            }
+        }
+
+        float overshoot = 0f;
+        float error = Float.MAX_VALUE;
+        int settledAt = -1;
+        int stableCount = 0;
+
+        while (System.currentTimeMillis() - commandTime < MAX_SETTLE_MS) {
+            Thread.sleep(POLL_INTERVAL_MS);
+            float[] pos = readXY();
+            if (pos == null) {
+                continue;
+            }
+            int elapsed = (int) (System.currentTimeMillis() - commandTime);
+
+            float ex = pos[0] - targetX;
+            float ey = pos[1] - targetY;
+            error = (float) Math.sqrt(ex * ex + ey * ey);
+            overshoot = Math.max(overshoot, ex * dirX + ey * dirY);
+
+            if (error <= tolerance) {
+                if (settledAt < 0) settledAt = elapsed;
+                if (++stableCount >= STABLE_READINGS) break;
+            } else {
+                settledAt = -1;
+                stableCount = 0;
+            }
+        }
+
+        boolean settled = stableCount >= STABLE_READINGS;
+        // Polling only delays settledAt, so this never overstates the rate
+        float travel = settled && settledAt > 0 ? length * 1000f / settledAt : 0f;
+        return new Measurement(overshoot, settled ? settledAt : MAX_SETTLE_MS, error, settled, travel);
+    }
+
+    private float[] readXY() {
+        JSONObject feedback = robotController.getPositionFeedback();
+        if (feedback == null) {
+            return null;
+        }
+        try {
+            return new float[]{(float) feedback.getDouble("x"), (float) feedback.getDouble("y")};
+        } catch (JSONException e) {
+            Log.e(TAG, "Error parsing position data: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Arm speed, position tolerance, settle time and travel rate per board
+ * region, as measured by SpeedCalibrator.
+ */
+public class SpeedProfile {
+    public static final String FILE_NAME = "speed_profile.json";
+
+    public static class RegionSettings {
+        public final float speed;
+        public final float tolerance;
+        public final int settleMs;
+        // Slowest measured travel rate at this speed, 0 if unknown (older profiles)
+        public final float travelMmPerS;
+
+        public RegionSettings(float speed, float tolerance, int settleMs) {
+            this(speed, tolerance, settleMs, 0f);
+        }
+
+        public RegionSettings(float speed, float tolerance, int settleMs, float travelMmPerS) {
+            this.speed = speed;
+            this.tolerance = tolerance;
+            this.settleMs = settleMs;
+            this.travelMmPerS = travelMmPerS;
+        }
+    }
+
+    private final Map<BoardRegion, RegionSettings> settings;
+
+    public SpeedProfile(Map<BoardRegion, RegionSettings> settings) {
+        this.settings = new EnumMap<>(settings);
+    }
+
+    /**
+     * @return settings for the region or null if it was not calibrated
+     */
+    public RegionSettings get(BoardRegion region) {
+        return settings.get(region);
+    }
+
+    /**
+     * Settings for the region of the board cell closest to a robot XY position
+     */
+    public RegionSettings getForPosition(float x, float y) {
+        int[] cell = BoardCoordinatesAdapter.getInstance().findNearestBoardCell(x, y);
+        if (cell == null) {
+            return null;
+        }
+        return settings.get(BoardRegion.forRow(cell[1]));
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        for (Map.Entry<BoardRegion, RegionSettings> entry : settings.entrySet()) {
+            JSONObject region = new JSONObject();
+            region.put("speed", entry.getValue().speed);
+            region.put("tolerance", entry.getValue().tolerance);
+            region.put("settle_ms", entry.getValue().settleMs);
+            region.put("travel_mm_per_s", entry.getValue().travelMmPerS);
+            json.put(entry.getKey().name(), region);
+        }
+        return json;
+    }
+
+    public static SpeedProfile fromJson(JSONObject json) throws JSONException {
+        Map<BoardRegion, RegionSettings> settings = new EnumMap<>(BoardRegion.class);
+        for (BoardRegion region : BoardRegion.values()) {
+            JSONObject entry = json.optJSONObject(region.name());
+            if (entry != null) {
+                settings.put(region, new RegionSettings(
+                        (float) entry.getDouble("speed"),
+                        (float) entry.getDouble("tolerance"),
+                        entry.getInt("settle_ms"),
+                        (float) entry.optDouble("travel_mm_per_s", 0.0)));
+            }
+        }
+        return new SpeedProfile(settings);
+    }
+
+    public void save(File file) throws IOException, JSONException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(toJson().toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    public static SpeedProfile load(File file) throws IOException, JSONException {
+        byte[] data = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < data.length) {
+                int n = in.read(data, read, data.length - read);
+                if (n < 0) break;
+                read += n;
+            }
+        }
+        return fromJson(new JSONObject(new String(data, StandardCharsets.UTF_8)));
+    }
+}
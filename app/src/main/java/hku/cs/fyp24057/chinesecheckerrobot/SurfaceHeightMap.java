@@ -0,0 +1,115 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Board surface height measured at a few probed points and interpolated over
+ * the whole board by inverse distance weighting. Turns the measured surface
+ * into exact per-cell grasp heights.
+ */
+public class SurfaceHeightMap {
+
+    // Weight falls off with the square of the distance
+    private static final double IDW_POWER = 2.0;
+    // Closer than this to a probe, the probe height is used directly
+    private static final float EXACT_RADIUS_MM = 0.5f;
+
+    public static class Probe {
+        public final int boardX;
+        public final int boardY;
+        public final float x;
+        public final float y;
+        // Height at which the gripper touched the board
+        public final float contactZ;
+
+        public Probe(int boardX, int boardY, float x, float y, float contactZ) {
+            this.boardX = boardX;
+            this.boardY = boardY;
+            this.x = x;
+            this.y = y;
+            this.contactZ = contactZ;
+        }
+    }
+
+    private final List<Probe> probes;
+
+    public SurfaceHeightMap(List<Probe> probes) {
+        if (probes.isEmpty()) {
+            throw new IllegalArgumentException("Height map needs at least one probe");
+        }
+        this.probes = Collections.unmodifiableList(new ArrayList<>(probes));
+    }
+
+    public List<Probe> getProbes() {
+        return probes;
+    }
+
+    /**
+     * Interpolated surface height at a robot XY position
+     */
+    public float heightAt(float x, float y) {
+        double weightSum = 0.0;
+        double heightSum = 0.0;
+        for (Probe probe : probes) {
+            float dx = probe.x - x;
+            float dy = probe.y - y;
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            if (distance < EXACT_RADIUS_MM) {
+                return probe.contactZ;
+            }
+            double weight = 1.0 / Math.pow(distance, IDW_POWER);
+            weightSum += weight;
+            heightSum += weight * probe.contactZ;
+        }
+        return (float) (heightSum / weightSum);
+    }
+
+    /**
+     * Grasp height above the surface that the current table already uses at the
+     * probed cells (median, so one odd hand-tuned cell does not skew it)
+     */
+    public float graspOffsetFrom(CoordinateTable table) {
+        List<Float> offsets = new ArrayList<>();
+        for (Probe probe : probes) {
+            int index = CoordinateTable.pack(probe.boardX, probe.boardY);
+            if (index >= 0 && table.isMapped(index)) {
+                offsets.add(table.getZ(index) - probe.contactZ);
+            }
+        }
+        if (offsets.isEmpty()) {
+            return 0f;
+        }
+        Collections.sort(offsets);
+        return offsets.get(offsets.size() / 2);
+    }
+
+    /**
+     * Copy of the table with every cell's Z set to the surface height plus the grasp offset
+     */
+    public CoordinateTable applyTo(CoordinateTable table, float graspOffsetMm) {
+        CoordinateTable.Builder builder = new CoordinateTable.Builder(table).setSurfaceProbed(true);
+        for (int i = 0; i < CoordinateTable.SIZE; i++) {
+            if (!table.isMapped(i)) continue;
+            CellCoordinate cell = table.get(i);
+            float z = heightAt(cell.getX(), cell.getY()) + graspOffsetMm;
+            builder.set(CoordinateTable.boardXOf(i), CoordinateTable.boardYOf(i),
+                    new CellCoordinate(cell.getGridX(), cell.getGridY(),
+                            cell.getX(), cell.getY(), z, cell.getTorque(), cell.isValidCell()));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        float[] heights = new float[probes.size()];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = probes.get(i).contactZ;
+        }
+        Arrays.sort(heights);
+        return String.format("%d probes, surface Z %.2f..%.2f",
+                heights.length, heights[0], heights[heights.length - 1]);
+    }
+}
@@ -0,0 +1,143 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Probing routine that lowers the open gripper onto the board at a sparse set
+ * of cells and records the height at which it touches the surface. Contact is
+ * detected when the reported Z stops following the commanded Z, i.e. the arm
+ * is held up by the board.
+ *
+ * Probe cells must be empty.
+ */
+public class SurfaceProber {
+    private static final String TAG = "SurfaceProber";
+
+    private static final float PROBE_SPEED = 1f;
+    private static final float STEP_MM = 1f;
+    // Probe window around the cell's current Z
+    private static final float START_ABOVE_MM = 10f;
+    private static final float MAX_BELOW_MM = 8f;
+    // Reported Z this far above the commanded Z means the arm is blocked
+    private static final float STALL_MM = 1.5f;
+    private static final int STEP_SETTLE_MS = 200;
+    private static final int TRAVEL_DELAY_MS = 2500;
+
+    // Corners of the star, the middle and the rows between
+    private static final int[][] DEFAULT_PROBE_CELLS = {
+            {0, 0}, {0, 4}, {12, 4}, {2, 6}, {8, 6}, {4, 8},
+            {2, 10}, {8, 10}, {0, 12}, {12, 12}, {0, 16}
+    };
+
+    public interface ProbeCallback {
+        void onProgress(String status);
+        void onComplete(SurfaceHeightMap heightMap);
+        void onFailure(String errorMessage);
+    }
+
+    private final RobotController robotController;
+
+    public SurfaceProber(RobotController robotController) {
+        this.robotController = robotController;
+    }
+
+    /**
+     * Probe the default cells on a background thread
+     */
+    public void start(ProbeCallback callback) {
+        new Thread(() -> {
+            try {
+                callback.onComplete(probe(DEFAULT_PROBE_CELLS, callback));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                callback.onFailure("Probing interrupted");
+            } catch (Exception e) {
+                Log.e(TAG, "Surface probing failed", e);
+                callback.onFailure("Error: " + e.getMessage());
+            } finally {
+                robotController.reset();
+            }
+        }).start();
+    }
+
+    private SurfaceHeightMap probe(int[][] cells, ProbeCallback callback) throws InterruptedException {
+        BoardCoordinatesAdapter adapter = BoardCoordinatesAdapter.getInstance();
+        List<SurfaceHeightMap.Probe> probes = new ArrayList<>();
+
+        robotController.controlGripper(false);
+        for (int[] boardCell : cells) {
+            CellCoordinate cell = adapter.getBoardCellCoordinate(boardCell[0], boardCell[1]);
+            if (cell == null) {
+                continue;
+            }
+            Float contactZ = probeCell(cell);
+            if (contactZ == null) {
+                callback.onProgress(String.format("Cell (%d,%d): no contact found", boardCell[0], boardCell[1]));
+                continue;
+            }
+            probes.add(new SurfaceHeightMap.Probe(boardCell[0], boardCell[1], cell.getX(), cell.getY(), contactZ));
+            callback.onProgress(String.format("Cell (%d,%d): surface at Z=%.2f (table Z %.2f)",
+                    boardCell[0], boardCell[1], contactZ, cell.getZ()));
+        }
+
+        if (probes.size() < 3) {
+            throw new IllegalStateException("Only " + probes.size() + " cells touched the surface");
+        }
+        return new SurfaceHeightMap(probes);
+    }
+
+    /**
+     * Step down over the cell until the arm stalls.
+     * @return contact height, or null if the arm never touched within the window
+     */
+    private Float probeCell(CellCoordinate cell) throws InterruptedException {
+        float x = cell.getX();
+        float y = cell.getY();
+        float torque = cell.getTorque();
+
+        robotController.moveTo(x, y, ClearancePlanner.MAX_TRANSIT_Z, torque);
+        Thread.sleep(TRAVEL_DELAY_MS);
+
+        float startZ = cell.getZ() + START_ABOVE_MM;
+        robotController.moveTo(x, y, startZ, torque);
+        Thread.sleep(RobotController.getVerticalDelayMs(Math.abs(ClearancePlanner.MAX_TRANSIT_Z - startZ)));
+
+        Float contact = null;
+        for (float z = startZ; z >= cell.getZ() - MAX_BELOW_MM; z -= STEP_MM) {
+            robotController.moveTo(x, y, z, torque, PROBE_SPEED);
+            Thread.sleep(STEP_SETTLE_MS);
+            float reportedZ = readZ();
+            if (Float.isNaN(reportedZ)) {
+                continue;
+            }
+            if (reportedZ - z > STALL_MM) {
+                contact = reportedZ;
+                break;
+            }
+        }
+
+        // Back off before moving on
+        robotController.moveTo(x, y, ClearancePlanner.MAX_TRANSIT_Z, torque);
+        Thread.sleep(RobotController.getVerticalDelayMs(Math.abs(ClearancePlanner.MAX_TRANSIT_Z - startZ)));
+        return contact;
+    }
+
+    private float readZ() {
+        JSONObject feedback = robotController.getPositionFeedback();
+        if (feedback == null) {
+            return Float.NaN;
+        }
+        try {
+            return (float) feedback.getDouble("z");
+        } catch (JSONException e) {
+            Log.e(TAG, "Error parsing position data: " + e.getMessage());
+            return Float.NaN;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * Predicted time for the arm to carry a marble from any board cell to any other,
+ * as the robot controller times an open-loop move: lift to the planner's transit
+ * height, turn the wrist, hover over the target and settle after the descent.
+ * The 121 x 121 matrix holds everything but the lift, filled from the coordinate
+ * table and the speed profile; only the rows and columns of changed cells are
+ * recomputed when the calibration changes, and all of it when the profile does.
+ * The lift depends on the marbles along the way and is added per query.
+ */
+public class TravelTimeMatrix implements BoardCoordinatesAdapter.OnTableChangedListener {
+    private static final String TAG = "TravelTimeMatrix";
+
+    public static final int CELL_COUNT = BoardGeometry.STANDARD.getCellCount();
+
+    // Dense cell id <-> packed CoordinateTable index
+    private static final int[] CELL_ID_OF = new int[CoordinateTable.SIZE];
+    private static final int[] PACKED_OF = new int[CELL_COUNT];
+
+    static {
+        Arrays.fill(CELL_ID_OF, -1);
+        BoardGeometry geometry = BoardGeometry.STANDARD;
+        for (int id = 0; id < CELL_COUNT; id++) {
+            int packed = CoordinateTable.pack(geometry.getCellX(id), geometry.getCellY(id));
+            CELL_ID_OF[packed] = id;
+            PACKED_OF[id] = packed;
+        }
+    }
+
+    private static TravelTimeMatrix instance;
+
+    private final BoardCoordinatesAdapter adapter;
+    private final RobotController controller;
+    private final ClearancePlanner planner;
+
+    // timesMs[from * CELL_COUNT + to] without the lift, -1 where a cell is not mapped
+    private volatile int[] timesMs;
+    // Speed profile the times were computed with
+    private volatile SpeedProfile profile;
+
+    private TravelTimeMatrix(BoardCoordinatesAdapter adapter, RobotController controller,
+                             ClearancePlanner planner) {
+        this.adapter = adapter;
+        this.controller = controller;
+        this.planner = planner;
+        rebuild(adapter.getTable());
+        adapter.addOnTableChangedListener(this);
+    }
+
+    public static synchronized TravelTimeMatrix getInstance() {
+        if (instance == null) {
+            instance = new TravelTimeMatrix(BoardCoordinatesAdapter.getInstance(),
+                    RobotController.getInstance(), ClearancePlanner.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Dense cell id of a board cell, -1 if it is not on the board
+     */
+    public static int cellId(int boardX, int boardY) {
+        int packed = CoordinateTable.pack(boardX, boardY);
+        return packed < 0 ? -1 : CELL_ID_OF[packed];
+    }
+
+    /**
+     * Predicted milliseconds from one cell to another, -1 if either is unknown
+     */
+    public int getTimeMs(int fromX, int fromY, int toX, int toY) {
+        int from = cellId(fromX, fromY);
+        int to = cellId(toX, toY);
+        if (from < 0 || to < 0) {
+            return -1;
+        }
+        return getTimeMs(from, to);
+    }
+
+    public int getTimeMs(int fromCellId, int toCellId) {
+        int[] times = currentTimes();
+        return withLift(adapter.getTable(), times[fromCellId * CELL_COUNT + toCellId], fromCellId, toCellId);
+    }
+
+    /**
+     * Predicted time for a whole hop sequence, -1 if any cell is unknown
+     */
+    public int getPathTimeMs(int[] boardXs, int[] boardYs, int count) {
+        int[] times = currentTimes();
+        CoordinateTable table = adapter.getTable();
+        int total = 0;
+        for (int i = 1; i < count; i++) {
+            int from = cellId(boardXs[i - 1], boardYs[i - 1]);
+            int to = cellId(boardXs[i], boardYs[i]);
+            if (from < 0 || to < 0) {
+                return -1;
+            }
+            int step = withLift(table, times[from * CELL_COUNT + to], from, to);
+            if (step < 0) {
+                return -1;
+            }
+            total += step;
+        }
+        return total;
+    }
+
+    @Override
+    public synchronized void onTableChanged(CoordinateTable oldTable, CoordinateTable newTable) {
+        int[] times = timesMs.clone();
+        int changed = 0;
+        for (int id = 0; id < CELL_COUNT; id++) {
+            if (sameCell(oldTable, newTable, PACKED_OF[id])) {
+                continue;
+            }
+            changed++;
+            for (int other = 0; other < CELL_COUNT; other++) {
+                times[id * CELL_COUNT + other] = computeMs(newTable, id, other);
+                times[other * CELL_COUNT + id] = computeMs(newTable, other, id);
+            }
+        }
+        timesMs = times;
+        Log.d(TAG, "Recomputed travel times for " + changed + " changed cells");
+    }
+
+    /**
+     * The matrix, recomputed first if the controller's speed profile changed
+     */
+    private int[] currentTimes() {
+        if (controller.getSpeedProfile() != profile) {
+            synchronized (this) {
+                if (controller.getSpeedProfile() != profile) {
+                    rebuild(adapter.getTable());
+                    Log.d(TAG, "Recomputed travel times for a new speed profile");
+                }
+            }
+        }
+        return timesMs;
+    }
+
+    private synchronized void rebuild(CoordinateTable table) {
+        // Read first, so a profile set during the rebuild triggers another one
+        profile = controller.getSpeedProfile();
+        int[] times = new int[CELL_COUNT * CELL_COUNT];
+        for (int from = 0; from < CELL_COUNT; from++) {
+            for (int to = 0; to < CELL_COUNT; to++) {
+                times[from * CELL_COUNT + to] = computeMs(table, from, to);
+            }
+        }
+        timesMs = times;
+    }
+
+    private static boolean sameCell(CoordinateTable a, CoordinateTable b, int packed) {
+        if (a.isMapped(packed) != b.isMapped(packed)) {
+            return false;
+        }
+        return !a.isMapped(packed)
+                || (a.getX(packed) == b.getX(packed)
+                && a.getY(packed) == b.getY(packed)
+                && a.getZ(packed) == b.getZ(packed)
+                && a.getTorque(packed) == b.getTorque(packed));
+    }
+
+    /**
+     * Add the lift from the start cell to the planner's transit height for this hop
+     */
+    private int withLift(CoordinateTable table, int hopMs, int fromId, int toId) {
+        if (hopMs <= 0) {
+            return hopMs;
+        }
+        int from = PACKED_OF[fromId];
+        int to = PACKED_OF[toId];
+        float transitZ = planner.getTransitZ(table.getX(from), table.getY(from), table.getX(to), table.getY(to));
+        return hopMs + RobotController.getVerticalDelayMs(Math.abs(transitZ - table.getZ(from)));
+    }
+
+    private int computeMs(CoordinateTable table, int fromId, int toId) {
+        int from = PACKED_OF[fromId];
+        int to = PACKED_OF[toId];
+        if (!table.isMapped(from) || !table.isMapped(to)) {
+            return -1;
+        }
+        if (from == to) {
+            return 0;
+        }
+        return controller.getHopDelayMs(table.getX(to), table.getY(to), table.getZ(to));
+    }
+}
@@ -0,0 +1,129 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import android.util.Log;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Decides which movement segments are verified with T:105 position feedback.
+ * Only grasp and release need millimetre accuracy, so hover, transit and lift
+ * segments run open-loop by default. After an anomaly (a failed or retried
+ * verification, or missing feedback) every segment is verified for a while.
+ *
+ * Also keeps per-turn statistics of feedback round trips made and avoided.
+ */
+public class VerificationPolicy {
+    private static final String TAG = "VerificationPolicy";
+
+    private static final int DEFAULT_ESCALATION_SEGMENTS = 4;
+
+    public enum SegmentType {
+        HOVER,      // above a cell before descending
+        TRANSIT,    // passing over intermediate jump cells
+        LIFT,       // rising after grasp or release
+        GRASP,      // descending to pick up a marble
+        RELEASE     // descending to put a marble down
+    }
+
+    public static class TurnStats {
+        public final int verifiedSegments;
+        public final int openLoopSegments;
+        public final int roundTripsMade;
+        public final int roundTripsAvoided;
+        public final int anomalies;
+
+        TurnStats(int verifiedSegments, int openLoopSegments,
+                  int roundTripsMade, int roundTripsAvoided, int anomalies) {
+            this.verifiedSegments = verifiedSegments;
+            this.openLoopSegments = openLoopSegments;
+            this.roundTripsMade = roundTripsMade;
+            this.roundTripsAvoided = roundTripsAvoided;
+            this.anomalies = anomalies;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Segments: %d verified, %d open-loop; feedback round trips: %d made, %d avoided; anomalies: %d",
+                    verifiedSegments, openLoopSegments, roundTripsMade, roundTripsAvoided, anomalies);
+        }
+    }
+
+    private final Set<SegmentType> verifiedTypes =
+            EnumSet.of(SegmentType.GRASP, SegmentType.RELEASE);
+    private int escalationSegments = DEFAULT_ESCALATION_SEGMENTS;
+    private int escalatedRemaining = 0;
+
+    // Statistics for the current turn
+    private int verifiedSegments;
+    private int openLoopSegments;
+    private int roundTripsMade;
+    private int roundTripsAvoided;
+    private int anomalies;
+
+    public synchronized void setVerified(SegmentType type, boolean verify) {
+        if (verify) {
+            verifiedTypes.add(type);
+        } else {
+            verifiedTypes.remove(type);
+        }
+    }
+
+    /**
+     * Number of segments verified unconditionally after an anomaly
+     */
+    public synchronized void setEscalationSegments(int segments) {
+        escalationSegments = Math.max(0, segments);
+    }
+
+    /**
+     * Whether the next segment of this type should be verified.
+     * Consumes one escalated segment if escalation is active.
+     */
+    public synchronized boolean shouldVerify(SegmentType type) {
+        if (escalatedRemaining > 0) {
+            escalatedRemaining--;
+            verifiedSegments++;
+            return true;
+        }
+        if (verifiedTypes.contains(type)) {
+            verifiedSegments++;
+            return true;
+        }
+        openLoopSegments++;
+        return false;
+    }
+
+    public synchronized void reportAnomaly(String reason) {
+        anomalies++;
+        escalatedRemaining = escalationSegments;
+        Log.w(TAG, "Anomaly, verifying next " + escalationSegments + " segments: " + reason);
+    }
+
+    public synchronized void recordRoundTrip() {
+        roundTripsMade++;
+    }
+
+    public synchronized void recordAvoidedRoundTrips(int count) {
+        roundTripsAvoided += count;
+    }
+
+    public synchronized void beginTurn() {
+        verifiedSegments = 0;
+        openLoopSegments = 0;
+        roundTripsMade = 0;
+        roundTripsAvoided = 0;
+        anomalies = 0;
+    }
+
+    public synchronized TurnStats endTurn() {
+        TurnStats stats = getTurnStats();
+        Log.d(TAG, "Turn finished. " + stats);
+        return stats;
+    }
+
+    public synchronized TurnStats getTurnStats() {
+        return new TurnStats(verifiedSegments, openLoopSegments,
+                roundTripsMade, roundTripsAvoided, anomalies);
+    }
+}
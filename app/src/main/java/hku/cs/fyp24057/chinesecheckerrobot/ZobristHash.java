@@ -0,0 +1,82 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+/**
+ * 64-bit Zobrist hashing of board positions: one random key per cell and
+ * colour, XORed together for every occupied cell, so a move updates a hash
+ * with two XORs per cell it touches. The keys come from a fixed seed and are
+ * the same on every run, which lets hashes be stored on disk.
+ *
+ * A position and its left-right mirror are the same game, so the canonical
+ * hash is the smaller of the two.
+ */
+public final class ZobristHash {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+    private static final long SEED = 0x43434D5643414348L;
+
+    // KEYS[cell * 2 + colour - 1] for GREEN and RED
+    private static final long[] KEYS = new long[BoardState.CELL_COUNT * 2];
+    // XORed in when red is to move
+    public static final long RED_TO_MOVE;
+
+    static {
+        long state = SEED;
+        for (int i = 0; i < KEYS.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            KEYS[i] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        RED_TO_MOVE = mix(state);
+    }
+
+    private ZobristHash() {
+    }
+
+    /**
+     * Key of a marble of a colour on a cell, for updating a hash move by move
+     */
+    public static long key(int cellId, int colour) {
+        return KEYS[cellId * 2 + colour - 1];
+    }
+
+    public static long hash(BoardState state) {
+        long hash = 0L;
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            int value = state.get(id);
+            if (value != BoardState.EMPTY) {
+                hash ^= KEYS[id * 2 + value - 1];
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Hash of the mirrored position, without building it
+     */
+    public static long mirrorHash(BoardState state) {
+        long hash = 0L;
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            int value = state.get(id);
+            if (value != BoardState.EMPTY) {
+                hash ^= KEYS[GEOMETRY.mirror(id) * 2 + value - 1];
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Same value for a position and its mirror. Lookups that also need to know
+     * which orientation is canonical compare hash() and mirrorHash() themselves;
+     * this is for callers that only need the key, like the opening book tool.
+     */
+    public static long canonicalHash(BoardState state) {
+        return Math.min(hash(state), mirrorHash(state));
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,124 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Packing of cell values into words, parsing, diffing and serialisation
+ */
+public class BoardStateTest {
+
+    /**
+     * Every cell set, cycling through the three values, so each word boundary is covered
+     */
+    private static BoardState allValues() {
+        BoardState state = BoardState.EMPTY_BOARD;
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            state = state.with(id, id % 3);
+        }
+        return state;
+    }
+
+    @Test
+    public void with_setsOnlyThatCell() {
+        BoardState state = allValues();
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            assertEquals(id % 3, state.get(id));
+        }
+        BoardState changed = state.with(31, BoardState.RED).with(32, BoardState.GREEN);
+        assertEquals(BoardState.RED, changed.get(31));
+        assertEquals(BoardState.GREEN, changed.get(32));
+        assertArrayEquals(new int[]{31, 32}, state.diff(changed));
+        assertEquals(31 % 3, state.get(31));
+    }
+
+    @Test
+    public void with_sameValue_returnsSameInstance() {
+        BoardState state = allValues();
+        assertSame(state, state.with(5, state.get(5)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void with_invalidValue_throws() {
+        BoardState.EMPTY_BOARD.with(0, BoardState.UNDETECTED);
+    }
+
+    @Test
+    public void counts_matchCellByCell() {
+        BoardState state = allValues();
+        int green = 0;
+        int red = 0;
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            if (id % 3 == BoardState.GREEN) green++;
+            if (id % 3 == BoardState.RED) red++;
+        }
+        assertEquals(green, state.count(BoardState.GREEN));
+        assertEquals(red, state.count(BoardState.RED));
+        assertEquals(green + red, state.occupiedCount());
+        assertEquals(green + red, state.diffCount(BoardState.EMPTY_BOARD));
+    }
+
+    @Test
+    public void move_carriesTheMarble() {
+        BoardState state = BoardState.EMPTY_BOARD.with(10, BoardState.RED);
+        BoardState moved = state.move(10, 100);
+        assertEquals(BoardState.EMPTY, moved.get(10));
+        assertEquals(BoardState.RED, moved.get(100));
+        assertArrayEquals(new int[]{10, 100}, state.diff(moved));
+    }
+
+    @Test
+    public void bytes_roundTrip() {
+        BoardState state = allValues();
+        byte[] bytes = state.toBytes();
+        assertEquals(BoardState.SERIALIZED_BYTES, bytes.length);
+        BoardState copy = BoardState.fromBytes(bytes);
+        assertEquals(state, copy);
+        assertEquals(state.hashCode(), copy.hashCode());
+    }
+
+    @Test
+    public void rows_roundTrip() {
+        BoardState state = allValues();
+        List<String> rows = new ArrayList<>();
+        for (int row = 0; row < BoardGeometry.STANDARD.getRowCount(); row++) {
+            rows.add(state.rowString(row));
+        }
+        assertEquals(state, BoardState.fromRows(rows));
+    }
+
+    @Test
+    public void parse_acceptsBothNotations_andMarksUndetectedCells() {
+        BoardState state = BoardState.fromRows(Arrays.asList("R", "O X", "- ? G"));
+        BoardGeometry geometry = BoardGeometry.STANDARD;
+        assertEquals(BoardState.RED, state.get(geometry.cellId(0, 0)));
+        assertEquals(BoardState.GREEN, state.get(geometry.cellId(0, 1)));
+        assertEquals(BoardState.RED, state.get(geometry.cellId(1, 1)));
+        assertEquals(BoardState.UNDETECTED, state.get(geometry.cellId(0, 2)));
+        assertEquals(BoardState.UNDETECTED, state.get(geometry.cellId(1, 2)));
+        assertEquals(BoardState.GREEN, state.get(geometry.cellId(2, 2)));
+        // Missing trailing rows and cells are empty
+        assertEquals(6, state.occupiedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_unknownSymbol_throws() {
+        BoardState.fromRows(Arrays.asList("Z"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_tooManyCells_throws() {
+        BoardState.fromRows(Arrays.asList(". ."));
+    }
+
+    @Test
+    public void mirrored_twice_isTheSameBoard() {
+        BoardState state = allValues();
+        assertEquals(state, state.mirrored().mirrored());
+    }
+}
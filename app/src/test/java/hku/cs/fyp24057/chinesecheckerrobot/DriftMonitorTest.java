@@ -0,0 +1,90 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * When residuals count as drift, and how the correction is bounded
+ */
+public class DriftMonitorTest {
+
+    private static final float DELTA = 1e-4f;
+
+    private DriftMonitor monitor;
+    private float targetX;
+    private float targetY;
+
+    @Before
+    public void setUp() {
+        monitor = new DriftMonitor();
+        CoordinateTable table = BoardCoordinatesAdapter.getInstance().getTable();
+        for (int i = 0; i < CoordinateTable.SIZE; i++) {
+            if (table.isMapped(i)) {
+                targetX = table.getX(i);
+                targetY = table.getY(i);
+                return;
+            }
+        }
+        fail("No mapped cell in the default table");
+    }
+
+    /**
+     * Record residuals of (dx + jitter, dy) with jitter alternating in sign
+     * @return whether the last sample triggered a correction
+     */
+    private boolean recordSamples(int count, float dx, float dy, float jitter) {
+        boolean corrected = false;
+        for (int i = 0; i < count; i++) {
+            float noise = i % 2 == 0 ? jitter : -jitter;
+            corrected = monitor.record(targetX, targetY, targetX + dx + noise, targetY + dy);
+        }
+        return corrected;
+    }
+
+    @Test
+    public void consistentOffset_isCorrectedOnceEnoughSamplesAreIn() {
+        assertFalse(recordSamples(5, 2f, 0f, 0.1f));
+        assertEquals(0f, monitor.getCommandOffset(targetX, targetY)[0], DELTA);
+        assertTrue(recordSamples(1, 2f, 0f, 0.1f));
+        float[] offset = monitor.getCommandOffset(targetX, targetY);
+        // Jitter of +0.1 on four samples and -0.1 on two, as the second call restarts at +
+        assertEquals(2f + 0.2f / 6f, offset[0], DELTA);
+        assertEquals(0f, offset[1], DELTA);
+    }
+
+    @Test
+    public void smallOffset_isWithinNormalScatter() {
+        assertFalse(recordSamples(12, 0.5f, 0.5f, 0f));
+        assertEquals(0f, monitor.getCommandOffset(targetX, targetY)[0], DELTA);
+    }
+
+    @Test
+    public void noisyOffset_isNotSignificant() {
+        // Mean 1mm against a scatter of 4mm: t is about 0.6
+        assertFalse(recordSamples(12, 1f, 0f, 4f));
+        assertEquals(0f, monitor.getCommandOffset(targetX, targetY)[0], DELTA);
+    }
+
+    @Test
+    public void largeOffset_needsRecalibrationInstead() {
+        assertFalse(recordSamples(12, 12f, 0f, 0.1f));
+        assertEquals(0f, monitor.getCommandOffset(targetX, targetY)[0], DELTA);
+    }
+
+    @Test
+    public void targetOffTheBoard_isIgnored() {
+        assertFalse(monitor.record(targetX + 500f, targetY + 500f, targetX + 502f, targetY + 500f));
+        assertArrayEquals(new float[]{0f, 0f}, monitor.getCommandOffset(targetX + 500f, targetY + 500f), DELTA);
+    }
+
+    @Test
+    public void disabling_dropsTheCorrection() {
+        assertTrue(recordSamples(6, 0f, -3f, 0f));
+        assertEquals(-3f, monitor.getCommandOffset(targetX, targetY)[1], DELTA);
+        monitor.setEnabled(false);
+        assertEquals(0f, monitor.getCommandOffset(targetX, targetY)[1], DELTA);
+        assertFalse(recordSamples(6, 0f, -3f, 0f));
+    }
+}
@@ -0,0 +1,97 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Wins, stalemates and the two kinds of draw
+ */
+public class GameEndDetectorTest {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+
+    private static BoardState fill(BoardState state, BoardGeometry.Corner corner, int colour) {
+        for (int id : GEOMETRY.getHomeTriangle(corner)) {
+            state = state.with(id, colour);
+        }
+        return state;
+    }
+
+    /**
+     * Start position after one red step out of the bottom triangle
+     */
+    private static BoardState afterRedStep() {
+        BoardState start = MoveGeneratorTest.startPosition();
+        int[] froms = new int[MoveGenerator.MAX_MOVES];
+        int[] tos = new int[MoveGenerator.MAX_MOVES];
+        new MoveGenerator(start).generate(BoardState.RED, froms, tos);
+        return start.move(froms[0], tos[0]);
+    }
+
+    @Test
+    public void startPosition_isInProgress() {
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS,
+                GameEndDetector.evaluate(MoveGeneratorTest.startPosition(), BoardState.RED));
+    }
+
+    @Test
+    public void fullTarget_withOwnMarble_wins() {
+        BoardState state = fill(BoardState.EMPTY_BOARD, BoardGeometry.Corner.TOP, BoardState.GREEN);
+        // Green never left: the triangle is full, but red has no marble in it
+        assertFalse(GameEndDetector.hasReachedTarget(state, BoardState.RED));
+        int[] top = GEOMETRY.getHomeTriangle(BoardGeometry.Corner.TOP);
+        state = state.with(top[0], BoardState.RED);
+        assertTrue(GameEndDetector.hasReachedTarget(state, BoardState.RED));
+        assertEquals(GameEndDetector.Outcome.RED_WINS, GameEndDetector.evaluate(state, BoardState.GREEN));
+    }
+
+    @Test
+    public void targetWithAHole_isNotAWin() {
+        BoardState state = fill(BoardState.EMPTY_BOARD, BoardGeometry.Corner.BOTTOM, BoardState.GREEN);
+        state = state.with(GEOMETRY.getHomeTriangle(BoardGeometry.Corner.BOTTOM)[0], BoardState.EMPTY);
+        assertFalse(GameEndDetector.hasReachedTarget(state, BoardState.GREEN));
+    }
+
+    @Test
+    public void blockedMarble_isStalemated() {
+        // A red marble on the top corner, with both rows below it taken
+        BoardState state = BoardState.EMPTY_BOARD.with(GEOMETRY.cellId(0, 0), BoardState.RED);
+        for (int row = 1; row <= 2; row++) {
+            for (int x = 0; x < GEOMETRY.getRowWidth(row); x++) {
+                state = state.with(GEOMETRY.cellId(x, row), BoardState.GREEN);
+            }
+        }
+        assertFalse(GameEndDetector.hasLegalMove(state, BoardState.RED));
+        assertEquals(GameEndDetector.Outcome.STALEMATE, GameEndDetector.evaluate(state, BoardState.RED));
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS, GameEndDetector.evaluate(state, BoardState.GREEN));
+    }
+
+    @Test
+    public void thirdOccurrence_isADraw_butRepeatedDetectionIsNot() {
+        GameEndDetector detector = new GameEndDetector();
+        BoardState start = MoveGeneratorTest.startPosition();
+        BoardState moved = afterRedStep();
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS, detector.update(moved, BoardState.GREEN));
+        // Detecting the same board again does not count
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS, detector.update(moved, BoardState.GREEN));
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS, detector.update(moved.mirrored(), BoardState.GREEN));
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS, detector.update(moved, BoardState.GREEN));
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS, detector.update(moved.mirrored(), BoardState.GREEN));
+        assertEquals(GameEndDetector.Outcome.DRAW_REPETITION, detector.update(moved, BoardState.GREEN));
+        // The starting position begins a new game
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS, detector.update(start, BoardState.RED));
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS, detector.update(moved, BoardState.GREEN));
+    }
+
+    @Test
+    public void moveLimit_isADraw() {
+        GameEndDetector detector = new GameEndDetector(2);
+        BoardState moved = afterRedStep();
+        detector.recordRobotMove();
+        assertEquals(GameEndDetector.Outcome.IN_PROGRESS, detector.update(moved, BoardState.GREEN));
+        detector.recordRobotMove();
+        assertEquals(GameEndDetector.Outcome.DRAW_MOVE_LIMIT, detector.update(moved, BoardState.GREEN));
+        assertEquals(2, detector.getRobotMoves());
+    }
+}
@@ -0,0 +1,46 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Move counts from the starting position, checked against the AI server's move generation
+ */
+public class MoveGeneratorTest {
+
+    static BoardState startPosition() {
+        BoardState state = BoardState.EMPTY_BOARD;
+        for (int id : BoardGeometry.STANDARD.getHomeTriangle(BoardGeometry.Corner.TOP)) {
+            state = state.with(id, BoardState.GREEN);
+        }
+        for (int id : BoardGeometry.STANDARD.getHomeTriangle(BoardGeometry.Corner.BOTTOM)) {
+            state = state.with(id, BoardState.RED);
+        }
+        return state;
+    }
+
+    @Test
+    public void perft_fromStart_matchesServer() {
+        MoveGenerator generator = new MoveGenerator(startPosition());
+        assertEquals(14, generator.perft(BoardState.RED, 1));
+        assertEquals(196, generator.perft(BoardState.RED, 2));
+        assertEquals(4760, generator.perft(BoardState.RED, 3));
+    }
+
+    @Test
+    public void perft_isTheSameForEitherSide() {
+        MoveGenerator generator = new MoveGenerator(startPosition());
+        assertEquals(generator.perft(BoardState.RED, 3), generator.perft(BoardState.GREEN, 3));
+    }
+
+    @Test
+    public void perft_leavesThePositionUnchanged() {
+        BoardState start = startPosition();
+        MoveGenerator generator = new MoveGenerator(start);
+        generator.perft(BoardState.RED, 3);
+        for (int id = 0; id < BoardState.CELL_COUNT; id++) {
+            assertEquals(start.get(id), generator.get(id));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Steps, jump chains and the ways a move sequence can break the rules
+ */
+public class MoveValidatorTest {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+    // Centre of the board, far enough from the edges for two jumps in any direction
+    private static final int CENTRE = GEOMETRY.cellId(4, 8);
+
+    private static String validate(BoardState state, int colour, int... cells) {
+        int[] xs = new int[cells.length];
+        int[] ys = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            xs[i] = GEOMETRY.getCellX(cells[i]);
+            ys[i] = GEOMETRY.getCellY(cells[i]);
+        }
+        return MoveValidator.validate(state, xs, ys, cells.length, colour);
+    }
+
+    private static BoardState redAtCentre() {
+        return BoardState.EMPTY_BOARD.with(CENTRE, BoardState.RED);
+    }
+
+    @Test
+    public void step_toEmptyNeighbour_isLegal() {
+        for (int dir = 0; dir < BoardGeometry.DIRECTIONS; dir++) {
+            assertNull(validate(redAtCentre(), BoardState.RED, CENTRE, GEOMETRY.neighbour(CENTRE, dir)));
+        }
+    }
+
+    @Test
+    public void step_ontoOccupiedCell_isRejected() {
+        int next = GEOMETRY.neighbour(CENTRE, 0);
+        BoardState state = redAtCentre().with(next, BoardState.GREEN);
+        assertNotNull(validate(state, BoardState.RED, CENTRE, next));
+    }
+
+    @Test
+    public void jumpChain_overMarbles_isLegal() {
+        int first = GEOMETRY.jump(CENTRE, 0);
+        int second = GEOMETRY.jump(first, 2);
+        BoardState state = redAtCentre()
+                .with(GEOMETRY.neighbour(CENTRE, 0), BoardState.GREEN)
+                .with(GEOMETRY.neighbour(first, 2), BoardState.RED);
+        assertNull(validate(state, BoardState.RED, CENTRE, first, second));
+    }
+
+    @Test
+    public void jump_overEmptyCell_isRejected() {
+        assertNotNull(validate(redAtCentre(), BoardState.RED, CENTRE, GEOMETRY.jump(CENTRE, 0)));
+    }
+
+    @Test
+    public void stepAfterJump_isRejected() {
+        int landing = GEOMETRY.jump(CENTRE, 0);
+        BoardState state = redAtCentre().with(GEOMETRY.neighbour(CENTRE, 0), BoardState.GREEN);
+        assertNotNull(validate(state, BoardState.RED, CENTRE, landing, GEOMETRY.neighbour(landing, 2)));
+    }
+
+    @Test
+    public void jumpBack_toVisitedCell_isRejected() {
+        int landing = GEOMETRY.jump(CENTRE, 0);
+        // Directions 0 and 1 are left and right
+        int back = GEOMETRY.jump(landing, 1);
+        assertEquals(CENTRE, back);
+        BoardState state = redAtCentre().with(GEOMETRY.neighbour(CENTRE, 0), BoardState.GREEN);
+        assertNotNull(validate(state, BoardState.RED, CENTRE, landing, back));
+    }
+
+    @Test
+    public void otherPlayersMarble_isRejected_unlessEitherColourIsAccepted() {
+        int next = GEOMETRY.neighbour(CENTRE, 0);
+        assertNotNull(validate(redAtCentre(), BoardState.GREEN, CENTRE, next));
+        assertNull(validate(redAtCentre(), BoardState.EMPTY, CENTRE, next));
+    }
+
+    @Test
+    public void emptyStartOrSingleCell_isRejected() {
+        assertNotNull(validate(BoardState.EMPTY_BOARD, BoardState.RED, CENTRE, GEOMETRY.neighbour(CENTRE, 0)));
+        assertNotNull(validate(redAtCentre(), BoardState.RED, CENTRE));
+    }
+
+    @Test
+    public void cellOffTheBoard_isRejected() {
+        int[] xs = {GEOMETRY.getCellX(CENTRE), 40};
+        int[] ys = {GEOMETRY.getCellY(CENTRE), 40};
+        assertNotNull(MoveValidator.validate(redAtCentre(), xs, ys, 2, BoardState.RED));
+    }
+}
@@ -0,0 +1,137 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * The solver's races against a brute-force search, and that bounds from a
+ * restricted search do not leak into later ones
+ */
+public class RaceSolverTest {
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+    private static final long BUDGET_MS = 5000;
+
+    /**
+     * Green at home in the bottom triangle, red in the top one apart from the holes
+     */
+    private static BoardState raceWithHoles(int... holes) {
+        BoardState state = BoardState.EMPTY_BOARD;
+        for (int id : GEOMETRY.getHomeTriangle(BoardGeometry.Corner.BOTTOM)) {
+            state = state.with(id, BoardState.GREEN);
+        }
+        for (int id : GEOMETRY.getHomeTriangle(BoardGeometry.Corner.TOP)) {
+            state = state.with(id, BoardState.RED);
+        }
+        for (int hole : holes) {
+            state = state.with(hole, BoardState.EMPTY);
+        }
+        return state;
+    }
+
+    /**
+     * Fewest red moves to fill the top triangle, by exhaustive search up to a depth, -1 if deeper
+     */
+    private static int shortestRace(BoardState state, int maxDepth) {
+        MoveGenerator generator = new MoveGenerator(state);
+        for (int depth = 0; depth <= maxDepth; depth++) {
+            if (canFinish(generator, depth)) {
+                return depth;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean canFinish(MoveGenerator generator, int depth) {
+        if (generator.hasReachedTarget(BoardState.RED)) {
+            return true;
+        }
+        if (depth == 0) {
+            return false;
+        }
+        int[] froms = new int[MoveGenerator.MAX_MOVES];
+        int[] tos = new int[MoveGenerator.MAX_MOVES];
+        int count = generator.generate(BoardState.RED, froms, tos);
+        for (int i = 0; i < count; i++) {
+            generator.makeMove(froms[i], tos[i]);
+            boolean finished = canFinish(generator, depth - 1);
+            generator.unmakeMove(froms[i], tos[i]);
+            if (finished) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The solver's move must start a shortest race
+     */
+    private static void assertOptimal(BoardState state, int[] path) {
+        assertNotNull(path);
+        int shortest = shortestRace(state, 3);
+        assertTrue("race too long for the brute force", shortest > 0);
+        BoardState after = state.move(path[0], path[path.length - 1]);
+        assertEquals(shortest - 1, shortestRace(after, shortest - 1));
+    }
+
+    @Test
+    public void engagedArmies_areNotSolved() {
+        assertNull(new RaceSolver().solve(MoveGeneratorTest.startPosition(), BoardState.RED, BUDGET_MS));
+    }
+
+    @Test
+    public void finishedRace_isNotSolved() {
+        assertNull(new RaceSolver().solve(raceWithHoles(), BoardState.RED, BUDGET_MS));
+    }
+
+    @Test
+    public void oneStepFromHome_isSolvedInOneMove() {
+        int hole = GEOMETRY.cellId(1, 3);
+        int outside = GEOMETRY.neighbour(hole, 4);
+        BoardState state = raceWithHoles(hole).with(outside, BoardState.RED);
+        int[] path = new RaceSolver().solve(state, BoardState.RED, BUDGET_MS);
+        assertArrayEquals(new int[]{outside, hole}, path);
+    }
+
+    @Test
+    public void marbleWithoutPivot_needsTwoSteps() {
+        // Two rows below the hole with nothing in between, so the sublattice bound applies
+        int hole = GEOMETRY.cellId(1, 3);
+        int outside = GEOMETRY.jump(hole, 4);
+        BoardState state = raceWithHoles(hole).with(outside, BoardState.RED);
+        assertEquals(2, shortestRace(state, 3));
+        assertOptimal(state, new RaceSolver().solve(state, BoardState.RED, BUDGET_MS));
+    }
+
+    @Test
+    public void twoHoles_areFilledInTheFewestMoves() {
+        int first = GEOMETRY.cellId(0, 3);
+        int second = GEOMETRY.cellId(2, 3);
+        BoardState state = raceWithHoles(first, second)
+                .with(GEOMETRY.neighbour(first, 5), BoardState.RED)
+                .with(GEOMETRY.jump(second, 5), BoardState.RED);
+        assertOptimal(state, new RaceSolver().solve(state, BoardState.RED, BUDGET_MS));
+    }
+
+    @Test
+    public void restrictedFirstMove_avoidsDisallowedCells_andLeavesNoBound() {
+        int hole = GEOMETRY.cellId(1, 3);
+        int outside = GEOMETRY.neighbour(hole, 4);
+        BoardState state = raceWithHoles(hole).with(outside, BoardState.RED);
+        boolean[] allowed = new boolean[BoardState.CELL_COUNT];
+        Arrays.fill(allowed, true);
+        allowed[hole] = false;
+
+        RaceSolver solver = new RaceSolver();
+        int[] restricted = solver.solve(state, BoardState.RED, BUDGET_MS, allowed);
+        assertNotNull(restricted);
+        for (int cell : restricted) {
+            assertTrue(allowed[cell]);
+        }
+        // The same solver still finds the direct move once unrestricted
+        assertArrayEquals(new int[]{outside, hole}, solver.solve(state, BoardState.RED, BUDGET_MS));
+    }
+}
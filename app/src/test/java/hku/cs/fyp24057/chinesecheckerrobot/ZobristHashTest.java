@@ -0,0 +1,65 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Incremental updates and mirror symmetry of the position hash
+ */
+public class ZobristHashTest {
+
+    /**
+     * A lopsided position, so it differs from its mirror
+     */
+    private static BoardState asymmetric() {
+        BoardState state = MoveGeneratorTest.startPosition();
+        int[] froms = new int[MoveGenerator.MAX_MOVES];
+        int[] tos = new int[MoveGenerator.MAX_MOVES];
+        new MoveGenerator(state).generate(BoardState.RED, froms, tos);
+        return state.move(froms[0], tos[0]);
+    }
+
+    @Test
+    public void move_updatesHashWithTwoKeys() {
+        BoardState state = MoveGeneratorTest.startPosition();
+        int[] froms = new int[MoveGenerator.MAX_MOVES];
+        int[] tos = new int[MoveGenerator.MAX_MOVES];
+        int count = new MoveGenerator(state).generate(BoardState.RED, froms, tos);
+        long hash = ZobristHash.hash(state);
+        for (int i = 0; i < count; i++) {
+            long updated = hash ^ ZobristHash.key(froms[i], BoardState.RED) ^ ZobristHash.key(tos[i], BoardState.RED);
+            assertEquals(ZobristHash.hash(state.move(froms[i], tos[i])), updated);
+        }
+    }
+
+    @Test
+    public void mirrorHash_isHashOfMirroredBoard() {
+        BoardState state = asymmetric();
+        assertNotEquals(state, state.mirrored());
+        assertEquals(ZobristHash.hash(state.mirrored()), ZobristHash.mirrorHash(state));
+        assertEquals(ZobristHash.hash(state), ZobristHash.mirrorHash(state.mirrored()));
+    }
+
+    @Test
+    public void canonicalHash_isTheSameForBothMirrors() {
+        BoardState state = asymmetric();
+        assertEquals(ZobristHash.canonicalHash(state), ZobristHash.canonicalHash(state.mirrored()));
+        assertNotEquals(ZobristHash.hash(state), ZobristHash.hash(state.mirrored()));
+    }
+
+    @Test
+    public void symmetricPosition_hasEqualMirrorHash() {
+        BoardState start = MoveGeneratorTest.startPosition();
+        assertEquals(start, start.mirrored());
+        assertEquals(ZobristHash.hash(start), ZobristHash.mirrorHash(start));
+    }
+
+    @Test
+    public void colours_haveDifferentKeys() {
+        int cell = BoardGeometry.STANDARD.cellId(4, 8);
+        assertNotEquals(ZobristHash.hash(BoardState.EMPTY_BOARD.with(cell, BoardState.GREEN)),
+                ZobristHash.hash(BoardState.EMPTY_BOARD.with(cell, BoardState.RED)));
+        assertEquals(0L, ZobristHash.hash(BoardState.EMPTY_BOARD));
+    }
+}
@@ -845,7 +845,7 @@ def print_text_board(populated_layout, cell_occupancy):
             for cell in row:
                 if cell is None:
                     # No circle assigned
-                    row_str.append("X")
+                    row_str.append("-")
                 else:
                     occupant = cell_occupancy.get(cell, None)
                     if occupant is None:
@@ -1154,6 +1154,41 @@ def improved_cell_occupancy_detection(empty_cells, hsv_image, debug=False):
                 logging.info(f"Cell ({cx},{cy}) -> EMPTY (green: {green_ratio:.3f}, red: {red_ratio:.3f})")
     
     return cell_occupancy
+def marble_centroids(cell_occupancy, hsv_image, search_radius=30):
+    """
+    Locate the centre of the marble in each occupied cell.
+
+    The marble may sit off the cell centre, so the centroid of the marble's colour
+    pixels within search_radius of the cell centre is returned instead.
+
+    Returns:
+        dict mapping cell coordinates to (x, y) centroids, only for occupied cells
+    """
+    green_mask = cv2.inRange(hsv_image, GREEN_LOWER, GREEN_UPPER)
+    red_mask = cv2.bitwise_or(cv2.inRange(hsv_image, RED_LOWER1, RED_UPPER1),
+                              cv2.inRange(hsv_image, RED_LOWER2, RED_UPPER2))
+    h, w = hsv_image.shape[:2]
+
+    centroids = {}
+    for cell, colour in cell_occupancy.items():
+        if colour is None:
+            continue
+        cx, cy = cell
+        mask = green_mask if colour == "green" else red_mask
+
+        # Only look at a window around the cell to keep this cheap
+        x0, x1 = max(0, int(cx - search_radius)), min(w, int(cx + search_radius) + 1)
+        y0, y1 = max(0, int(cy - search_radius)), min(h, int(cy + search_radius) + 1)
+        window = mask[y0:y1, x0:x1]
+        Y, X = np.ogrid[y0:y1, x0:x1]
+        inside = (X - cx)**2 + (Y - cy)**2 <= search_radius**2
+        ys, xs = np.nonzero((window > 0) & inside)
+        if len(xs) == 0:
+            centroids[cell] = (float(cx), float(cy))
+        else:
+            centroids[cell] = (float(xs.mean() + x0), float(ys.mean() + y0))
+    return centroids
+
 # ---------------------------
 # Main Function
 # ---------------------------
@@ -288,13 +288,23 @@ def detect_current_state():
                 
             save_debug_image(visualization, 'board_state.jpg')
             
+            # Marble centroids let the app grasp off-centre marbles precisely
+            centroids = detector.marble_centroids(cell_occupancy, hsv)
+
             # Generate text representation
             board_state = []
+            cell_pixels = []
+            marble_centroids = []
             for row in populated_layout:
                 row_state = []
+                cell_pixels.append([None if cell is None else [float(cell[0]), float(cell[1])]
+                                    for cell in row])
+                marble_centroids.append([None if cell is None or tuple(cell) not in centroids
+                                         else list(centroids[tuple(cell)])
+                                         for cell in row])
                 for cell in row:
                     if cell is None:
-                        row_state.append('X')  # No cell detected here
+                        row_state.append('-')  # No cell detected here; 'X' means a red marble to the AI
                     else:
                         # Fix: Ensure we're using the tuple as the key
                         # This is the key fix - make sure cell is properly used as a key
@@ -319,6 +329,8 @@ def detect_current_state():
             }))
             return jsonify({
                 'board_state': board_state,
+                'cell_pixels': cell_pixels,
+                'marble_centroids': marble_centroids,
                 'message': 'Board state detected successfully'
             })
             
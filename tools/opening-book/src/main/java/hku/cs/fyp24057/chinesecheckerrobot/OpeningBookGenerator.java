@@ -0,0 +1,221 @@
+package hku.cs.fyp24057.chinesecheckerrobot;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.CRC_BYTES;
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.HEADER_BYTES;
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.MAGIC;
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.SLOT_BYTES;
+import static hku.cs.fyp24057.chinesecheckerrobot.OpeningBookFormat.VERSION;
+
+/**
+ * Builds app/src/main/assets/opening_book.bin offline, on a desktop JVM.
+ * From the repository root:
+ *
+ *   ./gradlew :opening-book:run [--args="output budgetMs replies maxPlies maxPositions"]
+ *
+ * The defaults are the settings the shipped book was built with.
+ *
+ * Starting from the opening position, with either side moving first, the
+ * robot's move in every position is found with a long alpha-beta search, and
+ * the line is followed through the opponent's likeliest replies: its own
+ * best move by a shorter search and the moves that gain the most ground.
+ * Positions are expanded breadth first until the ply or position limit.
+ */
+public final class OpeningBookGenerator {
+
+    private static final String DEFAULT_OUTPUT = "app/src/main/assets/" + OpeningBookFormat.ASSET_NAME;
+    private static final long DEFAULT_BUDGET_MS = 300;
+    private static final int DEFAULT_REPLIES = 4;
+    private static final int DEFAULT_MAX_PLIES = 10;
+    private static final int DEFAULT_MAX_POSITIONS = 1500;
+
+    private static final BoardGeometry GEOMETRY = BoardGeometry.STANDARD;
+    private static final int ROBOT = BoardState.RED;
+    private static final int OPPONENT = BoardState.GREEN;
+
+    private final AlphaBetaEngine engine = new AlphaBetaEngine();
+    private final MoveGenerator generator = new MoveGenerator();
+    private final int[] froms = new int[MoveGenerator.MAX_MOVES];
+    private final int[] tos = new int[MoveGenerator.MAX_MOVES];
+
+    private final long budgetMs;
+    private final int replies;
+    private final int maxPlies;
+    private final int maxPositions;
+
+    private final Map<Long, Integer> book = new HashMap<>();
+    private final Set<Long> queued = new HashSet<>();
+    private final ArrayDeque<BoardState> positions = new ArrayDeque<>();
+    private final ArrayDeque<Integer> plies = new ArrayDeque<>();
+
+    private OpeningBookGenerator(long budgetMs, int replies, int maxPlies, int maxPositions) {
+        this.budgetMs = budgetMs;
+        this.replies = replies;
+        this.maxPlies = maxPlies;
+        this.maxPositions = maxPositions;
+    }
+
+    public static void main(String[] args) throws IOException {
+        File output = new File(args.length > 0 ? args[0] : DEFAULT_OUTPUT);
+        long budgetMs = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_BUDGET_MS;
+        int replies = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_REPLIES;
+        int maxPlies = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MAX_PLIES;
+        int maxPositions = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_MAX_POSITIONS;
+
+        OpeningBookGenerator builder = new OpeningBookGenerator(budgetMs, replies, maxPlies, maxPositions);
+        long start = System.nanoTime();
+        builder.run();
+        builder.engine.shutdown();
+        write(output, builder.book);
+        System.out.println(String.format(Locale.US, "Wrote %d positions to %s in %ds",
+                builder.book.size(), output, (System.nanoTime() - start) / 1_000_000_000L));
+    }
+
+    static BoardState startPosition() {
+        BoardState state = BoardState.EMPTY_BOARD;
+        for (int id : GEOMETRY.getHomeTriangle(BoardGeometry.Corner.TOP)) {
+            state = state.with(id, OPPONENT);
+        }
+        for (int id : GEOMETRY.getHomeTriangle(BoardGeometry.Corner.BOTTOM)) {
+            state = state.with(id, ROBOT);
+        }
+        return state;
+    }
+
+    private void run() {
+        BoardState start = startPosition();
+        enqueue(start, 0);
+        // The opponent may have the first move
+        for (BoardState reply : opponentReplies(start)) {
+            enqueue(reply, 1);
+        }
+
+        while (!positions.isEmpty() && book.size() < maxPositions) {
+            BoardState state = positions.poll();
+            int ply = plies.poll();
+            int[] move = engine.findMove(state, ROBOT, budgetMs);
+            if (move == null) {
+                continue;
+            }
+            int from = move[0];
+            int to = move[move.length - 1];
+            long plain = ZobristHash.hash(state);
+            long reflected = ZobristHash.mirrorHash(state);
+            if (reflected < plain) {
+                from = GEOMETRY.mirror(from);
+                to = GEOMETRY.mirror(to);
+            }
+            book.put(OpeningBookFormat.key(Math.min(plain, reflected), ROBOT), from << 8 | to);
+            if (book.size() % 100 == 0) {
+                System.out.println(String.format(Locale.US, "%d positions, %d queued, ply %d",
+                        book.size(), positions.size(), ply));
+            }
+
+            BoardState after = state.move(move[0], move[move.length - 1]);
+            generator.load(after);
+            if (ply + 2 >= maxPlies || generator.hasReachedTarget(ROBOT)) {
+                continue;
+            }
+            for (BoardState reply : opponentReplies(after)) {
+                enqueue(reply, ply + 2);
+            }
+        }
+    }
+
+    private void enqueue(BoardState state, int ply) {
+        if (queued.add(OpeningBookFormat.key(ZobristHash.canonicalHash(state), ROBOT))) {
+            positions.add(state);
+            plies.add(ply);
+        }
+    }
+
+    /**
+     * Write a book in the layout OpeningBook reads
+     * @param moves canonical key (see OpeningBookFormat.key()) to canonical move, packed as from << 8 | to
+     */
+    static void write(File file, Map<Long, Integer> moves) throws IOException {
+        int slotCount = Integer.highestOneBit(Math.max(moves.size(), 1) * 2 - 1) << 1;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + slotCount * SLOT_BYTES + CRC_BYTES);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                .putInt(slotCount).putInt(moves.size());
+
+        int mask = slotCount - 1;
+        for (Map.Entry<Long, Integer> entry : moves.entrySet()) {
+            long key = entry.getKey();
+            int slot = (int) key & mask;
+            while (buffer.getLong(HEADER_BYTES + slot * SLOT_BYTES) != 0L) {
+                slot = (slot + 1) & mask;
+            }
+            int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            buffer.putLong(offset, key);
+            buffer.put(offset + 8, (byte) (entry.getValue() >>> 8));
+            buffer.put(offset + 9, (byte) (int) entry.getValue());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.capacity() - CRC_BYTES);
+        buffer.putLong(buffer.capacity() - CRC_BYTES, crc.getValue());
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(buffer.array());
+        }
+    }
+
+    /**
+     * Positions after the opponent's best move and its biggest forward moves
+     */
+    private BoardState[] opponentReplies(BoardState state) {
+        generator.load(state);
+        if (generator.hasReachedTarget(OPPONENT)) {
+            return new BoardState[0];
+        }
+        int[] best = engine.findMove(state, OPPONENT, Math.max(1, budgetMs / 4));
+        BoardState[] result = new BoardState[replies];
+        Set<Long> seen = new HashSet<>();
+        int found = 0;
+        if (best != null) {
+            result[found++] = state.move(best[0], best[best.length - 1]);
+            seen.add(ZobristHash.canonicalHash(result[0]));
+        }
+
+        generator.load(state);
+        int count = generator.generate(OPPONENT, froms, tos);
+        boolean[] used = new boolean[count];
+        while (found < replies) {
+            int pick = -1;
+            int pickGain = Integer.MIN_VALUE;
+            for (int i = 0; i < count; i++) {
+                int gain = BoardEvaluator.progress(OPPONENT, tos[i]) - BoardEvaluator.progress(OPPONENT, froms[i]);
+                if (!used[i] && gain > pickGain) {
+                    pick = i;
+                    pickGain = gain;
+                }
+            }
+            if (pick < 0) {
+                break;
+            }
+            used[pick] = true;
+            BoardState reply = state.move(froms[pick], tos[pick]);
+            // Mirror images of a reply lead to the same book entries
+            if (seen.add(ZobristHash.canonicalHash(reply))) {
+                result[found++] = reply;
+            }
+        }
+        if (found < replies) {
+            BoardState[] trimmed = new BoardState[found];
+            System.arraycopy(result, 0, trimmed, 0, found);
+            return trimmed;
+        }
+        return result;
+    }
+}